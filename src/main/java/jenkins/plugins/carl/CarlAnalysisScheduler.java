@@ -0,0 +1,221 @@
+package jenkins.plugins.carl;
+
+import hudson.model.TaskListener;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+public class CarlAnalysisScheduler {
+    
+    static private final CarlAnalysisScheduler INSTANCE = new CarlAnalysisScheduler();
+    static final long WAIT_PERIOD = TimeUnit.SECONDS.toMillis(30);
+    static final Comparator<Ticket> ORDER = Comparator.comparingInt((Ticket ticket) -> -ticket.priority).thenComparingLong(ticket -> ticket.sequence);
+    
+    private final List<Ticket> queue = new ArrayList<>();
+    private final Map<String, Integer> runningByNode = new HashMap<>();
+    private final Map<String, Integer> runningByInstallation = new HashMap<>();
+    private final Map<String, Statistics> statistics = new TreeMap<>();
+    private long sequence;
+    
+    static public CarlAnalysisScheduler get()  {
+        return INSTANCE;
+        }
+    
+    static final class Ticket  {
+        final String installationName;
+        final String nodeName;
+        final int slots;
+        final int priority;
+        final int maxPerNode;
+        final int maxTotal;
+        final long sequence;
+        final long queuedAt = System.currentTimeMillis();
+        long grantedAt;
+        boolean granted;
+        boolean released;
+        
+        Ticket(String installationName, String nodeName, int slots, int priority, int maxPerNode, int maxTotal, long sequence)  {
+            this.installationName   = installationName;
+            this.nodeName           = nodeName;
+            this.slots              = slots;
+            this.priority           = priority;
+            this.maxPerNode         = maxPerNode;
+            this.maxTotal           = maxTotal;
+            this.sequence           = sequence;
+            }
+        
+        String getNodeKey()  {
+            return installationName + "@" + (nodeName.isEmpty() ? "master" : nodeName);
+            }
+        }
+    
+    static public class Statistics  {
+        long count;
+        long totalWait;
+        long maxWait;
+        long totalRun;
+        long maxRun;
+        
+        public long getCount()          { return count; }
+        public long getTotalWait()      { return totalWait; }
+        public long getMaxWait()        { return maxWait; }
+        public long getAverageWait()    { return (count == 0) ? 0 : totalWait / count; }
+        public long getTotalRun()       { return totalRun; }
+        public long getMaxRun()         { return maxRun; }
+        public long getAverageRun()     { return (count == 0) ? 0 : totalRun / count; }
+        }
+    
+    public final class Permit implements AutoCloseable  {
+        private final Ticket ticket;
+        
+        Permit(Ticket ticket)  {
+            this.ticket = ticket;
+            }
+        
+        public boolean isGranted()  {
+            synchronized (CarlAnalysisScheduler.this)  {
+                return (ticket == null) || ticket.granted;
+                }
+            }
+        
+        @Override
+        public void close()  {
+            if (ticket != null)
+                cancel(ticket);
+            }
+        }
+    
+    public Permit acquire(String installationName, String nodeName, int slots, int priority, TaskListener listener) throws InterruptedException  {
+        CarlInstallation installation = CarlInstallation.fromName(installationName);
+        CarlConcurrencyProperty property = (installation == null) ? null : installation.getProperties().get(CarlConcurrencyProperty.class);
+        if (property == null)
+            return new Permit(null);
+        
+        synchronized (this)  {
+            Ticket ticket = new Ticket(installationName, nodeName, slots, priority, property.getMaxPerNode(), property.getMaxTotal(), sequence++);
+            queue.add(ticket);
+            queue.sort(ORDER);
+            grant();
+            int lastPosition = 0;
+            try {
+                while (!ticket.granted)  {
+                    int position = getPosition(ticket);
+                    if (position != lastPosition)  {
+                        listener.getLogger().printf("Waiting for a free Carl slot of %s (position %d in queue)...%n", ticket.getNodeKey(), position);
+                        lastPosition = position;
+                        }
+                    wait(WAIT_PERIOD);
+                    }
+                }
+            catch (InterruptedException e)  {
+                cancel(ticket);
+                throw e;
+                }
+            if (lastPosition != 0)
+                listener.getLogger().printf("Carl slot acquired after %d s.%n", TimeUnit.MILLISECONDS.toSeconds(ticket.grantedAt - ticket.queuedAt));
+            return new Permit(ticket);
+            }
+        }
+    
+    // queues the analysis without waiting, the permit must be polled with isGranted() and closed in any case
+    public Permit request(String installationName, String nodeName, int slots, int priority)  {
+        CarlInstallation installation = CarlInstallation.fromName(installationName);
+        CarlConcurrencyProperty property = (installation == null) ? null : installation.getProperties().get(CarlConcurrencyProperty.class);
+        if (property == null)
+            return new Permit(null);
+        
+        synchronized (this)  {
+            Ticket ticket = new Ticket(installationName, nodeName, slots, priority, property.getMaxPerNode(), property.getMaxTotal(), sequence++);
+            queue.add(ticket);
+            queue.sort(ORDER);
+            grant();
+            return new Permit(ticket);
+            }
+        }
+    
+    public synchronized Map<String, Statistics> getStatistics()  {
+        return new TreeMap<>(statistics);
+        }
+    
+    public synchronized Map<String, Integer> getRunning()  {
+        return new TreeMap<>(runningByNode);
+        }
+    
+    public synchronized int getQueueLength()  {
+        return queue.size();
+        }
+    
+    synchronized void release(Ticket ticket)  {
+        if (ticket.released)
+            return;
+        ticket.released = true;
+        runningByNode.merge(ticket.getNodeKey(), -ticket.slots, Integer::sum);
+        runningByInstallation.merge(ticket.installationName, -ticket.slots, Integer::sum);
+        long ran = System.currentTimeMillis() - ticket.grantedAt;
+        Statistics stats = statistics.computeIfAbsent(ticket.getNodeKey(), k -> new Statistics());
+        stats.totalRun += ran;
+        stats.maxRun = Math.max(stats.maxRun, ran);
+        grant();
+        }
+    
+    synchronized void cancel(Ticket ticket)  {
+        if (ticket.granted)
+            release(ticket);
+        else  if (queue.remove(ticket))
+            grant();
+        }
+    
+    private int getPosition(Ticket ticket)  {
+        int position = 1;
+        for (Ticket other : queue)  {
+            if (other == ticket)
+                break;
+            if (other.getNodeKey().equals(ticket.getNodeKey()))
+                position++;
+            }
+        return position;
+        }
+    
+    private void grant()  {
+        Set<String> blockedNodes = new HashSet<>();
+        Set<String> blockedInstallations = new HashSet<>();
+        boolean changed = false;
+        for (Ticket ticket : new ArrayList<>(queue))  {
+            String nodeKey = ticket.getNodeKey();
+            if (blockedNodes.contains(nodeKey) || blockedInstallations.contains(ticket.installationName))
+                continue;
+            if (!fits(runningByInstallation.getOrDefault(ticket.installationName, 0), ticket.slots, ticket.maxTotal))  {
+                blockedInstallations.add(ticket.installationName);
+                continue;
+                }
+            if (!fits(runningByNode.getOrDefault(nodeKey, 0), ticket.slots, ticket.maxPerNode))  {
+                blockedNodes.add(nodeKey);
+                continue;
+                }
+            runningByNode.merge(nodeKey, ticket.slots, Integer::sum);
+            runningByInstallation.merge(ticket.installationName, ticket.slots, Integer::sum);
+            ticket.granted      = true;
+            ticket.grantedAt    = System.currentTimeMillis();
+            queue.remove(ticket);
+            long waited = ticket.grantedAt - ticket.queuedAt;
+            Statistics stats = statistics.computeIfAbsent(nodeKey, k -> new Statistics());
+            stats.count++;
+            stats.totalWait += waited;
+            stats.maxWait = Math.max(stats.maxWait, waited);
+            changed = true;
+            }
+        if (changed)
+            notifyAll();
+        }
+    
+    static private boolean fits(int running, int slots, int limit)  {
+        return (limit <= 0) || (running == 0) || (running + slots <= limit);
+        }
+    
+    }
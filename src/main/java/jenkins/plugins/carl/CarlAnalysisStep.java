@@ -0,0 +1,526 @@
+package jenkins.plugins.carl;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.ListBoxModel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.apache.commons.io.output.NullOutputStream;
+import org.jenkinsci.plugins.durabletask.BourneShellScript;
+import org.jenkinsci.plugins.durabletask.Controller;
+import org.jenkinsci.plugins.durabletask.WindowsBatchScript;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+public class CarlAnalysisStep extends Step {
+    
+    private final String installationName;
+    private final String sourcePath;
+    private final String applicationName;
+    private String qualityGate = CarlBuilder.DescriptorImpl.defaultQualityGate;
+    private String logPath = CarlBuilder.DescriptorImpl.defaultLogPath;
+    private String outputPath = CarlBuilder.DescriptorImpl.defaultOutputPath;
+    private boolean displayLog = CarlBuilder.DescriptorImpl.defaultDisplayLog;
+    private boolean useCache = CarlBuilder.DescriptorImpl.defaultUseCache;
+    private int priority = CarlBuilder.DescriptorImpl.defaultPriority;
+    private boolean fastCleanup = CarlBuilder.DescriptorImpl.defaultFastCleanup;
+    private int timeoutMinutes = CarlBuilder.DescriptorImpl.defaultTimeoutMinutes;
+    private int idleTimeoutMinutes = CarlBuilder.DescriptorImpl.defaultIdleTimeoutMinutes;
+    private int maxMemoryMb = CarlBuilder.DescriptorImpl.defaultMaxMemoryMb;
+    private int maxCpuMinutes = CarlBuilder.DescriptorImpl.defaultMaxCpuMinutes;
+    private boolean isolateOutput = CarlBuilder.DescriptorImpl.defaultIsolateOutput;
+    
+    @DataBoundConstructor
+    public CarlAnalysisStep(@Nonnull String installationName, @Nonnull String sourcePath, @Nonnull String applicationName)  {
+        this.installationName   = installationName;
+        this.sourcePath         = sourcePath.trim();
+        this.applicationName    = applicationName.trim();
+        }
+    
+    @DataBoundSetter
+    public void setQualityGate(@Nonnull String qualityGate)  {
+        this.qualityGate = qualityGate.trim();
+        }
+
+    @DataBoundSetter
+    public void setLogPath(@Nonnull String logPath)  {
+        this.logPath = logPath.trim();
+        }
+
+    @DataBoundSetter
+    public void setOutputPath(@Nonnull String outputPath)  {
+        this.outputPath = outputPath.trim();
+        }
+
+    @DataBoundSetter
+    public void setDisplayLog(boolean displayLog)  {
+        this.displayLog = displayLog;
+        }
+
+    @DataBoundSetter
+    public void setUseCache(boolean useCache)  {
+        this.useCache = useCache;
+        }
+
+    @DataBoundSetter
+    public void setPriority(int priority)  {
+        this.priority = priority;
+        }
+
+    @DataBoundSetter
+    public void setFastCleanup(boolean fastCleanup)  {
+        this.fastCleanup = fastCleanup;
+        }
+
+    @DataBoundSetter
+    public void setTimeoutMinutes(int timeoutMinutes)  {
+        this.timeoutMinutes = Math.max(0, timeoutMinutes);
+        }
+
+    @DataBoundSetter
+    public void setIdleTimeoutMinutes(int idleTimeoutMinutes)  {
+        this.idleTimeoutMinutes = Math.max(0, idleTimeoutMinutes);
+        }
+
+    @DataBoundSetter
+    public void setMaxMemoryMb(int maxMemoryMb)  {
+        this.maxMemoryMb = Math.max(0, maxMemoryMb);
+        }
+
+    @DataBoundSetter
+    public void setMaxCpuMinutes(int maxCpuMinutes)  {
+        this.maxCpuMinutes = Math.max(0, maxCpuMinutes);
+        }
+
+    @DataBoundSetter
+    public void setIsolateOutput(boolean isolateOutput)  {
+        this.isolateOutput = isolateOutput;
+        }
+    
+    public String getInstallationName() { return installationName; }
+    public String getSourcePath()       { return sourcePath; }
+    public String getApplicationName()  { return applicationName; }
+    public String getQualityGate()      { return qualityGate; }
+    public String getLogPath()          { return logPath; }
+    public String getOutputPath()       { return outputPath; }
+    public boolean isDisplayLog()       { return displayLog; }
+    public boolean isUseCache()         { return useCache; }
+    public int getPriority()            { return priority; }
+    public boolean isFastCleanup()      { return fastCleanup; }
+    public int getTimeoutMinutes()      { return timeoutMinutes; }
+    public int getIdleTimeoutMinutes()  { return idleTimeoutMinutes; }
+    public int getMaxMemoryMb()         { return maxMemoryMb; }
+    public int getMaxCpuMinutes()       { return maxCpuMinutes; }
+    public boolean isIsolateOutput()    { return isolateOutput; }
+    
+    // the builder holding the same settings provides the cleanup, cache and monitoring shared with the build step
+    CarlBuilder createBuilder()  {
+        CarlBuilder builder = new CarlBuilder(installationName, sourcePath, applicationName);
+        builder.setQualityGate(qualityGate);
+        builder.setLogPath(logPath);
+        builder.setOutputPath(outputPath);
+        builder.setDisplayLog(displayLog);
+        builder.setUseCache(useCache);
+        builder.setPriority(priority);
+        builder.setFastCleanup(fastCleanup);
+        builder.setTimeoutMinutes(timeoutMinutes);
+        builder.setIdleTimeoutMinutes(idleTimeoutMinutes);
+        builder.setMaxMemoryMb(maxMemoryMb);
+        builder.setMaxCpuMinutes(maxCpuMinutes);
+        builder.setIsolateOutput(isolateOutput);
+        return builder;
+        }
+    
+    @Override
+    public StepExecution start(StepContext context) throws Exception  {
+        return new Execution(context, this);
+        }
+    
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor  {
+        @Override
+        public String getFunctionName()  {
+            return "carlAnalysis";
+            }
+
+        @Override
+        public String getDisplayName()  {
+            return Messages.Carl_AnalysisStep_DisplayName();
+            }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext()  {
+            return new HashSet<>(Arrays.asList(Run.class, FilePath.class, Launcher.class, TaskListener.class, EnvVars.class));
+            }
+        
+        public ListBoxModel doFillInstallationNameItems()  {
+            ListBoxModel items = new ListBoxModel();
+            for (CarlInstallation installation : CarlInstallation.list())
+                items.add(installation.getName());
+            return items;
+            }
+        }
+    
+    static String getShellScript(List<String> params)  {
+        StringBuilder script = new StringBuilder();
+        for (String param : params)
+            script.append('\'').append(param.replace("'", "'\\''")).append("' ");
+        return script.toString();
+        }
+    
+    // batch files expand %VAR% even inside quotes, and cannot escape a double quote inside a quoted argument
+    static String getBatchScript(List<String> params) throws AbortException  {
+        StringBuilder script = new StringBuilder("@echo off\r\n");
+        for (String param : params)  {
+            if (param.indexOf('"') >= 0)
+                throw new AbortException(String.format("Carl argument %s cannot contain a double quote!", param));
+            script.append('"').append(param.replace("%", "%%")).append("\" ");
+            }
+        script.append("\r\nexit /b %ERRORLEVEL%\r\n");
+        return script.toString();
+        }
+    
+    // the timer only schedules the phases, which run on a dedicated pool since most of them reach the agent
+    // (tool installation, cleanup, cache, launch and polling): neither the CPS VM thread nor a shared timer thread
+    // waits for them, and no thread is held while waiting for the result folders, a Carl slot or the process
+    static class Execution extends StepExecution  {
+        private  static  final  long serialVersionUID = -3417658287209735524L;
+        private static final Logger LOGGER = Logger.getLogger(Execution.class.getName());
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Carl analysis step");
+            thread.setDaemon(true);
+            return thread;
+            });
+        static final long POLL_PERIOD = 5;
+        
+        private transient final CarlAnalysisStep step;
+        private final boolean displayLog;
+        private String installationName;
+        private String applicationName;
+        private String nodeName;
+        private String workspacePath;
+        private String outputPath;
+        private String cacheRootPath;
+        private String cacheKey;
+        private Controller controller;
+        private transient volatile boolean done;
+        // analysis state, lost with a controller restart like the locks and the slots they stand for
+        private transient CarlBuilder builder;
+        private transient CarlToolCache.Resolved tool;
+        private transient Launcher launcher;
+        private transient EnvVars env;
+        private transient String qualityGate;
+        private transient String sourcePath;
+        private transient FilePath sourceFile;
+        private transient FilePath logFile;
+        private transient CarlPathLock lock;
+        private transient CarlAnalysisScheduler.Permit permit;
+        private transient CarlProcessMonitor monitor;
+        private transient CarlOutputFilter output;
+        private transient CarlTimingAction timing;
+        private transient boolean waiting;
+        
+        Execution(StepContext context, CarlAnalysisStep step)  {
+            super(context);
+            this.step               = step;
+            this.displayLog         = step.displayLog;
+            }
+        
+        // only local work here, everything reaching the agent is left to the first phase
+        @Override
+        public boolean start() throws Exception  {
+            timing                  = new CarlTimingAction(step.applicationName);
+            FilePath workspace      = getContext().get(FilePath.class);
+            Run<?, ?> run           = getContext().get(Run.class);
+            Computer computer       = workspace.toComputer();
+            Node node               = (computer == null) ? null : computer.getNode();
+            launcher                = getContext().get(Launcher.class);
+            env                     = getContext().get(EnvVars.class);
+            builder                 = step.createBuilder();
+            installationName        = env.expand(step.installationName);
+            applicationName         = env.expand(step.applicationName);
+            qualityGate             = env.expand(step.qualityGate);
+            sourcePath              = env.expand(step.sourcePath);
+            timing.setApplicationName(applicationName);
+            timing.mark("environment");
+            
+            if (CarlInstallation.fromName(installationName) == null)
+                throw new AbortException(String.format("Carl plugin configuration \"%s\" no found!", installationName));
+            logFile         = workspace.child(builder.getResultPath(run, env.expand(step.logPath), applicationName));
+            FilePath outputFile = workspace.child(builder.getResultPath(run, env.expand(step.outputPath), applicationName));
+            nodeName        = (node == null) ? "" : node.getNodeName();
+            workspacePath   = workspace.getRemote();
+            outputPath      = outputFile.getRemote();
+            submit();
+            return false;
+            }
+        
+        @Override
+        public void onResume()  {
+            schedule();
+            }
+        
+        // done is set before waiting for a running phase, which then gives up at its next check
+        @Override
+        public void stop(@Nonnull Throwable cause) throws Exception  {
+            done = true;
+            synchronized (this)  {
+                try {
+                    FilePath workspace = getWorkspace();
+                    if ((workspace != null) && (controller != null))
+                        controller.stop(workspace, workspace.createLauncher(getContext().get(TaskListener.class)));
+                    }
+                finally {
+                    release();
+                    getContext().onFailure(cause);
+                    }
+                }
+            }
+        
+        @Override
+        public String getStatus()  {
+            if (nodeName == null)
+                return "starting Carl analysis";
+            if (controller == null)
+                return String.format("waiting to start Carl analysis of %s on %s", applicationName, nodeName.isEmpty() ? "master" : nodeName);
+            return String.format("waiting for Carl analysis of %s on %s", applicationName, nodeName.isEmpty() ? "master" : nodeName);
+            }
+        
+        private void schedule()  {
+            if (!done)
+                Timer.get().schedule(this::submit, POLL_PERIOD, TimeUnit.SECONDS);
+            }
+        
+        private void submit()  {
+            if (!done)
+                EXECUTOR.submit(this::check);
+            }
+        
+        private @CheckForNull FilePath getWorkspace()  {
+            Jenkins jenkins = Jenkins.get();
+            Node node = nodeName.isEmpty() ? jenkins : jenkins.getNode(nodeName);
+            return (node == null) ? null : node.createPath(workspacePath);
+            }
+        
+        private synchronized void check()  {
+            if (done)
+                return;
+            try {
+                FilePath workspace = getWorkspace();
+                if (workspace == null)  {
+                    LOGGER.log(Level.FINE, "Agent {0} is offline, waiting for Carl analysis to be reachable", nodeName);
+                    schedule();
+                    return;
+                    }
+                TaskListener listener = getContext().get(TaskListener.class);
+                if ((controller == null) ? prepare(workspace, listener) : poll(workspace, listener))
+                    schedule();
+                }
+            catch (Exception e)  {
+                done = true;
+                release();
+                getContext().onFailure(e);
+                }
+            }
+        
+        // true while the analysis is waiting to be launched
+        private boolean prepare(FilePath workspace, TaskListener listener) throws IOException, InterruptedException  {
+            PrintStream logger  = listener.getLogger();
+            FilePath outputFile = workspace.child(outputPath);
+            if (builder == null)
+                throw new AbortException("Jenkins was restarted before the Carl analysis started!");
+            if (tool == null)  {
+                sourceFile = workspace.child(sourcePath);
+                if (!sourceFile.exists())
+                    throw new AbortException(String.format("Source folder for Carl analysis not found at %s", sourcePath));
+                Computer computer = workspace.toComputer();
+                CarlToolCache.Resolved resolved = CarlInstallation.resolve(installationName, (computer == null) ? null : computer.getNode(), env, listener);
+                if ((resolved == null) || !resolved.exists())
+                    throw new AbortException("Carl executable not found!");
+                String unsupported = resolved.getBackend().checkSupported(launcher);
+                if (unsupported != null)
+                    throw new AbortException(unsupported);
+                tool = resolved;
+                timing.mark("tool resolution");
+                }
+            if (lock == null)  {
+                lock = CarlPathLock.tryAcquire(logFile, outputFile);
+                if (lock == null)  {
+                    if (!waiting)
+                        logger.printf("Waiting for another Carl analysis using %s...%n", outputFile.getRemote());
+                    waiting = true;
+                    return true;
+                    }
+                waiting = false;
+                if (done)
+                    return false;
+                builder.prepareResultFolders(getContext().get(Run.class), workspace, listener, logFile, outputFile);
+                timing.mark("cleanup");
+                
+                FilePath cacheRoot = builder.isUseCache() ? CarlResultCache.getRoot(workspace) : null;
+                if (cacheRoot != null)  {
+                    cacheRootPath   = cacheRoot.getRemote();
+                    cacheKey        = CarlResultCache.computeKey(sourceFile, applicationName, qualityGate, tool.getExecutable().getRemote(), tool.getVersion());
+                    Integer cachedStatus = CarlBuilder.restoreFromCache(cacheRoot, cacheKey, outputFile, listener, timing);
+                    if (cachedStatus != null)  {
+                        finish(cachedStatus, outputFile, listener);
+                        return false;
+                        }
+                    }
+                if (done)
+                    return false;
+                permit = CarlAnalysisScheduler.get().request(installationName, nodeName, 1, builder.getPriority());
+                }
+            if (!permit.isGranted())  {
+                if (!waiting)
+                    logger.printf("Waiting for a free Carl slot of %s...%n", installationName);
+                waiting = true;
+                return true;
+                }
+            timing.mark("queue");
+            if (done)
+                return false;
+            
+            logger.printf("Starting Carl analysis of sources located into %s...%n", sourceFile.getRemote());
+            EnvVars scriptEnv = new EnvVars(env);
+            List<String> params = CarlBuilder.getLaunchCommand(launcher, scriptEnv, tool, applicationName, qualityGate, sourceFile, outputFile, logFile);
+            if (displayLog)
+                output = CarlBuilder.createOutputFilter(getContext().get(Run.class), workspace, applicationName, listener);
+            if (launcher.isUnix())
+                controller  = new BourneShellScript(getShellScript(params)).launch(scriptEnv, workspace, launcher, listener);
+            else
+                controller  = new WindowsBatchScript(getBatchScript(params)).launch(scriptEnv, workspace, launcher, listener);
+            monitor = builder.createMonitor(launcher, listener, outputFile);
+            return true;
+            }
+        
+        // the Carl output goes through the same filter as in the build step, restarted after a controller restart
+        private OutputStream getOutput(FilePath workspace, TaskListener listener) throws IOException  {
+            if (!displayLog)
+                return new NullOutputStream();
+            if (output == null)
+                output = CarlBuilder.createOutputFilter(getContext().get(Run.class), workspace, applicationName, listener);
+            return output;
+            }
+        
+        // true while the analysis is running
+        private boolean poll(FilePath workspace, TaskListener listener) throws IOException, InterruptedException  {
+            if (controller.writeLog(workspace, getOutput(workspace, listener)) && (monitor != null))
+                monitor.touch();
+            Integer status = controller.exitStatus(workspace, workspace.createLauncher(listener), listener);
+            if (status == null)  {
+                CarlProcessMonitor.LimitExceededException exceeded = (monitor == null) ? null : monitor.poll();
+                if (exceeded != null)  {
+                    done = true;
+                    controller.stop(workspace, workspace.createLauncher(listener));
+                    CarlHealth.get().record(installationName, exceeded.getOutcome());
+                    getContext().get(Run.class).setResult(Result.ABORTED);
+                    throw exceeded;
+                    }
+                return true;
+                }
+            controller.writeLog(workspace, getOutput(workspace, listener));
+            controller.cleanup(workspace);
+            done = true;
+            closeOutput();
+            if ((tool != null) && CarlToolCache.isNotFound(status))
+                CarlToolCache.invalidate(tool);
+            CarlHealth.get().record(installationName, CarlProcessMonitor.Outcome.COMPLETED);
+            if (timing != null)  {
+                timing.mark("analysis");
+                if (monitor.hasSamples())
+                    timing.setProcessUsage(monitor.getPeakWorkingSet(), monitor.getCpuTime());
+                }
+            FilePath outputFile = workspace.child(outputPath);
+            if ( (cacheKey != null) && ((status == 0) || (status == 2)) )  {
+                CarlResultCache.store(workspace.child(cacheRootPath), cacheKey, outputFile, status);
+                if (timing != null)
+                    timing.mark("cache store");
+                }
+            finish(status, outputFile, listener);
+            return false;
+            }
+        
+        private void finish(int status, FilePath outputFile, TaskListener listener) throws IOException, InterruptedException  {
+            done = true;
+            PrintStream logger = listener.getLogger();
+            logger.println("");
+            try {
+                if ( (status == 0) || (status == 2) )  {
+                    logger.println("Carl analysis has finished.");
+                    CarlAnalysisSummary summary = CarlBuilder.reportResults(getContext().get(Run.class), applicationName, outputFile, displayLog, false, listener);
+                    if (timing != null)
+                        timing.mark("result collection");
+                    if (status == 2)
+                        throw new AbortException("Too much errors found by Carl analysis!");
+                    getContext().onSuccess(summary.getResult().issueCount);
+                    }
+                else
+                    throw new AbortException("Carl analysis has failed!");
+                }
+            finally {
+                release();
+                }
+            }
+        
+        private void closeOutput()  {
+            if (output != null)  {
+                try {
+                    output.close();
+                    }
+                catch (IOException e)  {
+                    LOGGER.log(Level.FINE, "Cannot close Carl output", e);
+                    }
+                output = null;
+                }
+            }
+        
+        private synchronized void release()  {
+            closeOutput();
+            if (permit != null)  {
+                permit.close();
+                permit = null;
+                }
+            if (lock != null)  {
+                lock.close();
+                lock = null;
+                }
+            if (timing != null)  {
+                try {
+                    CarlBuilder.recordTiming(getContext().get(Run.class), timing, displayLog, getContext().get(TaskListener.class).getLogger());
+                    }
+                catch (IOException | InterruptedException e)  {
+                    LOGGER.log(Level.FINE, "Cannot record Carl timing", e);
+                    }
+                timing = null;
+                }
+            }
+        }
+    
+    }
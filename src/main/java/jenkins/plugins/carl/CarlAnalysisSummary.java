@@ -0,0 +1,85 @@
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import javax.annotation.CheckForNull;
+
+public final class CarlAnalysisSummary implements Serializable {
+    private  static  final  long serialVersionUID = 6318823153380957104L;
+    
+    private final boolean missing;
+    private final CarlResult result;
+    private final CarlResultDetail detail;
+    private final long storeSize;
+    private final long payloadSize;
+    
+    private CarlAnalysisSummary(boolean missing, CarlResult result, CarlResultDetail detail, long storeSize, long payloadSize)  {
+        this.missing        = missing;
+        this.result         = result;
+        this.detail         = detail;
+        this.storeSize      = storeSize;
+        this.payloadSize    = payloadSize;
+        }
+    
+    public boolean isMissing()                          { return missing; }
+    public @CheckForNull CarlResult getResult()         { return result; }
+    public @CheckForNull CarlResultDetail getDetail()   { return detail; }
+    public long getStoreSize()                          { return storeSize; }
+    public long getPayloadSize()                        { return payloadSize; }
+    
+    static final class Collect implements FilePath.FileCallable<CarlAnalysisSummary>  {
+        private final int maxDetails;
+        
+        Collect(int maxDetails)  { this.maxDetails = maxDetails; }
+        
+        @Override
+        public CarlAnalysisSummary invoke(File f, VirtualChannel channel) throws IOException  {
+            File summaryFile = new File(f, CarlResult.FILENAME);
+            if (!summaryFile.isFile())
+                return new CarlAnalysisSummary(true, null, null, 0, 0);
+            CarlResult result = new CarlResult.Collect().invoke(summaryFile, channel);
+            if (result == null)
+                return new CarlAnalysisSummary(false, null, null, 0, 0);
+            
+            // all the details go to the store as they are parsed, only the top ones are kept in memory
+            File storeFile = new File(f, CarlResultStore.FILENAME);
+            CarlResultDetail detail;
+            try (CarlResultStore.Writer store = new CarlResultStore.Writer(storeFile))  {
+                detail = CarlResultDetail.parse(new File(f, CarlResultDetail.FILENAME), maxDetails, store);
+                if (detail != null)
+                    store.finish(result);
+                }
+            if (detail == null)
+                CarlResultStore.write(storeFile, result, null);
+            CarlAnalysisSummary summary = new CarlAnalysisSummary(false, result, detail, storeFile.length(), 0);
+            return new CarlAnalysisSummary(false, result, detail, storeFile.length(), getSerializedSize(summary));
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    static private long getSerializedSize(Serializable object) throws IOException  {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(counter))  {
+            out.writeObject(object);
+            }
+        return counter.count;
+        }
+    
+    static private class CountingOutputStream extends OutputStream  {
+        long count;
+        
+        @Override
+        public void write(int b)  { count++; }
+        
+        @Override
+        public void write(byte[] b, int off, int len)  { count += len; }
+        }
+    
+    }
@@ -0,0 +1,192 @@
+package jenkins.plugins.carl;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.tools.ToolInstallation;
+import hudson.tools.ToolInstaller;
+import hudson.tools.ToolInstallerDescriptor;
+import hudson.util.FormValidation;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+public class CarlArchiveInstaller extends ToolInstaller {
+    
+    static final String TOOLS_DIRECTORY     = "carl-tools";
+    static final String INSTALLED_MARKER    = ".installed";
+    static final String USER_CONTENT        = "userContent";
+    
+    // serializes the installations driven by this controller, the file lock covers the other JVMs sharing the node
+    private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+    
+    private final String archive;
+    private final String sha256;
+    private String subdir = "";
+    
+    @DataBoundConstructor
+    public CarlArchiveInstaller(String label, String archive, String sha256)  {
+        super(label);
+        this.archive    = archive.trim();
+        this.sha256     = sha256.trim().toLowerCase(Locale.ENGLISH);
+        }
+    
+    @DataBoundSetter
+    public void setSubdir(String subdir)  {
+        this.subdir = Util.fixNull(subdir).trim();
+        }
+    
+    public String getArchive()  { return archive; }
+    public String getSha256()   { return sha256; }
+    public String getSubdir()   { return subdir; }
+    
+    @Override
+    public FilePath performInstallation(ToolInstallation tool, Node node, TaskListener log) throws IOException, InterruptedException  {
+        FilePath rootPath = node.getRootPath();
+        if (rootPath == null)
+            throw new AbortException(String.format("Cannot install Carl on offline node %s", node.getDisplayName()));
+        FilePath root = rootPath.child(TOOLS_DIRECTORY);
+        FilePath home = root.child(sha256);
+        Object lock = LOCKS.computeIfAbsent(node.getNodeName() + "@" + sha256, k -> new Object());
+        synchronized (lock)  {
+            if (!home.child(INSTALLED_MARKER).exists())  {
+                log.getLogger().printf("Installing Carl from %s to %s...%n", archive, home.getRemote());
+                root.mkdirs();
+                FilePath download = root.child(sha256 + ".tmp-" + UUID.randomUUID() + ".zip");
+                try {
+                    copyArchive(download);
+                    root.act(new Install(sha256, download.getName()));
+                    }
+                finally {
+                    download.delete();
+                    }
+                }
+            }
+        return subdir.isEmpty() ? home : home.child(subdir);
+        }
+    
+    protected void copyArchive(FilePath target) throws IOException, InterruptedException  {
+        if (archive.startsWith("http://") || archive.startsWith("https://"))  {
+            try (InputStream in = new URL(archive).openStream())  {
+                target.copyFrom(in);
+                }
+            return;
+            }
+        File userContent = new File(Jenkins.get().getRootDir(), USER_CONTENT).getCanonicalFile();
+        File source = new File(userContent, archive).getCanonicalFile();
+        if (!source.toPath().startsWith(userContent.toPath()) || !source.isFile())
+            throw new AbortException(String.format("Carl archive %s not found in %s", archive, USER_CONTENT));
+        target.copyFrom(new FilePath(source));
+        }
+    
+    static final class Install implements FilePath.FileCallable<Void>  {
+        private static final long serialVersionUID = 1L;
+        private final String sha256;
+        private final String archiveName;
+        
+        Install(String sha256, String archiveName)  {
+            this.sha256         = sha256;
+            this.archiveName    = archiveName;
+            }
+        
+        @Override
+        public Void invoke(File f, VirtualChannel channel) throws IOException  {
+            Path root = f.toPath();
+            Path home = root.resolve(sha256);
+            try (RandomAccessFile lockFile = new RandomAccessFile(root.resolve(sha256 + ".lock").toFile(), "rw");
+                 FileLock lock = lockFile.getChannel().lock())  {
+                if (Files.exists(home.resolve(INSTALLED_MARKER)))
+                    return null;
+                Path archive = root.resolve(archiveName);
+                String actual = digest(archive);
+                if (!actual.equals(sha256))
+                    throw new AbortException(String.format("Carl archive checksum mismatch: expected %s but got %s", sha256, actual));
+                Path temp = root.resolve(sha256 + ".tmp-" + UUID.randomUUID());
+                unzip(archive, temp);
+                Files.createFile(temp.resolve(INSTALLED_MARKER));
+                if (Files.exists(home))
+                    new FilePath(home.toFile()).deleteRecursive();
+                Files.move(temp, home, StandardCopyOption.ATOMIC_MOVE);
+                }
+            catch (InterruptedException e)  {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+                }
+            return null;
+            }
+        
+        static String digest(Path file) throws IOException  {
+            MessageDigest digest = CarlResultCache.newDigest();
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(file))  {
+                int n;
+                while ((n = in.read(buffer)) > 0)
+                    digest.update(buffer, 0, n);
+                }
+            return Util.toHexString(digest.digest());
+            }
+        
+        static void unzip(Path archive, Path target) throws IOException  {
+            Files.createDirectories(target);
+            try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archive)))  {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null)  {
+                    Path path = target.resolve(entry.getName()).normalize();
+                    if (!path.startsWith(target))
+                        throw new IOException("Invalid entry in Carl archive: " + entry.getName());
+                    if (entry.isDirectory())
+                        Files.createDirectories(path);
+                    else  {
+                        Files.createDirectories(path.getParent());
+                        try (OutputStream out = Files.newOutputStream(path))  {
+                            Util.copyStream(zip, out);
+                            }
+                        }
+                    }
+                }
+            }
+        
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    @Extension
+    public static class DescriptorImpl extends ToolInstallerDescriptor<CarlArchiveInstaller>  {
+        @Override
+        public String getDisplayName()  {
+            return Messages.Carl_ArchiveInstaller_DisplayName();
+            }
+        
+        @Override
+        public boolean isApplicable(Class<? extends ToolInstallation> toolType)  {
+            return CarlInstallation.class.isAssignableFrom(toolType);
+            }
+        
+        public FormValidation doCheckSha256(@QueryParameter String value)  {
+            return value.trim().matches("[0-9a-fA-F]{64}") ? FormValidation.ok() : FormValidation.error("A SHA-256 checksum is 64 hexadecimal characters.");
+            }
+        }
+    
+    }
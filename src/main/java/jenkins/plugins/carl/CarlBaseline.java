@@ -0,0 +1,126 @@
+package jenkins.plugins.carl;
+
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.queue.Tasks;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import jenkins.model.Jenkins;
+import org.acegisecurity.Authentication;
+
+public class CarlBaseline {
+    
+    static final String LAST_SUCCESSFUL = "lastSuccessful";
+    static final String LAST_STABLE     = "lastStable";
+    static final int MAX_SKIPPED_BUILDS = 100;
+    static final Comparator<Delta> BY_INCREASE = Comparator.comparingLong(Delta::getIncrease).reversed();
+    
+    static public class Delta  {
+        final String violationType;
+        final String name;
+        final long baselineCount;
+        final long count;
+        
+        Delta(String violationType, String name, long baselineCount, long count)  {
+            this.violationType  = violationType;
+            this.name           = name;
+            this.baselineCount  = baselineCount;
+            this.count          = count;
+            }
+        
+        public String getViolationType()    { return violationType; }
+        public String getName()             { return name; }
+        public long getBaselineCount()      { return baselineCount; }
+        public long getCount()              { return count; }
+        public long getIncrease()           { return count - baselineCount; }
+        }
+    
+    static public @CheckForNull Run<?, ?> find(Run<?, ?> run, String baseline)  {
+        return find(run, baseline, null);
+        }
+    
+    // baseline is "lastSuccessful", "lastStable" or a build number, optionally prefixed by "<job full name>#",
+    // with an application name "lastSuccessful" and "lastStable" skip the builds without a full result of this application,
+    // another job is not found unless the build may read it
+    static public @CheckForNull Run<?, ?> find(Run<?, ?> run, String baseline, @CheckForNull String applicationName)  {
+        Job<?, ?> job = run.getParent();
+        String selector = baseline.trim();
+        int separator = selector.lastIndexOf('#');
+        if (separator >= 0)  {
+            String jobName = selector.substring(0, separator).trim();
+            try (ACLContext context = ACL.as(ACL.SYSTEM))  {
+                job = Jenkins.get().getItemByFullName(jobName, Job.class);
+                }
+            selector = selector.substring(separator + 1).trim();
+            if ((job == null) || ((job != run.getParent()) && !job.getACL().hasPermission(getAuthentication(run), Item.READ)))
+                return null;
+            }
+        Run<?, ?> found;
+        if (selector.equals(LAST_SUCCESSFUL))
+            found = skipWithoutFullResult(job.getLastSuccessfulBuild(), applicationName, Result.SUCCESS, Result.UNSTABLE);
+        else if (selector.equals(LAST_STABLE))
+            found = skipWithoutFullResult(job.getLastStableBuild(), applicationName, Result.SUCCESS);
+        else if (selector.matches("\\d+"))
+            found = job.getBuildByNumber(Integer.parseInt(selector));
+        else
+            return null;
+        return (found == run) ? null : found;
+        }
+    
+    // builds run as SYSTEM unless an authorization strategy for builds is configured: then only what anybody may read
+    static private Authentication getAuthentication(Run<?, ?> run)  {
+        Job<?, ?> job = run.getParent();
+        Authentication authentication = (job instanceof Queue.Task) ? Tasks.getAuthenticationOf((Queue.Task) job) : ACL.SYSTEM;
+        return ACL.SYSTEM.equals(authentication) ? Jenkins.ANONYMOUS : authentication;
+        }
+    
+    // bounded, so that a job never analyzed does not load its whole history
+    static private @CheckForNull Run<?, ?> skipWithoutFullResult(@CheckForNull Run<?, ?> found, @CheckForNull String applicationName, Result... results)  {
+        for (int skipped = 0; (found != null) && (applicationName != null); skipped++)  {
+            CarlBuildAction action = CarlBuildAction.find(found, applicationName);
+            if ((action != null) && !action.isPartial())
+                break;
+            if (skipped == MAX_SKIPPED_BUILDS)
+                return null;
+            do {
+                found = found.getPreviousCompletedBuild();
+                }
+            while ((found != null) && !Arrays.asList(results).contains(found.getResult()));
+            }
+        return found;
+        }
+    
+    // linear in the number of details of both results: new and increased violations, the largest increases first
+    static public List<Delta> compare(CarlResultDetail baseline, CarlResultDetail current)  {
+        Map<String, Long> baselineCounts = new HashMap<>();
+        for (CarlResultDetail.ViolationType violationType : baseline.violationTypes)  {
+            for (CarlResultDetail.Detail detail : violationType.details)
+                baselineCounts.merge(key(violationType.name, detail.name), detail.count, Long::sum);
+            }
+        List<Delta> deltas = new ArrayList<>();
+        for (CarlResultDetail.ViolationType violationType : current.violationTypes)  {
+            for (CarlResultDetail.Detail detail : violationType.details)  {
+                long baselineCount = baselineCounts.getOrDefault(key(violationType.name, detail.name), 0L);
+                if (detail.count > baselineCount)
+                    deltas.add(new Delta(violationType.name, detail.name, baselineCount, detail.count));
+                }
+            }
+        deltas.sort(BY_INCREASE);
+        return deltas;
+        }
+    
+    static private String key(String violationType, String name)  {
+        return violationType + '\u0000' + name;
+        }
+    
+    }
@@ -0,0 +1,313 @@
+package jenkins.plugins.carl;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.BuildStepMonitor;
+import hudson.tasks.Builder;
+import hudson.util.ListBoxModel;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+import jenkins.tasks.SimpleBuildStep;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+public class CarlBatchBuilder extends Builder implements SimpleBuildStep {
+    
+    static final int STATUS_ERROR = Integer.MIN_VALUE + 1;
+    
+    private final String installationName;
+    private String applications = DescriptorImpl.defaultApplications;
+    private String sourceGlob = DescriptorImpl.defaultSourceGlob;
+    private String qualityGate = CarlBuilder.DescriptorImpl.defaultQualityGate;
+    private String resultPath = DescriptorImpl.defaultResultPath;
+    private int workerCount = DescriptorImpl.defaultWorkerCount;
+    private boolean useCache = CarlBuilder.DescriptorImpl.defaultUseCache;
+    
+    @DataBoundConstructor
+    public CarlBatchBuilder(@Nonnull String installationName)  {
+        this.installationName = installationName;
+        }
+    
+    @DataBoundSetter
+    public void setApplications(String applications)  {
+        this.applications = Util.fixNull(applications).trim();
+        }
+
+    @DataBoundSetter
+    public void setSourceGlob(String sourceGlob)  {
+        this.sourceGlob = Util.fixNull(sourceGlob).trim();
+        }
+
+    @DataBoundSetter
+    public void setQualityGate(@Nonnull String qualityGate)  {
+        this.qualityGate = qualityGate.trim();
+        }
+
+    @DataBoundSetter
+    public void setResultPath(@Nonnull String resultPath)  {
+        this.resultPath = resultPath.trim();
+        }
+
+    @DataBoundSetter
+    public void setWorkerCount(int workerCount)  {
+        this.workerCount = Math.max(1, workerCount);
+        }
+
+    @DataBoundSetter
+    public void setUseCache(boolean useCache)  {
+        this.useCache = useCache;
+        }
+    
+    public String getInstallationName() { return installationName; }
+    public String getApplications()     { return applications; }
+    public String getSourceGlob()       { return sourceGlob; }
+    public String getQualityGate()      { return qualityGate; }
+    public String getResultPath()       { return resultPath; }
+    public int getWorkerCount()         { return workerCount; }
+    public boolean isUseCache()         { return useCache; }
+    
+    @Override
+    public BuildStepMonitor getRequiredMonitorService() {
+        return BuildStepMonitor.NONE;
+        }
+    
+    @Override
+    public void perform(Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener) throws InterruptedException, IOException {
+        PrintStream logger = listener.getLogger();
+        EnvVars env;
+        if (run instanceof AbstractBuild)  {
+            env = run.getEnvironment(listener);
+            env.overrideAll(((AbstractBuild<?,?>) run).getBuildVariables());
+            }
+        else
+            env = new EnvVars();
+        Computer computer       = workspace.toComputer();
+        Node node               = (computer == null) ? null : computer.getNode();
+        String installationName = env.expand(this.installationName);
+        
+        if (CarlInstallation.fromName(installationName) == null)
+            throw new AbortException(String.format("Carl plugin configuration \"%s\" no found!", installationName));
+        CarlToolCache.Resolved tool = CarlInstallation.resolve(installationName, node, env, listener);
+        if ((tool == null) || !tool.exists())
+            throw new AbortException("Carl executable not found!");
+        String unsupported = tool.getBackend().checkSupported(launcher);
+        if (unsupported != null)
+            throw new AbortException(unsupported);
+        Map<String, String> modules = getModules(workspace, env);
+        if (modules.isEmpty())
+            throw new AbortException("No application to analyze with Carl!");
+        
+        int poolSize = Math.min(workerCount, modules.size());
+        logger.printf("Starting Carl analysis of %d application(s) with %d worker(s)...%n%n", modules.size(), poolSize);
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "Carl batch worker for " + run.getFullDisplayName());
+            thread.setDaemon(true);
+            return thread;
+            });
+        Map<String, Future<Integer>> futures = new LinkedHashMap<>();
+        Map<String, Integer> statuses = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, String> module : modules.entrySet())  {
+                CarlBuilder builder = createModuleBuilder(module.getKey(), module.getValue());
+                futures.put(module.getKey(), pool.submit(() -> analyzeModule(builder, run, workspace, launcher, listener, env, tool)));
+                }
+            for (Map.Entry<String, Future<Integer>> future : futures.entrySet())  {
+                try {
+                    statuses.put(future.getKey(), future.getValue().get());
+                    }
+                catch (ExecutionException e)  {
+                    logger.printf("Carl analysis of %s has failed: %s%n", future.getKey(), e.getCause());
+                    statuses.put(future.getKey(), STATUS_ERROR);
+                    }
+                }
+            }
+        finally {
+            pool.shutdownNow();
+            }
+        
+        reportSummary(run, statuses, logger);
+        List<String> failed = new ArrayList<>();
+        List<String> gated  = new ArrayList<>();
+        for (Map.Entry<String, Integer> status : statuses.entrySet())  {
+            if (status.getValue() == 2)
+                gated.add(status.getKey());
+            else  if ((status.getValue() != 0) && (status.getValue() != CarlBuilder.STATUS_SKIPPED))
+                failed.add(status.getKey());
+            }
+        if (!failed.isEmpty())
+            throw new AbortException("Carl analysis has failed for " + String.join(", ", failed) + "!");
+        if (!gated.isEmpty())
+            throw new AbortException("Too much errors found by Carl analysis of " + String.join(", ", gated) + "!");
+        }
+    
+    protected int analyzeModule(CarlBuilder builder, Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener, EnvVars env, CarlToolCache.Resolved tool) throws IOException, InterruptedException  {
+        CarlTimingAction timing = new CarlTimingAction(builder.getApplicationName());
+        FilePath logFile    = workspace.child(builder.getLogPath());
+        FilePath outputFile = workspace.child(builder.getOutputPath());
+        try (CarlPathLock lock = CarlPathLock.acquire(listener, logFile, outputFile))  {
+            builder.removePreviousResults(workspace, logFile);
+            builder.removePreviousResults(workspace, outputFile);
+            timing.mark("cleanup");
+            return builder.analyze(run, workspace, launcher, listener, env, tool, timing);
+            }
+        finally {
+            run.addAction(timing);
+            }
+        }
+    
+    protected CarlBuilder createModuleBuilder(String applicationName, String sourcePath)  {
+        String moduleResultPath = resultPath + "/" + getResultFolder(applicationName);
+        CarlBuilder builder = new CarlBuilder(installationName, sourcePath, applicationName);
+        builder.setQualityGate(qualityGate);
+        builder.setLogPath(moduleResultPath + "/log");
+        builder.setOutputPath(moduleResultPath + "/output");
+        builder.setDisplayLog(false);
+        builder.setUseCache(useCache);
+        return builder;
+        }
+    
+    // application name -> source path, from the "name=path" lines then the folders matching the glob, named after the folder
+    protected Map<String, String> getModules(FilePath workspace, EnvVars env) throws IOException, InterruptedException  {
+        Map<String, String> modules = new LinkedHashMap<>();
+        Map<String, String> resultFolders = new HashMap<>();
+        for (String line : env.expand(applications).split("\\r?\\n"))  {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            int separator = line.indexOf('=');
+            String sourcePath = (separator < 0) ? line : line.substring(separator + 1).trim();
+            addModule(modules, resultFolders, (separator < 0) ? getFolderName(sourcePath) : line.substring(0, separator).trim(), sourcePath);
+            }
+        String glob = env.expand(sourceGlob);
+        if (!glob.isEmpty())  {
+            Set<String> listed = new HashSet<>();
+            for (String sourcePath : modules.values())
+                listed.add(normalizePath(sourcePath));
+            for (String sourcePath : workspace.act(new ListFolders(glob)))  {
+                if (!listed.contains(normalizePath(sourcePath)))
+                    addModule(modules, resultFolders, getFolderName(sourcePath), sourcePath);
+                }
+            }
+        return modules;
+        }
+    
+    // two modules with the same name, or the same result folder, would overwrite each other results
+    static private void addModule(Map<String, String> modules, Map<String, String> resultFolders, String applicationName, String sourcePath) throws AbortException  {
+        String previous = modules.get(applicationName);
+        if (previous != null)
+            throw new AbortException(String.format("Carl application name \"%s\" is used by both %s and %s!", applicationName, previous, sourcePath));
+        String resultFolder = getResultFolder(applicationName);
+        String other = resultFolders.get(resultFolder);
+        if (other != null)
+            throw new AbortException(String.format("Carl applications \"%s\" and \"%s\" would share the result folder %s!", other, applicationName, resultFolder));
+        modules.put(applicationName, sourcePath);
+        resultFolders.put(resultFolder, applicationName);
+        }
+    
+    static private String getResultFolder(String applicationName)  {
+        return applicationName.replaceAll("[^A-Za-z0-9._-]", "_");
+        }
+    
+    static private String normalizePath(String path)  {
+        return path.replace('\\', '/').replaceAll("/+$", "");
+        }
+    
+    static private String getFolderName(String path)  {
+        String[] segments = path.split("[/\\\\]+");
+        return segments[segments.length - 1];
+        }
+    
+    static protected void reportSummary(Run<?, ?> run, Map<String, Integer> statuses, PrintStream logger)  {
+        long totalIssues = 0;
+        logger.printf("%nCarl batch summary:%n-------------------%n");
+        for (Map.Entry<String, Integer> status : statuses.entrySet())  {
+            CarlBuildAction action = CarlBuildAction.find(run, status.getKey());
+            String outcome;
+            switch (status.getValue())  {
+                case 0:                             outcome = "passed";     break;
+                case 2:                             outcome = "gate failed"; break;
+                case CarlBuilder.STATUS_SKIPPED:    outcome = "skipped";    break;
+                default:                            outcome = "failed";     break;
+                }
+            if (action == null)
+                logger.printf("%-30s: %s%n", status.getKey(), outcome);
+            else  {
+                logger.printf("%-30s: %s, %d issue(s) in %d file(s)%n", status.getKey(), outcome, action.getIssueCount(), action.getFileCount());
+                totalIssues += action.getIssueCount();
+                }
+            }
+        logger.printf("%-30s: %d issue(s)%n%n", "total", totalIssues);
+        }
+    
+    static final class ListFolders implements FilePath.FileCallable<List<String>>  {
+        private static final long serialVersionUID = 1L;
+        private final String glob;
+        
+        ListFolders(String glob)  {
+            this.glob = glob;
+            }
+        
+        @Override
+        public List<String> invoke(File f, VirtualChannel channel)  {
+            String[] folders = Util.createFileSet(f, glob).getDirectoryScanner().getIncludedDirectories();
+            Arrays.sort(folders);
+            return new ArrayList<>(Arrays.asList(folders));
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    @Extension @Symbol("carlBatch")
+    public static class DescriptorImpl extends BuildStepDescriptor<Builder> {
+        public static final String defaultApplications  = "";
+        public static final String defaultSourceGlob    = "";
+        public static final String defaultResultPath    = "CarlResult";
+        public static final int defaultWorkerCount      = 2;
+        
+        @Override
+        public String getDisplayName() {
+            return Messages.Carl_BatchBuilder_DisplayName();
+            }
+        
+        @Override
+        public boolean isApplicable(Class<? extends AbstractProject> jobType) {
+            return true;
+            }
+        
+        public ListBoxModel doFillInstallationNameItems()  {
+            ListBoxModel items = new ListBoxModel();
+            for (CarlInstallation installation : CarlInstallation.list())
+                items.add(installation.getName());
+            return items;
+            }
+        }
+    
+    }
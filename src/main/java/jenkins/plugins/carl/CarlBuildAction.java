@@ -0,0 +1,228 @@
+package jenkins.plugins.carl;
+
+import hudson.Util;
+import hudson.model.Run;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import javax.servlet.http.HttpServletResponse;
+import jenkins.model.RunAction2;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+public class CarlBuildAction implements RunAction2 {
+    private static final Logger LOGGER = Logger.getLogger(CarlBuildAction.class.getName());
+    
+    private final String applicationName;
+    private final long checkedRuleCount;
+    private final long fileCount;
+    private final long issueCount;
+    private final String storeFileName;
+    private final boolean partial;      // result of the changed files only, left out of the trends and baselines
+    private transient Run<?, ?> run;
+    private transient Reference<CarlResultDetail> detailReference;
+    private transient Reference<CarlViolationIndex> indexReference;
+    
+    static final int DEFAULT_PAGE_SIZE  = 50;
+    static final int MAX_PAGE_SIZE      = 1000;
+    
+    public CarlBuildAction(String applicationName, CarlResult result)  {
+        this(applicationName, result, false);
+        }
+    
+    public CarlBuildAction(String applicationName, CarlResult result, boolean partial)  {
+        this.applicationName    = applicationName;
+        this.checkedRuleCount   = result.checkedRuleCount;
+        this.fileCount          = result.fileCount;
+        this.issueCount         = result.issueCount;
+        this.storeFileName      = "carl-" + getSafeName(applicationName) + ".bin";
+        this.partial            = partial;
+        }
+    
+    @Override
+    public void onAttached(Run<?, ?> run)  {
+        this.run = run;
+        }
+
+    @Override
+    public void onLoad(Run<?, ?> run)  {
+        this.run = run;
+        }
+    
+    @Override
+    public String getIconFileName()  {
+        return "clipboard.png";
+        }
+
+    @Override
+    public String getDisplayName()  {
+        return "Carl analysis of " + applicationName + (partial ? " (changed files)" : "");
+        }
+
+    @Override
+    public String getUrlName()  {
+        return "carl-" + getSafeName(applicationName);
+        }
+    
+    public Run<?, ?> getRun()           { return run; }
+    public String getApplicationName()  { return applicationName; }
+    public long getCheckedRuleCount()   { return checkedRuleCount; }
+    public long getFileCount()          { return fileCount; }
+    public long getIssueCount()         { return issueCount; }
+    public boolean isPartial()          { return partial; }
+    
+    static public @CheckForNull CarlBuildAction find(Run<?, ?> run, String applicationName)  {
+        for (CarlBuildAction action : run.getActions(CarlBuildAction.class))  {
+            if (action.getApplicationName().equals(applicationName))
+                return action;
+            }
+        return null;
+        }
+    
+    public File getStoreFile()  {
+        return new File(run.getRootDir(), storeFileName);
+        }
+    
+    public synchronized @CheckForNull CarlResultDetail getDetail()  {
+        CarlResultDetail detail = (detailReference == null) ? null : detailReference.get();
+        if ((detail == null) && (run != null))  {
+            try {
+                detail = CarlResultStore.readDetail(getStoreFile());
+                detailReference = new SoftReference<>(detail);
+                }
+            catch (IOException e)  {
+                LOGGER.log(Level.WARNING, "Cannot load Carl result of " + run, e);
+                }
+            }
+        return detail;
+        }
+    
+    public synchronized @CheckForNull CarlViolationIndex getIndex()  {
+        CarlViolationIndex index = (indexReference == null) ? null : indexReference.get();
+        if ((index == null) && (run != null))  {
+            try {
+                index = CarlViolationIndex.read(getStoreFile());
+                indexReference = new SoftReference<>(index);
+                }
+            catch (IOException e)  {
+                LOGGER.log(Level.WARNING, "Cannot load Carl result of " + run, e);
+                }
+            }
+        return index;
+        }
+    
+    public void doTags(StaplerRequest req, StaplerResponse rsp) throws IOException  {
+        CarlViolationIndex index = getIndex();
+        if (index == null)  {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+            }
+        JSONArray jsonTags = new JSONArray();
+        for (int tag=0; tag<index.getTagCount(); tag++)  {
+            JSONObject jsonTag = new JSONObject();
+            jsonTag.put("tag", index.getTagName(tag));
+            jsonTag.put("count", index.getTagCount(tag));
+            jsonTag.put("ruleCount", index.getTagRuleCount(tag));
+            jsonTags.add(jsonTag);
+            }
+        writeJson(rsp, jsonTags.toJSONString());
+        }
+    
+    // rules by decreasing count, over all tags or in the tag given as parameter
+    public void doRules(StaplerRequest req, StaplerResponse rsp) throws IOException  {
+        CarlViolationIndex index = getIndex();
+        if (index == null)  {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+            }
+        int offset  = getIntParameter(req, "offset", 0);
+        int limit   = Math.min(getIntParameter(req, "limit", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+        String tagName = req.getParameter("tag");
+        JSONArray jsonRules = new JSONArray();
+        int total;
+        if (tagName == null)  {
+            int[] rules = index.getSortedRules();
+            total = rules.length;
+            for (int i=offset; i<Math.min(total, (long) offset + limit); i++)  {
+                JSONObject jsonRule = new JSONObject();
+                jsonRule.put("rule", index.getRuleName(rules[i]));
+                jsonRule.put("count", index.getRuleTotal(rules[i]));
+                jsonRule.put("tagCount", index.getRuleTagCount(rules[i]));
+                jsonRules.add(jsonRule);
+                }
+            }
+        else  {
+            int tag = index.findTag(tagName);
+            if (tag < 0)  {
+                rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+                }
+            total = index.getTagRuleCount(tag);
+            for (int entry : index.getTagEntries(tag, offset, limit))  {
+                JSONObject jsonRule = new JSONObject();
+                jsonRule.put("rule", index.getEntryRule(entry));
+                jsonRule.put("count", index.getEntryCount(entry));
+                jsonRules.add(jsonRule);
+                }
+            }
+        writeJson(rsp, page(total, offset, limit, jsonRules));
+        }
+    
+    // (tag, rule) pairs of all tags by decreasing count
+    public void doViolations(StaplerRequest req, StaplerResponse rsp) throws IOException  {
+        CarlViolationIndex index = getIndex();
+        if (index == null)  {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+            }
+        int offset  = getIntParameter(req, "offset", 0);
+        int limit   = Math.min(getIntParameter(req, "limit", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+        int[] entries = index.getSortedEntries();
+        JSONArray jsonViolations = new JSONArray();
+        for (int i=offset; i<Math.min(entries.length, (long) offset + limit); i++)  {
+            JSONObject jsonViolation = new JSONObject();
+            jsonViolation.put("tag", index.getEntryTag(entries[i]));
+            jsonViolation.put("rule", index.getEntryRule(entries[i]));
+            jsonViolation.put("count", index.getEntryCount(entries[i]));
+            jsonViolations.add(jsonViolation);
+            }
+        writeJson(rsp, page(entries.length, offset, limit, jsonViolations));
+        }
+    
+    static private String page(int total, int offset, int limit, JSONArray items)  {
+        JSONObject jsonPage = new JSONObject();
+        jsonPage.put("total", total);
+        jsonPage.put("offset", offset);
+        jsonPage.put("limit", limit);
+        jsonPage.put("items", items);
+        return jsonPage.toJSONString();
+        }
+    
+    static private void writeJson(StaplerResponse rsp, String json) throws IOException  {
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().write(json);
+        }
+    
+    static private int getIntParameter(StaplerRequest req, String name, int defaultValue)  {
+        try {
+            String value = req.getParameter(name);
+            return (value == null) ? defaultValue : Math.max(0, Integer.parseInt(value));
+            }
+        catch (NumberFormatException e)  {
+            return defaultValue;
+            }
+        }
+    
+    // for file and URL names: a name changed by the replacement gets a short hash, so that "My App" and "My_App" stay apart
+    static String getSafeName(String applicationName)  {
+        String safeName = applicationName.replaceAll("[^A-Za-z0-9._-]", "_");
+        return safeName.equals(applicationName) ? safeName : (safeName + "-" + Util.getDigestOf(applicationName).substring(0, 8));
+        }
+    
+    }
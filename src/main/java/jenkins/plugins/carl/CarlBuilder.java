@@ -4,34 +4,44 @@ import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
+import hudson.Functions;
 import hudson.Launcher;
+import hudson.Util;
 import hudson.Launcher.ProcStarter;
 import hudson.model.AbstractBuild;
 import hudson.model.Job;
 import hudson.model.AbstractProject;
 import hudson.model.Computer;
 import hudson.model.Node;
+import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.plugins.git.GitSCM;
 import hudson.plugins.git.Revision;
 import hudson.plugins.git.util.BuildData;
 import hudson.scm.SCM;
+import hudson.slaves.WorkspaceList;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.BuildStepMonitor;
 import hudson.tasks.Builder;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import jenkins.model.Jenkins;
 import jenkins.tasks.SimpleBuildStep;
 import jenkins.util.BuildListenerAdapter;
+import org.apache.commons.io.output.NullOutputStream;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -40,6 +50,8 @@ import org.kohsuke.stapler.DataBoundSetter;
 public class CarlBuilder extends Builder implements SimpleBuildStep {
     
     final static int MAX_DISPLAYED_DETAILS = 10;
+    final static int STATUS_SKIPPED = Integer.MIN_VALUE;
+    final static String[] TEMP_DIRS = { "carl-snapshot", "carl-staging", "carl-filtered", "carl-shards" };
     final static String PDF_FILENAME = "ApplicationSummary.json";
     
     static protected class GitMetaData {
@@ -69,6 +81,21 @@ public class CarlBuilder extends Builder implements SimpleBuildStep {
     private String outputPath = DescriptorImpl.defaultOutputPath;
     private boolean displayLog = DescriptorImpl.defaultDisplayLog;
     private boolean archivePdf = DescriptorImpl.defaultArchivePdf;
+    private boolean incremental = DescriptorImpl.defaultIncremental;
+    private boolean useCache = DescriptorImpl.defaultUseCache;
+    private int shardCount = DescriptorImpl.defaultShardCount;
+    private int priority = DescriptorImpl.defaultPriority;
+    private boolean fastCleanup = DescriptorImpl.defaultFastCleanup;
+    private String baseline = DescriptorImpl.defaultBaseline;
+    private int timeoutMinutes = DescriptorImpl.defaultTimeoutMinutes;
+    private int idleTimeoutMinutes = DescriptorImpl.defaultIdleTimeoutMinutes;
+    private int maxMemoryMb = DescriptorImpl.defaultMaxMemoryMb;
+    private int maxCpuMinutes = DescriptorImpl.defaultMaxCpuMinutes;
+    private boolean snapshot = DescriptorImpl.defaultSnapshot;
+    private boolean archiveOutput = DescriptorImpl.defaultArchiveOutput;
+    private boolean isolateOutput = DescriptorImpl.defaultIsolateOutput;
+    private String includes = DescriptorImpl.defaultIncludes;
+    private String excludes = DescriptorImpl.defaultExcludes;
 
     @DataBoundConstructor
     public CarlBuilder(@Nonnull String installationName, @Nonnull String sourcePath, @Nonnull String applicationName)  {
@@ -101,6 +128,81 @@ public class CarlBuilder extends Builder implements SimpleBuildStep {
     public void setArchivePdf(boolean archivePdf)  {
         this.archivePdf = archivePdf;
         }
+
+    @DataBoundSetter
+    public void setIncremental(boolean incremental)  {
+        this.incremental = incremental;
+        }
+
+    @DataBoundSetter
+    public void setUseCache(boolean useCache)  {
+        this.useCache = useCache;
+        }
+
+    @DataBoundSetter
+    public void setShardCount(int shardCount)  {
+        this.shardCount = Math.max(1, shardCount);
+        }
+
+    @DataBoundSetter
+    public void setPriority(int priority)  {
+        this.priority = priority;
+        }
+
+    @DataBoundSetter
+    public void setFastCleanup(boolean fastCleanup)  {
+        this.fastCleanup = fastCleanup;
+        }
+
+    @DataBoundSetter
+    public void setBaseline(String baseline)  {
+        this.baseline = Util.fixNull(baseline).trim();
+        }
+
+    @DataBoundSetter
+    public void setTimeoutMinutes(int timeoutMinutes)  {
+        this.timeoutMinutes = Math.max(0, timeoutMinutes);
+        }
+
+    @DataBoundSetter
+    public void setIdleTimeoutMinutes(int idleTimeoutMinutes)  {
+        this.idleTimeoutMinutes = Math.max(0, idleTimeoutMinutes);
+        }
+
+    @DataBoundSetter
+    public void setMaxMemoryMb(int maxMemoryMb)  {
+        this.maxMemoryMb = Math.max(0, maxMemoryMb);
+        }
+
+    @DataBoundSetter
+    public void setMaxCpuMinutes(int maxCpuMinutes)  {
+        this.maxCpuMinutes = Math.max(0, maxCpuMinutes);
+        }
+
+    @DataBoundSetter
+    public void setSnapshot(boolean snapshot)  {
+        this.snapshot = snapshot;
+        }
+
+    @DataBoundSetter
+    public void setArchiveOutput(boolean archiveOutput)  {
+        this.archiveOutput = archiveOutput;
+        }
+
+    @DataBoundSetter
+    public void setIsolateOutput(boolean isolateOutput)  {
+        this.isolateOutput = isolateOutput;
+        }
+
+    @DataBoundSetter
+    public void setIncludes(String includes)  {
+        this.includes = Util.fixNull(includes).trim();
+        }
+
+    @DataBoundSetter
+    public void setExcludes(String excludes)  {
+        this.excludes = Util.fixNull(excludes).trim();
+        }
     
     @Override
     public BuildStepMonitor getRequiredMonitorService() {
@@ -110,6 +212,7 @@ public class CarlBuilder extends Builder implements SimpleBuildStep {
     @Override
     public void perform(Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener) throws InterruptedException, IOException {
         PrintStream logger = listener.getLogger();
+        CarlTimingAction timing = new CarlTimingAction(applicationName);
         EnvVars env;
         if (run instanceof AbstractBuild)  {
             env = run.getEnvironment(listener);
@@ -121,29 +224,66 @@ public class CarlBuilder extends Builder implements SimpleBuildStep {
         Node node               = (computer == null) ? null : computer.getNode();
         String installationName = env.expand(this.installationName);
         String sourcePath       = env.expand(this.sourcePath);
-        String logPath          = env.expand(this.logPath);
-        String outputPath       = env.expand(this.outputPath);
-        
-        if (launcher.isUnix())
-            throw new AbortException("Carl plugin can only work under Windows!");
+        String logPath          = getResultPath(run, env.expand(this.logPath), env.expand(applicationName));
+        String outputPath       = getResultPath(run, env.expand(this.outputPath), env.expand(applicationName));
+        timing.setApplicationName(env.expand(applicationName));
+        timing.mark("environment");
+        try {
+            perform(run, workspace, launcher, listener, env, node, installationName, sourcePath, logPath, outputPath, timing);
+            }
+        finally {
+            recordTiming(run, timing, displayLog, logger);
+            }
+        }
+    
+    static protected void recordTiming(Run<?, ?> run, CarlTimingAction timing, boolean displayLog, PrintStream logger)  {
+        if (displayLog)
+            timing.print(logger);
+        run.addAction(timing);
+        if (Jenkins.get().getPlugin("metrics") != null)
+            CarlMetrics.export(timing);
+        }
+    
+    protected void perform(Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener, EnvVars env, Node node, String installationName, String sourcePath, String logPath, String outputPath, CarlTimingAction timing) throws InterruptedException, IOException {
+        PrintStream logger = listener.getLogger();
         if (CarlInstallation.fromName(installationName) == null)
             throw new AbortException(String.format("Carl plugin configuration \"%s\" no found!", installationName));
         FilePath sourceFile = workspace.child(sourcePath);
-        if (!sourceFile.exists())
+        if (!snapshot && !sourceFile.exists())
             throw new AbortException(String.format("Source folder for Carl analysis not found at %s", sourcePath));
-        FilePath executableFile = CarlInstallation.getExecutableFile(installationName, node, env, listener);
-        if ((executableFile == null) || !executableFile.exists())
+        CarlToolCache.Resolved tool = CarlInstallation.resolve(installationName, node, env, listener);
+        if ((tool == null) || !tool.exists())
             throw new AbortException("Carl executable not found!");
+        String unsupported = tool.getBackend().checkSupported(launcher);
+        if (unsupported != null)
+            throw new AbortException(unsupported);
+        if (displayLog)
+            logger.printf("Using Carl version %s.%n", tool.getVersion());
+        timing.mark("tool resolution");
         FilePath logFile    = workspace.child(logPath);
         FilePath outputFile = workspace.child(outputPath);
+        try (CarlPathLock lock = CarlPathLock.acquire(listener, logFile, outputFile))  {
+            prepareResultFolders(run, workspace, listener, logFile, outputFile);
+            timing.mark("cleanup");
+
+            runAnalysis(run, workspace, launcher, listener, env, tool, timing);
+            }
+        }
+    
+    // to be called with the result folders locked
+    protected void prepareResultFolders(Run<?, ?> run, FilePath workspace, TaskListener listener, FilePath logFile, FilePath outputFile) throws IOException, InterruptedException  {
+        PrintStream logger = listener.getLogger();
+        if (isolateOutput)  {
+            logger.printf("Carl results are written to %s and %s.%n", logFile.getRemote(), outputFile.getRemote());
+            removeStaleResults(run, workspace, logFile, listener);
+            removeStaleResults(run, workspace, outputFile, listener);
+            }
         if (logFile.exists() || outputFile.exists())  {
             if (displayLog)
                 logger.println("Removing previous Carl results...");
-            logFile.deleteContents();
-            outputFile.deleteContents();
+            removePreviousResults(workspace, logFile);
+            removePreviousResults(workspace, outputFile);
             }
-
-        runAnalysis(run, workspace, launcher, listener, env, executableFile);
         }
     
     @Override
@@ -158,6 +298,21 @@ public class CarlBuilder extends Builder implements SimpleBuildStep {
         public static final String defaultOutputPath    = "CarlResult\\output";
         public static final boolean defaultDisplayLog   = true;
         public static final boolean defaultArchivePdf   = true;
+        public static final boolean defaultIncremental  = false;
+        public static final boolean defaultUseCache     = false;
+        public static final int defaultShardCount       = 1;
+        public static final int defaultPriority         = 0;
+        public static final boolean defaultFastCleanup  = false;
+        public static final String defaultBaseline      = "";
+        public static final int defaultTimeoutMinutes   = 0;
+        public static final int defaultIdleTimeoutMinutes = 0;
+        public static final int defaultMaxMemoryMb      = 0;
+        public static final int defaultMaxCpuMinutes    = 0;
+        public static final boolean defaultSnapshot     = false;
+        public static final boolean defaultArchiveOutput = false;
+        public static final boolean defaultIsolateOutput = false;
+        public static final String defaultIncludes      = "";
+        public static final String defaultExcludes      = "";
         
         @Override
         public String getDisplayName() {
@@ -182,6 +337,21 @@ public class CarlBuilder extends Builder implements SimpleBuildStep {
     public String getOutputPath()       { return outputPath; }
     public boolean isDisplayLog()       { return displayLog; }
     public boolean isArchivePdf()       { return archivePdf; }
+    public boolean isIncremental()      { return incremental; }
+    public boolean isUseCache()         { return useCache; }
+    public int getShardCount()          { return shardCount; }
+    public int getPriority()            { return priority; }
+    public boolean isFastCleanup()      { return fastCleanup; }
+    public String getBaseline()         { return baseline; }
+    public int getTimeoutMinutes()      { return timeoutMinutes; }
+    public int getIdleTimeoutMinutes()  { return idleTimeoutMinutes; }
+    public int getMaxMemoryMb()         { return maxMemoryMb; }
+    public int getMaxCpuMinutes()       { return maxCpuMinutes; }
+    public boolean isSnapshot()         { return snapshot; }
+    public boolean isArchiveOutput()    { return archiveOutput; }
+    public boolean isIsolateOutput()    { return isolateOutput; }
+    public String getIncludes()         { return includes; }
+    public String getExcludes()         { return excludes; }
     
     protected @CheckForNull GitMetaData getGitMetaData(Run<?, ?> run)  {
         GitSCM git = getFirstGitSCM(run.getParent());
@@ -212,16 +382,140 @@ public class CarlBuilder extends Builder implements SimpleBuildStep {
         return scms;
         }
     
-    protected void runAnalysis(Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener, EnvVars env, FilePath executableFile) throws IOException, InterruptedException  {
+    protected @CheckForNull String getPreviousRevision(Run<?, ?> run, String applicationName, String sourcePath)  {
+        Run<?, ?> previous = run.getPreviousSuccessfulBuild();
+        if (previous == null)
+            return null;
+        for (CarlRevisionAction action : previous.getActions(CarlRevisionAction.class))  {
+            if (action.getApplicationName().equals(applicationName) && action.getSourcePath().equals(sourcePath))
+                return action.getRevision();
+            }
+        return null;
+        }
+    
+    protected @CheckForNull List<String> getChangedFiles(Run<?, ?> run, FilePath sourceFile, Launcher launcher, TaskListener listener, String fromCommit, String toCommit) throws IOException, InterruptedException  {
+        GitSCM git = getFirstGitSCM(run.getParent());
+        Computer computer = sourceFile.toComputer();
+        if ((git == null) || (computer == null))
+            return null;
+        String gitExe = git.getGitExe(computer.getNode(), listener);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int status = launcher.launch().pwd(sourceFile).quiet(true)
+                .cmds(gitExe, "diff", "--name-only", "-z", "--diff-filter=ACMR", "--relative", fromCommit, toCommit)
+                .stdout(out).stderr(listener.getLogger()).join();
+        if (status != 0)
+            return null;
+        // NUL separated paths are neither quoted nor escaped, whatever their characters
+        List<String> files = new ArrayList<>();
+        for (String path : out.toString("UTF-8").split("\0"))  {
+            if (!path.isEmpty())
+                files.add(path);
+            }
+        return files;
+        }
+    
+    // extracts sourcePath as of the built revision from the agent Git mirror, without using the workspace checkout
+    protected FilePath extractSnapshot(Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener, @CheckForNull GitMetaData gitMetadata, String sourcePath, FilePath outputFile) throws IOException, InterruptedException  {
+        GitSCM git = getFirstGitSCM(run.getParent());
+        Computer computer = workspace.toComputer();
+        FilePath mirrorRoot = CarlSnapshot.getMirrorRoot(workspace);
+        if ((gitMetadata == null) || (git == null) || (computer == null) || (mirrorRoot == null))
+            throw new AbortException("Snapshot analysis needs a Git repository configured in the job!");
+        String revision = gitMetadata.lastCommit.isEmpty() ? gitMetadata.branch.replaceFirst("^\\*/", "") : gitMetadata.lastCommit;
+        CarlSnapshot mirror = new CarlSnapshot(launcher, listener, git.getGitExe(computer.getNode(), listener), mirrorRoot, gitMetadata.repositoryUrl);
+        return mirror.extract(revision, sourcePath, getTempDir(workspace, outputFile, "carl-snapshot"));
+        }
+    
+    // with isolated output, each invocation gets its own result folder, named after the build and the application
+    protected String getResultPath(Run<?, ?> run, String path, String applicationName)  {
+        return isolateOutput ? (path + "/" + run.getNumber() + "-" + CarlBuildAction.getSafeName(applicationName)) : path;
+        }
+    
+    // removes the isolated result folders of the same application left by builds no longer running
+    protected void removeStaleResults(Run<?, ?> run, FilePath workspace, FilePath dir, TaskListener listener) throws IOException, InterruptedException  {
+        FilePath parent = dir.getParent();
+        String suffix = dir.getName().substring(dir.getName().indexOf('-'));
+        if ((parent == null) || !parent.isDirectory())
+            return;
+        for (FilePath sibling : parent.listDirectories())  {
+            String name = sibling.getName();
+            if (name.equals(dir.getName()) || !name.endsWith(suffix) || !name.substring(0, name.length() - suffix.length()).matches("\\d+"))
+                continue;
+            Run<?, ?> other = run.getParent().getBuildByNumber(Integer.parseInt(name.substring(0, name.length() - suffix.length())));
+            if (((other != null) && other.isBuilding()) || CarlPathLock.isLocked(sibling))
+                continue;
+            removePreviousResults(workspace, sibling);
+            sibling.deleteRecursive();
+            removeTempDirs(workspace, sibling, listener);
+            }
+        }
+    
+    // temporary folder of the analysis, distinct for each result folder so that it is covered by the result folder lock
+    static protected FilePath getTempDir(FilePath workspace, FilePath outputFile, String name)  {
+        return WorkspaceList.tempDir(workspace).child(name + "-" + Util.getDigestOf(outputFile.getRemote()).substring(0, 8));
+        }
+    
+    // a temporary folder left behind only costs disk space, it must not fail the build
+    static protected void removeTempDirs(FilePath workspace, FilePath outputFile, TaskListener listener) throws InterruptedException  {
+        for (String name : TEMP_DIRS)  {
+            try {
+                getTempDir(workspace, outputFile, name).deleteRecursive();
+                }
+            catch (IOException e)  {
+                listener.getLogger().printf("Cannot remove Carl temporary folder %s: %s%n", name, e.getMessage());
+                }
+            }
+        }
+    
+    protected void removePreviousResults(FilePath workspace, FilePath dir) throws IOException, InterruptedException  {
+        if (!fastCleanup || !CarlTrash.discard(workspace, dir))
+            dir.deleteContents();
+        }
+    
+    protected void runAnalysis(Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener, EnvVars env, CarlToolCache.Resolved tool, CarlTimingAction timing) throws IOException, InterruptedException  {
+        int status = analyze(run, workspace, launcher, listener, env, tool, timing);
+        if (status == STATUS_SKIPPED)
+            return;
+        if ( (status == 0) || (status == 2) )  {
+//TODO: below code is not for this version. And PDF_FILENAME must be correctly set (for now it's just a dummy file)
+/*            if (archivePdf)  {
+                FilePath pdfFile = outputFile.child(PDF_FILENAME);
+                if (pdfFile.exists())  {
+                    Map<String,String> artifacts = new LinkedHashMap<>();
+                    artifacts.put(summaryFile.getName(), relativeToWorkspace(workspace, summaryFile));
+                    run.pickArtifactManager().archive(workspace, launcher, BuildListenerAdapter.wrap(listener), artifacts);
+                    }
+                else
+                    logger.println("Missing analysis pdf cannot be archived!");
+                }*/
+            if ( (status == 2) && (baseline.isEmpty() || !checkBaseline(run, env.expand(applicationName), env.expand(baseline), listener)) )
+                throw new AbortException("Too much errors found by Carl analysis!");
+            }
+        else
+            throw new AbortException("Carl analysis has failed!");
+        }
+    
+    // runs the analysis and records its results, without applying the quality gate
+    protected int analyze(Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener, EnvVars env, CarlToolCache.Resolved tool, CarlTimingAction timing) throws IOException, InterruptedException  {
+        FilePath outputFile = workspace.child(getResultPath(run, env.expand(this.outputPath), env.expand(this.applicationName)));
+        try {
+            return analyzeSources(run, workspace, launcher, listener, env, tool, timing);
+            }
+        finally {
+            removeTempDirs(workspace, outputFile, listener);
+            }
+        }
+    
+    protected int analyzeSources(Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener, EnvVars env, CarlToolCache.Resolved tool, CarlTimingAction timing) throws IOException, InterruptedException  {
         PrintStream logger = listener.getLogger();
         String sourcePath       = env.expand(this.sourcePath);
         String applicationName  = env.expand(this.applicationName);
         String qualityGate      = env.expand(this.qualityGate);
-        String logPath          = env.expand(this.logPath);
-        String outputPath       = env.expand(this.outputPath);
+        String logPath          = getResultPath(run, env.expand(this.logPath), applicationName);
+        String outputPath       = getResultPath(run, env.expand(this.outputPath), applicationName);
 
         logger.printf("Starting Carl analysis of sources located into %s...%n", sourcePath);
-        String executablePath   = executableFile.getRemote();
+        String executablePath   = tool.getExecutable().getRemote();
         FilePath sourceFile     = workspace.child(sourcePath);
         FilePath logFile        = workspace.child(logPath);
         FilePath outputFile     = workspace.child(outputPath);
@@ -236,8 +530,274 @@ public class CarlBuilder extends Builder implements SimpleBuildStep {
 //            logger.println(gitMetadata.lastCommit);
             }
         logger.println("");
+        if (snapshot)  {
+            sourceFile = extractSnapshot(run, workspace, launcher, listener, gitMetadata, sourcePath, outputFile);
+            timing.mark("snapshot");
+            }
+
+        FilePath analyzedFile = sourceFile;
+        boolean partial = false;
+        if (incremental && !snapshot)  {
+            String previousCommit = ((gitMetadata == null) || gitMetadata.lastCommit.isEmpty()) ? null : getPreviousRevision(run, applicationName, sourcePath);
+            List<String> changedFiles = (previousCommit == null) ? null : getChangedFiles(run, sourceFile, launcher, listener, previousCommit, gitMetadata.lastCommit);
+            if (changedFiles == null)
+                logger.println("No previous analyzed revision available: running full Carl analysis.");
+            else  {
+                FilePath stagingFile = getTempDir(workspace, outputFile, "carl-staging");
+                stagingFile.deleteRecursive();
+                int stagedCount = changedFiles.isEmpty() ? 0 : sourceFile.act(new CarlSourceStaging.Stage(stagingFile.getRemote(), changedFiles));
+                if (stagedCount == 0)  {
+                    logger.printf("No source file changed since revision %s: Carl analysis skipped.%n", previousCommit);
+                    timing.mark("staging");
+                    run.addAction(new CarlRevisionAction(applicationName, sourcePath, gitMetadata.lastCommit));
+                    return STATUS_SKIPPED;
+                    }
+                logger.printf("Incremental analysis of %d file(s) changed since revision %s.%n", stagedCount, previousCommit);
+                analyzedFile = stagingFile;
+                partial = true;
+                }
+            timing.mark("staging");
+            }
+        if (!includes.isEmpty() || !excludes.isEmpty())  {
+            FilePath filteredFile = getTempDir(workspace, outputFile, "carl-filtered");
+            filteredFile.deleteRecursive();
+            CarlSourceStaging.FilterSummary filtered = analyzedFile.act(new CarlSourceStaging.Filter(filteredFile.getRemote(), env.expand(includes), env.expand(excludes)));
+            logger.printf("Source filter: %d file(s) (%s) to analyze, %d file(s) (%s) skipped.%n",
+                    filtered.getIncludedCount(), Functions.humanReadableByteSize(filtered.getIncludedBytes()),
+                    filtered.getSkippedCount(), Functions.humanReadableByteSize(filtered.getSkippedBytes()));
+            timing.mark("filtering");
+            if ((filtered.getIncludedCount() == 0) && (analyzedFile == sourceFile))
+                throw new AbortException("No source file left for Carl analysis after applying the include and exclude patterns!");
+            if (filtered.getIncludedCount() == 0)  {
+                logger.println("No changed source file left after applying the include and exclude patterns: Carl analysis skipped.");
+                run.addAction(new CarlRevisionAction(applicationName, sourcePath, gitMetadata.lastCommit));
+                return STATUS_SKIPPED;
+                }
+            analyzedFile = filteredFile;
+            }
 
+        int status;
+        FilePath cacheRoot = useCache ? CarlResultCache.getRoot(workspace) : null;
+        String cacheKey = (cacheRoot == null) ? null : CarlResultCache.computeKey(analyzedFile, applicationName, qualityGate, executablePath, tool.getVersion());
+        Integer cachedStatus = (cacheRoot == null) ? null : restoreFromCache(cacheRoot, cacheKey, outputFile, listener, timing);
+        if (cachedStatus != null)
+            status = cachedStatus;
+        else  {
+            Computer computer = workspace.toComputer();
+            String nodeName = (computer == null) ? "" : computer.getName();
+            try (CarlAnalysisScheduler.Permit permit = CarlAnalysisScheduler.get().acquire(env.expand(installationName), nodeName, shardCount, priority, listener))  {
+                timing.mark("queue");
+                CarlProcessMonitor monitor = createMonitor(launcher, listener, outputFile);
+                CarlOutputFilter output = ((shardCount > 1) || !displayLog) ? null : createOutputFilter(run, workspace, applicationName, listener);
+                try {
+                    if (shardCount > 1)
+                        status = launchShardedCarl(launcher, workspace, listener, monitor, tool, applicationName, qualityGate, analyzedFile, outputFile, logFile);
+                    else
+                        status = launchCarl(launcher, workspace, listener, monitor, monitor.watch((output != null) ? output : new NullOutputStream()), tool, applicationName, qualityGate, analyzedFile, outputFile, logFile);
+                    CarlHealth.get().record(env.expand(installationName), CarlProcessMonitor.Outcome.COMPLETED);
+                    }
+                catch (CarlProcessMonitor.LimitExceededException e)  {
+                    CarlHealth.get().record(env.expand(installationName), e.getOutcome());
+                    run.setResult(Result.ABORTED);
+                    throw e;
+                    }
+                finally {
+                    if (output != null)
+                        output.close();
+                    timing.mark("analysis");
+                    if (monitor.hasSamples())
+                        timing.setProcessUsage(monitor.getPeakWorkingSet(), monitor.getCpuTime());
+                    }
+                }
+            if ( (cacheRoot != null) && ((status == 0) || (status == 2)) )  {
+                CarlResultCache.store(cacheRoot, cacheKey, outputFile, status);
+                timing.mark("cache store");
+                }
+            }
+        logger.println("");
+        if ( (status == 0) || (status == 2) )  {
+            logger.println("Carl analysis has finished.");
+            reportResults(run, applicationName, outputFile, displayLog, partial, listener);
+            timing.mark("result collection");
+            if (archiveOutput)  {
+                CarlOutputArchive.archive(run, outputFile, applicationName, listener);
+                timing.mark("archiving");
+                }
+            if ((gitMetadata != null) && !gitMetadata.lastCommit.isEmpty())
+                run.addAction(new CarlRevisionAction(applicationName, sourcePath, gitMetadata.lastCommit));
+            }
+        return status;
+        }
+    
+    // restores the results of an earlier analysis of the same sources, null when Carl must run
+    static protected @CheckForNull Integer restoreFromCache(FilePath cacheRoot, String cacheKey, FilePath outputFile, TaskListener listener, CarlTimingAction timing) throws IOException, InterruptedException  {
+        CarlResultCache.Lookup.Result cached = cacheRoot.act(new CarlResultCache.Lookup(cacheKey));
+        listener.getLogger().printf("Carl result cache %s (hits: %d, misses: %d).%n", cached.isHit() ? "hit" : "miss", cached.getHits(), cached.getMisses());
+        timing.mark("cache lookup");
+        if (!cached.isHit())
+            return null;
+        Integer status = CarlResultCache.restore(cacheRoot, cacheKey, outputFile);
+        if (status == null)
+            listener.getLogger().println("Carl result cache entry evicted meanwhile: running the analysis.");
+        timing.mark("cache restore");
+        return status;
+        }
+    
+    protected CarlProcessMonitor createMonitor(Launcher launcher, TaskListener listener, FilePath outputFile)  {
+        CarlProcessMonitor monitor = new CarlProcessMonitor(launcher, listener, outputFile.getRemote());
+        monitor.setLimits(TimeUnit.MINUTES.toMillis(timeoutMinutes), TimeUnit.MINUTES.toMillis(idleTimeoutMinutes), maxMemoryMb * 1024L, TimeUnit.MINUTES.toMillis(maxCpuMinutes));
+        return monitor;
+        }
+    
+    // true when no violation is new or increased relative to the baseline, false when the baseline is unavailable
+    static protected boolean checkBaseline(Run<?, ?> run, String applicationName, String baseline, TaskListener listener) throws AbortException  {
+        PrintStream logger = listener.getLogger();
+        Run<?, ?> baselineRun = CarlBaseline.find(run, baseline, applicationName);
+        CarlBuildAction baselineAction = (baselineRun == null) ? null : CarlBuildAction.find(baselineRun, applicationName);
+        CarlResultDetail baselineDetail = ((baselineAction == null) || baselineAction.isPartial()) ? null : baselineAction.getDetail();
+        CarlBuildAction action = CarlBuildAction.find(run, applicationName);
+        CarlResultDetail detail = (action == null) ? null : action.getDetail();
+        if ((baselineDetail == null) || (detail == null))  {
+            logger.printf("No Carl baseline result available for %s: full quality gate applied.%n", baseline);
+            return false;
+            }
+        List<CarlBaseline.Delta> deltas = CarlBaseline.compare(baselineDetail, detail);
+        if (deltas.isEmpty())  {
+            logger.printf("No new Carl violation relative to %s.%n", baselineRun.getFullDisplayName());
+            return true;
+            }
+        logger.printf("%d new or increased Carl violation(s) relative to %s:%n", deltas.size(), baselineRun.getFullDisplayName());
+        for (CarlBaseline.Delta delta : deltas.subList(0, Math.min(deltas.size(), MAX_DISPLAYED_DETAILS)))
+            logger.printf("     %s / %s: %d -> %d%n", delta.getViolationType(), delta.getName(), delta.getBaselineCount(), delta.getCount());
+        if (deltas.size() > MAX_DISPLAYED_DETAILS)
+            logger.printf("     ...%n");
+        throw new AbortException("New errors found by Carl analysis!");
+        }
+    
+    // partial for an incremental analysis of the changed files only
+    static protected CarlAnalysisSummary reportResults(Run<?, ?> run, String applicationName, FilePath outputFile, boolean displayLog, boolean partial, TaskListener listener) throws IOException, InterruptedException  {
+        PrintStream logger = listener.getLogger();
+        CarlAnalysisSummary summary = outputFile.act(new CarlAnalysisSummary.Collect(MAX_DISPLAYED_DETAILS));
+        if (summary.isMissing())
+            throw new AbortException("Result analysis file " + CarlResult.FILENAME + " does not exists!");
+        CarlResult result = summary.getResult();
+        if (result == null)
+            throw new AbortException("Result analysis file " + CarlResult.FILENAME + " cannot be read!");
+        recordResult(run, applicationName, summary, outputFile, partial);
+        if (partial)
+            logger.println("Carl results of the changed files only: not recorded in the trend and the dashboard.");
+        if (displayLog)  {
+            logger.printf("Carl results collected (%d bytes received, %d bytes stored).%n%n", summary.getPayloadSize(), summary.getStoreSize());
+            logger.printf("Checked rules       : %d%n", result.checkedRuleCount);
+            logger.printf("File count          : %d%n", result.fileCount);
+            logger.printf("Issue count         : %d%n%n", result.issueCount);
+            CarlResultDetail detail = summary.getDetail();
+            if (detail == null)
+                logger.printf("Error reading violation detail!%n");
+            else  {
+                logger.printf("List of violations:%n-------------------%n");
+                for (CarlResultDetail.ViolationType violationType : detail.violationTypes)  {
+                    logger.printf("%s (%d):%n", violationType.name, violationType.count);
+                    for (CarlResultDetail.Detail detail2 : violationType.details)
+                        logger.printf("     %s (%d)%n", detail2.name, detail2.count);
+                    if (violationType.detailCount > MAX_DISPLAYED_DETAILS)
+                        logger.printf("     ...%n");
+                }
+                logger.println();
+                }
+            }
+        return summary;
+        }
+    
+    static protected void recordResult(Run<?, ?> run, String applicationName, CarlAnalysisSummary summary, FilePath outputFile, boolean partial) throws IOException, InterruptedException  {
+        for (CarlBuildAction previous : run.getActions(CarlBuildAction.class))  {
+            if (previous.getApplicationName().equals(applicationName))
+                run.removeAction(previous);
+            }
+        CarlBuildAction action = new CarlBuildAction(applicationName, summary.getResult(), partial);
+        run.addAction(action);
+        outputFile.child(CarlResultStore.FILENAME).copyTo(new FilePath(action.getStoreFile()));
+        if (partial)
+            return;
+        CarlTrendIndex.append(run.getParent(), run.getNumber(), run.getTimeInMillis(), applicationName, summary.getResult(), summary.getDetail());
+        CarlDashboard.get().record(run.getParent().getFullName(), applicationName, run.getNumber(), run.getTimeInMillis(), summary.getResult(), summary.getDetail());
+        }
+    
+    protected int launchCarl(Launcher launcher, FilePath workspace, TaskListener listener, CarlProcessMonitor monitor, @CheckForNull OutputStream stdout, CarlToolCache.Resolved tool, String applicationName, String qualityGate, FilePath sourceFile, FilePath outputFile, FilePath logFile) throws IOException, InterruptedException  {
+        int status = monitor.join(startCarl(launcher, workspace, listener, stdout, tool, applicationName, qualityGate, sourceFile, outputFile, logFile));
+        if (CarlToolCache.isNotFound(status))
+            CarlToolCache.invalidate(tool);
+        return status;
+        }
+    
+    static protected CarlOutputFilter createOutputFilter(Run<?, ?> run, FilePath workspace, String applicationName, TaskListener listener) throws IOException  {
+        for (CarlProgressAction previous : run.getActions(CarlProgressAction.class))  {
+            if (previous.getApplicationName().equals(applicationName))
+                run.removeAction(previous);
+            }
+        Computer computer = workspace.toComputer();
+        Charset charset = (computer == null) ? null : computer.getDefaultCharset();
+        if (charset == null)
+            charset = Charset.defaultCharset();
+        CarlProgressAction progress = new CarlProgressAction(applicationName, charset);
+        run.addAction(progress);
+        return new CarlOutputFilter(listener.getLogger(), progress.getOutputFile(), charset, progress);
+        }
+    
+    protected int launchShardedCarl(Launcher launcher, FilePath workspace, TaskListener listener, CarlProcessMonitor monitor, CarlToolCache.Resolved tool, String applicationName, String qualityGate, FilePath sourceFile, FilePath outputFile, FilePath logFile) throws IOException, InterruptedException  {
+        FilePath shardRoot = getTempDir(workspace, outputFile, "carl-shards");
+        shardRoot.deleteRecursive();
+        List<String> shardNames = sourceFile.act(new CarlSourceStaging.Shard(shardRoot.getRemote(), shardCount));
+        listener.getLogger().printf("Running %d Carl analysis shards...%n", shardNames.size());
+        List<Launcher.Proc> procs = new ArrayList<>();
+        int status = 0;
+        try {
+            for (String shardName : shardNames)
+                procs.add(startCarl(launcher, workspace, listener, monitor.watch(new NullOutputStream()), tool, applicationName, qualityGate, shardRoot.child(shardName), outputFile.child(shardName), logFile.child(shardName)));
+            for (int i=0; i<procs.size(); i++)  {
+                int shardStatus = monitor.join(procs.get(i));
+                if (displayLog)
+                    listener.getLogger().printf("Carl analysis shard %s has finished with status %d.%n", shardNames.get(i), shardStatus);
+                if ((status == 0) || (status == 2))
+                    status = ((shardStatus == 0) || (shardStatus == 2)) ? Math.max(status, shardStatus) : shardStatus;
+                }
+            }
+        finally {
+            for (Launcher.Proc proc : procs)  {
+                if (proc.isAlive())
+                    proc.kill();
+                }
+            }
+        if ( (status == 0) || (status == 2) )
+            outputFile.act(new CarlResultMerger.Merge(shardNames));
+        return status;
+        }
+    
+    protected Launcher.Proc startCarl(Launcher launcher, FilePath workspace, TaskListener listener, @CheckForNull OutputStream stdout, CarlToolCache.Resolved tool, String applicationName, String qualityGate, FilePath sourceFile, FilePath outputFile, FilePath logFile) throws IOException, InterruptedException  {
         ProcStarter ps = launcher.launch().pwd(workspace);
+        EnvVars env = new EnvVars();
+        List<String> params = getLaunchCommand(launcher, env, tool, applicationName, qualityGate, sourceFile, outputFile, logFile);
+        ps./*quiet(true).*/cmds(params).envs(env);
+        if (stdout != null)
+            ps.stdout(stdout);
+        ps.stderr(listener.getLogger());
+        try {
+            return ps.start();
+            }
+        catch (IOException e)  {
+            CarlToolCache.invalidate(tool);
+            throw e;
+            }
+        }
+    
+    // command line run by the execution backend, the backend variables are added to env
+    static protected List<String> getLaunchCommand(Launcher launcher, EnvVars env, CarlToolCache.Resolved tool, String applicationName, String qualityGate, FilePath sourceFile, FilePath outputFile, FilePath logFile)  {
+        CarlExecutionBackend backend = tool.getBackend();
+        backend.buildEnvVars(env);
+        return backend.getCommand(getCommand(tool.getExecutable().getRemote(), applicationName, qualityGate, sourceFile, outputFile, logFile), launcher);
+        }
+    
+    static protected List<String> getCommand(String executablePath, String applicationName, String qualityGate, FilePath sourceFile, FilePath outputFile, FilePath logFile)  {
         List<String> params = new ArrayList<>();
         params.add(executablePath);
         params.add("-a");
@@ -252,57 +812,7 @@ public class CarlBuilder extends Builder implements SimpleBuildStep {
         params.add(outputFile.getRemote());
         params.add("-t");
         params.add(logFile.getRemote());
-        ps./*quiet(true).*/cmds(params);
-        if (displayLog)
-            ps.stdout(listener.getLogger());
-        ps.stderr(listener.getLogger());
-        int status = ps.join();
-        logger.println("");
-        if ( (status == 0) || (status == 2) )  {
-            logger.println("Carl analysis has finished.");
-            FilePath summaryFile = outputFile.child("ApplicationSummary.json");
-            if (!summaryFile.exists())
-                throw new AbortException("Result analysis file " + summaryFile.getName() + " does not exists!");
-            CarlResult result = summaryFile.act(new CarlResult.Collect());
-            if (displayLog)  {
-                logger.printf("Checked rules       : %d%n", result.checkedRuleCount);
-                logger.printf("File count          : %d%n", result.fileCount);
-                logger.printf("Issue count         : %d%n%n", result.issueCount);
-                FilePath detailFile = outputFile.child("DetailsForCarlQG.json");
-                CarlResultDetail detail = detailFile.act(new CarlResultDetail.Collect());
-                if (detail == null)
-                    logger.printf("Error reading violation detail!%n");
-                else  {
-                    logger.printf("List of violations:%n-------------------%n");
-                    for (CarlResultDetail.ViolationType violationType : detail.violationTypes)  {
-                        logger.printf("%s (%d):%n", violationType.name, violationType.count);
-                        violationType.details.sort( (CarlResultDetail.Detail a, CarlResultDetail.Detail b) -> (int)(b.count - a.count) );
-                        for (int i=0; i<Math.min(MAX_DISPLAYED_DETAILS, violationType.details.size()); i++)  {
-                            CarlResultDetail.Detail detail2 = violationType.details.get(i);
-                            logger.printf("     %s (%d)%n", detail2.name, detail2.count);
-                            }
-                        if (violationType.details.size() >= 10)
-                            logger.printf("     ...%n");
-                    }
-                    logger.println();
-                    }
-                }
-//TODO: below code is not for this version. And PDF_FILENAME must be correctly set (for now it's just a dummy file)
-/*            if (archivePdf)  {
-                FilePath pdfFile = outputFile.child(PDF_FILENAME);
-                if (pdfFile.exists())  {
-                    Map<String,String> artifacts = new LinkedHashMap<>();
-                    artifacts.put(summaryFile.getName(), relativeToWorkspace(workspace, summaryFile));
-                    run.pickArtifactManager().archive(workspace, launcher, BuildListenerAdapter.wrap(listener), artifacts);
-                    }
-                else
-                    logger.println("Missing analysis pdf cannot be archived!");
-                }*/
-            if (status == 2)
-                throw new AbortException("Too much errors found by Carl analysis!");
-            }
-        else
-            throw new AbortException("Carl analysis has failed!");
+        return params;
         }
     
     private String relativeToWorkspace(FilePath ws, FilePath path) throws IOException, InterruptedException {
@@ -0,0 +1,44 @@
+package jenkins.plugins.carl;
+
+import hudson.Extension;
+import hudson.tools.ToolInstallation;
+import hudson.tools.ToolProperty;
+import hudson.tools.ToolPropertyDescriptor;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+public class CarlConcurrencyProperty extends ToolProperty<CarlInstallation> {
+    
+    private final int maxPerNode;
+    private final int maxTotal;
+    
+    @DataBoundConstructor
+    public CarlConcurrencyProperty(int maxPerNode, int maxTotal)  {
+        this.maxPerNode = Math.max(0, maxPerNode);
+        this.maxTotal   = Math.max(0, maxTotal);
+        }
+    
+    public int getMaxPerNode()  { return maxPerNode; }
+    public int getMaxTotal()    { return maxTotal; }
+
+    @Override
+    public Class<CarlInstallation> type()  {
+        return CarlInstallation.class;
+        }
+    
+    @Extension
+    public static class DescriptorImpl extends ToolPropertyDescriptor  {
+        public static final int defaultMaxPerNode   = 1;
+        public static final int defaultMaxTotal     = 0;
+        
+        @Override
+        public String getDisplayName()  {
+            return Messages.Carl_ConcurrencyProperty_DisplayName();
+            }
+
+        @Override
+        public boolean isApplicable(Class<? extends ToolInstallation> toolType)  {
+            return CarlInstallation.class.isAssignableFrom(toolType);
+            }
+        }
+    
+    }
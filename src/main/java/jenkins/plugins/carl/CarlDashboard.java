@@ -0,0 +1,319 @@
+package jenkins.plugins.carl;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.listeners.ItemListener;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import jenkins.model.Jenkins;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+// latest Carl results of every job, kept in memory and persisted as an append-only log in JENKINS_HOME,
+// so that the dashboard never has to load build records
+public class CarlDashboard {
+    
+    private static final Logger LOGGER = Logger.getLogger(CarlDashboard.class.getName());
+    
+    static final String LOG_FILENAME    = "carl-dashboard.log";
+    static final int TREND_DAYS         = 90;
+    static final int COMPACTION_MIN     = 1000;
+    
+    private static CarlDashboard instance;
+    
+    private final File file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<Long, Long> trend = new TreeMap<>();     // epoch day -> issue count of all jobs at the end of the day
+    private long issueCount;
+    private int lineCount;
+    
+    static public class Entry  {
+        final String jobName;
+        final String applicationName;
+        final int buildNumber;
+        final long timestamp;
+        final long checkedRuleCount;
+        final long fileCount;
+        final long issueCount;
+        final Map<String, Long> violationCounts;
+        
+        Entry(String jobName, String applicationName, int buildNumber, long timestamp, long checkedRuleCount, long fileCount, long issueCount, Map<String, Long> violationCounts)  {
+            this.jobName            = jobName;
+            this.applicationName    = applicationName;
+            this.buildNumber        = buildNumber;
+            this.timestamp          = timestamp;
+            this.checkedRuleCount   = checkedRuleCount;
+            this.fileCount          = fileCount;
+            this.issueCount         = issueCount;
+            this.violationCounts    = violationCounts;
+            }
+        
+        public String getJobName()                      { return jobName; }
+        public String getApplicationName()              { return applicationName; }
+        public int getBuildNumber()                     { return buildNumber; }
+        public long getTimestamp()                      { return timestamp; }
+        public long getCheckedRuleCount()               { return checkedRuleCount; }
+        public long getFileCount()                      { return fileCount; }
+        public long getIssueCount()                     { return issueCount; }
+        public Map<String, Long> getViolationCounts()   { return violationCounts; }
+        
+        String getKey()  { return jobName + "\0" + applicationName; }
+        
+        Entry rename(String newJobName)  {
+            return new Entry(newJobName, applicationName, buildNumber, timestamp, checkedRuleCount, fileCount, issueCount, violationCounts);
+            }
+        }
+    
+    static public synchronized CarlDashboard get()  {
+        if (instance == null)
+            instance = open(new File(Jenkins.get().getRootDir(), LOG_FILENAME));
+        return instance;
+        }
+    
+    // loaded again by each Jenkins started, as by the tests sharing a JVM
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    static public synchronized void init()  {
+        instance = open(new File(Jenkins.get().getRootDir(), LOG_FILENAME));
+        }
+    
+    static private CarlDashboard open(File file)  {
+        CarlDashboard dashboard = new CarlDashboard(file);
+        try {
+            dashboard.load();
+            }
+        catch (IOException e)  {
+            LOGGER.log(Level.WARNING, "Cannot read the Carl dashboard log", e);
+            }
+        return dashboard;
+        }
+    
+    CarlDashboard(File file)  {
+        this.file = file;
+        }
+    
+    public synchronized void record(String jobName, String applicationName, int buildNumber, long timestamp, CarlResult result, @CheckForNull CarlResultDetail detail) throws IOException  {
+        Map<String, Long> violationCounts = new LinkedHashMap<>();
+        if (detail != null)  {
+            for (CarlResultDetail.ViolationType violationType : detail.violationTypes)
+                violationCounts.put(violationType.name, violationType.count);
+            }
+        Entry entry = new Entry(jobName, applicationName, buildNumber, timestamp, result.checkedRuleCount, result.fileCount, result.issueCount, violationCounts);
+        Entry previous = entries.get(entry.getKey());
+        if ((previous != null) && (previous.buildNumber > buildNumber))
+            return;
+        long day = today();
+        write(Collections.singletonList(toJSON(entry, day)));
+        apply(entry, day);
+        compactIfNeeded();
+        }
+    
+    // forgets the job, and the jobs inside it when it is a folder
+    public synchronized void remove(String jobName) throws IOException  {
+        if (findJob(jobName).isEmpty())
+            return;
+        long day = today();
+        write(Collections.singletonList(toTombstone(jobName, day)));
+        removeJob(jobName, day);
+        }
+    
+    public synchronized void rename(String oldJobName, String newJobName) throws IOException  {
+        List<Entry> renamed = new ArrayList<>();
+        for (Entry entry : findJob(oldJobName))
+            renamed.add(entry.rename(newJobName + entry.jobName.substring(oldJobName.length())));
+        if (renamed.isEmpty())
+            return;
+        long day = today();
+        List<String> lines = new ArrayList<>();
+        lines.add(toTombstone(oldJobName, day));
+        for (Entry entry : renamed)
+            lines.add(toJSON(entry, day));
+        write(lines);
+        removeJob(oldJobName, day);
+        for (Entry entry : renamed)
+            apply(entry, day);
+        }
+    
+    public synchronized List<Entry> getEntries()  {
+        return new ArrayList<>(entries.values());
+        }
+    
+    public synchronized Map<Long, Long> getTrend()  {
+        return new TreeMap<>(trend);
+        }
+    
+    private List<Entry> findJob(String jobName)  {
+        List<Entry> found = new ArrayList<>();
+        for (Entry entry : entries.values())  {
+            if (entry.jobName.equals(jobName) || entry.jobName.startsWith(jobName + "/"))
+                found.add(entry);
+            }
+        return found;
+        }
+    
+    private void apply(Entry entry, long day)  {
+        Entry previous = entries.put(entry.getKey(), entry);
+        issueCount += entry.issueCount - ((previous == null) ? 0 : previous.issueCount);
+        updateTrend(day);
+        }
+    
+    private void removeJob(String jobName, long day)  {
+        for (Entry entry : findJob(jobName))  {
+            entries.remove(entry.getKey());
+            issueCount -= entry.issueCount;
+            }
+        updateTrend(day);
+        }
+    
+    private void updateTrend(long day)  {
+        if (day < 0)
+            return;
+        trend.put(day, issueCount);
+        while (trend.size() > TREND_DAYS)
+            trend.pollFirstEntry();
+        }
+    
+    static long today()  {
+        return TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis());
+        }
+    
+    void load() throws IOException  {
+        if (!file.isFile())
+            return;
+        JSONParser parser = new JSONParser();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))  {
+            String line;
+            while ((line = reader.readLine()) != null)  {
+                lineCount++;
+                try {
+                    JSONObject object = (JSONObject) parser.parse(line);
+                    long day = getLong(object, "day", -1);
+                    if (object.containsKey("trend"))
+                        trend.put(day, getLong(object, "trend", 0));
+                    else  if (Boolean.TRUE.equals(object.get("deleted")))
+                        removeJob((String) object.get("job"), day);
+                    else
+                        apply(fromJSON(object), day);
+                    }
+                catch (ParseException | ClassCastException | NullPointerException e)  {
+                    LOGGER.log(Level.FINE, "Skipping invalid Carl dashboard record: " + line, e);
+                    }
+                }
+            }
+        }
+    
+    // rewrites the log with only the latest entries and the trend once it is mostly made of obsolete records
+    private void compactIfNeeded() throws IOException  {
+        if ((lineCount < COMPACTION_MIN) || (lineCount < 4 * (entries.size() + trend.size())))
+            return;
+        List<String> lines = new ArrayList<>();
+        for (Entry entry : entries.values())
+            lines.add(toJSON(entry, -1));
+        for (Map.Entry<Long, Long> point : trend.entrySet())  {
+            JSONObject object = new JSONObject();
+            object.put("day", point.getKey());
+            object.put("trend", point.getValue());
+            lines.add(object.toJSONString());
+            }
+        Path temp = file.toPath().resolveSibling(file.getName() + ".tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lineCount = lines.size();
+        }
+    
+    private void write(List<String> lines) throws IOException  {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND))  {
+            for (String line : lines)  {
+                writer.write(line);
+                writer.write('\n');
+                }
+            }
+        lineCount += lines.size();
+        }
+    
+    static private String toJSON(Entry entry, long day)  {
+        JSONObject object = new JSONObject();
+        object.put("job", entry.jobName);
+        object.put("application", entry.applicationName);
+        object.put("build", entry.buildNumber);
+        object.put("timestamp", entry.timestamp);
+        object.put("rules", entry.checkedRuleCount);
+        object.put("files", entry.fileCount);
+        object.put("issues", entry.issueCount);
+        object.put("violations", new JSONObject(entry.violationCounts));
+        if (day >= 0)
+            object.put("day", day);
+        return object.toJSONString();
+        }
+    
+    static private String toTombstone(String jobName, long day)  {
+        JSONObject object = new JSONObject();
+        object.put("job", jobName);
+        object.put("deleted", true);
+        object.put("day", day);
+        return object.toJSONString();
+        }
+    
+    static private Entry fromJSON(JSONObject object)  {
+        Map<String, Long> violationCounts = new LinkedHashMap<>();
+        JSONObject violations = (JSONObject) object.get("violations");
+        if (violations != null)  {
+            for (Object name : violations.keySet())
+                violationCounts.put((String) name, getLong(violations, (String) name, 0));
+            }
+        return new Entry((String) object.get("job"), (String) object.get("application"), (int) getLong(object, "build", 0), getLong(object, "timestamp", 0),
+                getLong(object, "rules", 0), getLong(object, "files", 0), getLong(object, "issues", 0), violationCounts);
+        }
+    
+    static private long getLong(JSONObject object, String key, long defaultValue)  {
+        Object value = object.get(key);
+        return (value == null) ? defaultValue : ((Number) value).longValue();
+        }
+    
+    @Extension
+    static public class Listener extends ItemListener  {
+        @Override
+        public void onDeleted(Item item)  {
+            try {
+                CarlDashboard.get().remove(item.getFullName());
+                }
+            catch (IOException e)  {
+                LOGGER.log(Level.WARNING, "Cannot remove " + item.getFullName() + " from the Carl dashboard", e);
+                }
+            }
+        
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName)  {
+            if (!(item instanceof Job))
+                return;
+            try {
+                CarlDashboard.get().rename(oldFullName, newFullName);
+                }
+            catch (IOException e)  {
+                LOGGER.log(Level.WARNING, "Cannot rename " + oldFullName + " in the Carl dashboard", e);
+                }
+            }
+        }
+    
+    }
@@ -0,0 +1,97 @@
+package jenkins.plugins.carl;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.RootAction;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+
+@Extension
+public class CarlDashboardAction implements RootAction {
+    
+    static final int WORST_COUNT = 20;
+    
+    @Override
+    public String getIconFileName()  {
+        return "graph.png";
+        }
+
+    @Override
+    public String getDisplayName()  {
+        return "Carl dashboard";
+        }
+
+    @Override
+    public String getUrlName()  {
+        return "carl-dashboard";
+        }
+    
+    // aggregates of the latest results of the jobs the current user can see
+    static public class View  {
+        final List<CarlDashboard.Entry> entries;
+        final Map<String, Long> violationCounts = new LinkedHashMap<>();
+        long jobCount;
+        long fileCount;
+        long issueCount;
+        
+        View(List<CarlDashboard.Entry> entries)  {
+            this.entries = entries;
+            this.entries.sort((a, b) -> Long.compare(b.issueCount, a.issueCount));
+            Map<String, Long> counts = new TreeMap<>();
+            for (CarlDashboard.Entry entry : entries)  {
+                fileCount  += entry.fileCount;
+                issueCount += entry.issueCount;
+                for (Map.Entry<String, Long> count : entry.violationCounts.entrySet())
+                    counts.merge(count.getKey(), count.getValue(), Long::sum);
+                }
+            jobCount = entries.stream().map(entry -> entry.jobName).distinct().count();
+            counts.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .forEachOrdered(count -> violationCounts.put(count.getKey(), count.getValue()));
+            }
+        
+        public long getJobCount()                       { return jobCount; }
+        public int getApplicationCount()                { return entries.size(); }
+        public long getFileCount()                      { return fileCount; }
+        public long getIssueCount()                     { return issueCount; }
+        public Map<String, Long> getViolationCounts()   { return violationCounts; }
+        public List<CarlDashboard.Entry> getWorst()     { return entries.subList(0, Math.min(WORST_COUNT, entries.size())); }
+        }
+    
+    public View getView()  {
+        Jenkins jenkins = Jenkins.get();
+        return new View(CarlDashboard.get().getEntries().stream()
+                .filter(entry -> jenkins.getItemByFullName(entry.jobName, Job.class) != null)
+                .collect(Collectors.toCollection(ArrayList::new)));
+        }
+    
+    // the trend sums the issues of all jobs, including the ones the current user cannot see
+    public boolean isTrendVisible()  {
+        return Jenkins.get().hasPermission(Jenkins.ADMINISTER);
+        }
+    
+    // issue count of all jobs per day, empty for the users who cannot see it
+    public Map<String, Long> getTrend()  {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        Map<String, Long> trend = new LinkedHashMap<>();
+        if (!isTrendVisible())
+            return trend;
+        for (Map.Entry<Long, Long> point : CarlDashboard.get().getTrend().entrySet())
+            trend.put(format.format(new Date(TimeUnit.DAYS.toMillis(point.getKey()))), point.getValue());
+        return trend;
+        }
+    
+    public long getTrendMax()  {
+        if (!isTrendVisible())
+            return 0;
+        return CarlDashboard.get().getTrend().values().stream().mapToLong(Long::longValue).max().orElse(0);
+        }
+    
+    }
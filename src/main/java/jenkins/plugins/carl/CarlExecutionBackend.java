@@ -0,0 +1,25 @@
+package jenkins.plugins.carl;
+
+import hudson.EnvVars;
+import hudson.ExtensionPoint;
+import hudson.Launcher;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import java.util.List;
+import javax.annotation.CheckForNull;
+
+// how CarlQG.exe is started on a node: natively under Windows, or through a compatibility layer or wrapper command
+public abstract class CarlExecutionBackend extends AbstractDescribableImpl<CarlExecutionBackend> implements ExtensionPoint {
+    
+    // null when the backend can run on the node of this launcher, otherwise the reason why it cannot
+    public @CheckForNull String checkSupported(Launcher launcher)  {
+        return null;
+        }
+    
+    public abstract List<String> getCommand(List<String> carlCommand, Launcher launcher);
+    
+    public void buildEnvVars(EnvVars env)  { }
+    
+    public static abstract class CarlExecutionBackendDescriptor extends Descriptor<CarlExecutionBackend>  { }
+    
+    }
@@ -0,0 +1,66 @@
+package jenkins.plugins.carl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// outcome history of the Carl processes per installation, since the controller started
+public class CarlHealth {
+    
+    static final int HISTORY_SIZE = 50;
+    
+    private static final CarlHealth INSTANCE = new CarlHealth();
+    
+    private final Map<String, Statistics> statistics = new TreeMap<>();
+    
+    static public CarlHealth get()  {
+        return INSTANCE;
+        }
+    
+    static public class Statistics  {
+        private final Map<CarlProcessMonitor.Outcome, Long> counts = new EnumMap<>(CarlProcessMonitor.Outcome.class);
+        private final Deque<CarlProcessMonitor.Outcome> history = new ArrayDeque<>();
+        private long lastKill;
+        
+        public synchronized long getCount(String outcome)  {
+            return counts.getOrDefault(CarlProcessMonitor.Outcome.valueOf(outcome), 0L);
+            }
+        
+        public synchronized long getTotal()  {
+            long total = 0;
+            for (long count : counts.values())
+                total += count;
+            return total;
+            }
+        
+        public synchronized long getLastKill()  { return lastKill; }
+        
+        // percentage of the last analyses that completed
+        public synchronized int getScore()  {
+            if (history.isEmpty())
+                return 100;
+            long completed = history.stream().filter(outcome -> outcome == CarlProcessMonitor.Outcome.COMPLETED).count();
+            return (int) (100 * completed / history.size());
+            }
+        
+        synchronized void add(CarlProcessMonitor.Outcome outcome)  {
+            counts.merge(outcome, 1L, Long::sum);
+            history.addLast(outcome);
+            if (history.size() > HISTORY_SIZE)
+                history.removeFirst();
+            if (outcome != CarlProcessMonitor.Outcome.COMPLETED)
+                lastKill = System.currentTimeMillis();
+            }
+        }
+    
+    public synchronized void record(String installationName, CarlProcessMonitor.Outcome outcome)  {
+        statistics.computeIfAbsent(installationName, k -> new Statistics()).add(outcome);
+        }
+    
+    public synchronized Map<String, Statistics> getStatistics()  {
+        return new TreeMap<>(statistics);
+        }
+    
+    }
@@ -12,28 +12,45 @@ import hudson.tools.ToolDescriptor;
 import hudson.tools.ToolInstallation;
 import hudson.tools.ToolInstaller;
 import hudson.tools.ToolProperty;
-import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.CheckForNull;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 public class CarlInstallation extends ToolInstallation implements NodeSpecific<CarlInstallation>, EnvironmentSpecific<CarlInstallation> {
     
+    private CarlExecutionBackend backend;
+    
     @DataBoundConstructor
     public CarlInstallation(String name, String home, List<? extends ToolProperty<?>> properties)  {
         super(name, home, properties);
         }
+    
+    @DataBoundSetter
+    public void setBackend(CarlExecutionBackend backend)  {
+        this.backend = backend;
+        }
+    
+    public CarlExecutionBackend getBackend()  {
+        return (backend == null) ? new CarlNativeBackend() : backend;
+        }
 
     @Override
     public CarlInstallation forNode(Node node, TaskListener listener) throws IOException, InterruptedException  {
-        return new CarlInstallation(getName(), translateFor(node, listener), getProperties().toList());
+        CarlInstallation installation = new CarlInstallation(getName(), translateFor(node, listener), getProperties().toList());
+        installation.backend = backend;
+        return installation;
         }
 
     @Override
     public CarlInstallation forEnvironment(EnvVars environment)  {
-        return new CarlInstallation(getName(), environment.expand(getHome()), getProperties().toList());
+        CarlInstallation installation = new CarlInstallation(getName(), environment.expand(getHome()), getProperties().toList());
+        installation.backend = backend;
+        return installation;
         }
 
     @Override
@@ -49,32 +66,24 @@ public class CarlInstallation extends ToolInstallation implements NodeSpecific<C
         }
     
     static public @CheckForNull CarlInstallation fromName(String name)  {
-        for (CarlInstallation installation : list())  {
-            if (installation.getName().equals(name))
-                return installation;
-            }
-        return null;
+        DescriptorImpl descriptor = ToolInstallation.all().get(DescriptorImpl.class);
+        return (descriptor == null) ? null : descriptor.getInstallation(name);
         }
     
-    static public @CheckForNull FilePath getExecutableFile(String installationName, Node node, EnvVars env, TaskListener listener) throws IOException, InterruptedException  {
+    static public @CheckForNull CarlToolCache.Resolved resolve(String installationName, Node node, EnvVars env, TaskListener listener) throws IOException, InterruptedException  {
         CarlInstallation installation = fromName(installationName);
-        if (installation == null)
-            return null;
-        if (node != null)
-            installation = installation.forNode(node, listener);
-        if (env != null)
-            installation = installation.forEnvironment(env);
-        String home = installation.getHome();
-        if (home == null)
-            return null;
-        
-        File homeFile = new File(home);
-        FilePath homeFilePath = (node == null) ? new FilePath(homeFile) : node.createPath(home);
-        return (homeFilePath == null) ? null : homeFilePath.child("CarlQG.exe");
+        return (installation == null) ? null : CarlToolCache.resolve(installation, node, env, listener);
+        }
+    
+    static public @CheckForNull FilePath getExecutableFile(String installationName, Node node, EnvVars env, TaskListener listener) throws IOException, InterruptedException  {
+        CarlToolCache.Resolved resolved = resolve(installationName, node, env, listener);
+        return (resolved == null) ? null : resolved.getExecutable();
         }
     
     @Extension @Symbol("carl")
     public static class DescriptorImpl extends ToolDescriptor<CarlInstallation>  {
+        private transient volatile Map<String, CarlInstallation> installationsByName;
+        
         public DescriptorImpl()  {
             load();
             }
@@ -92,8 +101,21 @@ public class CarlInstallation extends ToolInstallation implements NodeSpecific<C
         @Override
         public void setInstallations(CarlInstallation... installations) {
             super.setInstallations(installations);
+            installationsByName = null;
+            CarlToolCache.invalidate();
             save();
             }
+        
+        public @CheckForNull CarlInstallation getInstallation(String name)  {
+            Map<String, CarlInstallation> byName = installationsByName;
+            if (byName == null)  {
+                byName = new HashMap<>();
+                for (CarlInstallation installation : getInstallations())
+                    byName.putIfAbsent(installation.getName(), installation);
+                installationsByName = byName;
+                }
+            return byName.get(name);
+            }
 
         @Override
         public List<? extends ToolInstaller> getDefaultInstallers() {
@@ -0,0 +1,24 @@
+package jenkins.plugins.carl;
+
+import com.codahale.metrics.MetricRegistry;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jenkins.metrics.api.Metrics;
+
+// must only be loaded when the optional metrics plugin is installed
+public class CarlMetrics {
+    
+    static final String PREFIX = "jenkins.plugins.carl";
+    
+    static public void export(CarlTimingAction timing)  {
+        MetricRegistry registry = Metrics.metricRegistry();
+        for (Map.Entry<String, Long> phase : timing.getPhases().entrySet())
+            registry.timer(MetricRegistry.name(PREFIX, "phase", phase.getKey().replace(' ', '-'))).update(phase.getValue(), TimeUnit.MILLISECONDS);
+        registry.timer(MetricRegistry.name(PREFIX, "total")).update(timing.getTotalTime(), TimeUnit.MILLISECONDS);
+        if (timing.getPeakWorkingSet() >= 0)  {
+            registry.histogram(MetricRegistry.name(PREFIX, "process", "peak-working-set")).update(timing.getPeakWorkingSet());
+            registry.histogram(MetricRegistry.name(PREFIX, "process", "cpu-time")).update(timing.getCpuTime());
+            }
+        }
+    
+    }
@@ -0,0 +1,32 @@
+package jenkins.plugins.carl;
+
+import hudson.Extension;
+import hudson.Launcher;
+import java.util.List;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+public class CarlNativeBackend extends CarlExecutionBackend {
+    
+    @DataBoundConstructor
+    public CarlNativeBackend()  { }
+    
+    @Override
+    public String checkSupported(Launcher launcher)  {
+        return launcher.isUnix() ? "Carl plugin can only work under Windows! Use a Wine or wrapper execution backend to run it on other agents." : null;
+        }
+    
+    @Override
+    public List<String> getCommand(List<String> carlCommand, Launcher launcher)  {
+        return carlCommand;
+        }
+    
+    @Extension @Symbol("native")
+    public static class DescriptorImpl extends CarlExecutionBackendDescriptor  {
+        @Override
+        public String getDisplayName()  {
+            return Messages.Carl_NativeBackend_DisplayName();
+            }
+        }
+    
+    }
@@ -0,0 +1,286 @@
+package jenkins.plugins.carl;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+
+// archived Carl output folders: each build keeps a manifest of its files, whose contents are stored once per job
+// by hash, so that files unchanged since the previous build are neither transferred nor stored again
+public class CarlOutputArchive {
+    
+    static final String STORE_DIRECTORY     = "carl-output-store";
+    static final String MANIFEST_DIRECTORY  = "carl-output";
+    static final String MANIFEST_SUFFIX     = ".manifest";
+    static final String OBJECT_SUFFIX       = ".gz";
+    static final int PREVIOUS_BUILD_LOOKUP  = 10;
+    
+    private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+    
+    // manifest entry of a file: content hash and size
+    static public class Entry  {
+        final String hash;
+        final long size;
+        
+        Entry(String hash, long size)  { this.hash = hash;  this.size = size; }
+        
+        static Entry parse(String value)  {
+            String[] parts = value.trim().split(" ");
+            if ((parts.length != 2) || !parts[0].matches("[0-9a-f]{64}") || !parts[1].matches("\\d+"))
+                throw new IllegalArgumentException("Invalid Carl output manifest entry: " + value);
+            return new Entry(parts[0], Long.parseLong(parts[1]));
+            }
+        
+        @Override
+        public String toString()  { return hash + " " + size; }
+        }
+    
+    static File getStore(Job<?, ?> job)  {
+        return new File(job.getRootDir(), STORE_DIRECTORY);
+        }
+    
+    // the manifests of older builds were named without the hash
+    static File getManifestFile(Run<?, ?> run, String applicationName)  {
+        File directory = new File(run.getRootDir(), MANIFEST_DIRECTORY);
+        File file = new File(directory, CarlBuildAction.getSafeName(applicationName) + MANIFEST_SUFFIX);
+        File legacyFile = new File(directory, applicationName.replaceAll("[^A-Za-z0-9._-]", "_") + MANIFEST_SUFFIX);
+        return (!file.exists() && legacyFile.exists()) ? legacyFile : file;
+        }
+    
+    // archives outputFolder for the build, and returns the number of files
+    static public int archive(Run<?, ?> run, FilePath outputFolder, String applicationName, TaskListener listener) throws IOException, InterruptedException  {
+        File store = getStore(run.getParent());
+        Files.createDirectories(store.toPath());
+        Set<String> known = new HashSet<>();
+        for (Entry entry : readManifest(findPreviousManifest(run, applicationName)).values())  {
+            if (new File(store, entry.hash + OBJECT_SUFFIX).isFile())
+                known.add(entry.hash);
+            }
+        File incoming = new File(store, ".incoming-" + UUID.randomUUID() + ".tar.gz");
+        try {
+            Map<String, String> manifest;
+            try (OutputStream out = Files.newOutputStream(incoming.toPath()))  {
+                manifest = outputFolder.act(new Pack(known, new RemoteOutputStream(out)));
+                }
+            Map<String, Entry> entries = new TreeMap<>();
+            for (Map.Entry<String, String> file : manifest.entrySet())
+                entries.put(checkPath(file.getKey()), Entry.parse(file.getValue()));
+            int transferred;
+            synchronized (LOCKS.computeIfAbsent(store.getPath(), k -> new Object()))  {
+                transferred = importObjects(incoming, store);
+                for (Map.Entry<String, Entry> file : entries.entrySet())  {
+                    if (!new File(store, file.getValue().hash + OBJECT_SUFFIX).isFile())
+                        throw new IOException(String.format("Carl output file %s was not archived", file.getKey()));
+                    }
+                writeManifest(getManifestFile(run, applicationName), entries);
+                prune(run.getParent(), store);
+                }
+            listener.getLogger().printf("Archived %d Carl output file(s): %d transferred (%d KB compressed), %d unchanged.%n",
+                    entries.size(), transferred, incoming.length() / 1024, entries.size() - transferred);
+            return entries.size();
+            }
+        finally {
+            Files.deleteIfExists(incoming.toPath());
+            }
+        }
+    
+    // restores the output folder archived by the build into target, and returns the number of files
+    static public int restore(Run<?, ?> run, String applicationName, FilePath target) throws IOException, InterruptedException  {
+        File manifestFile = getManifestFile(run, applicationName);
+        if (!manifestFile.isFile())
+            throw new AbortException(String.format("No Carl output of %s archived by %s", applicationName, run.getFullDisplayName()));
+        Map<String, Entry> entries = readManifest(manifestFile);
+        File store = getStore(run.getParent());
+        File bundle = File.createTempFile("carl-output", ".tar.gz");
+        try {
+            try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(bundle.toPath())))))  {
+                tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+                tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+                for (Map.Entry<String, Entry> file : entries.entrySet())  {
+                    File object = new File(store, file.getValue().hash + OBJECT_SUFFIX);
+                    if (!object.isFile())
+                        throw new AbortException(String.format("Archived Carl output file %s is missing", file.getKey()));
+                    TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+                    entry.setSize(file.getValue().size);
+                    tar.putArchiveEntry(entry);
+                    try (InputStream in = new GZIPInputStream(Files.newInputStream(object.toPath())))  {
+                        IOUtils.copy(in, tar);
+                        }
+                    tar.closeArchiveEntry();
+                    }
+                }
+            target.mkdirs();
+            try (InputStream in = Files.newInputStream(bundle.toPath()))  {
+                target.untarFrom(in, FilePath.TarCompression.GZIP);
+                }
+            }
+        finally {
+            Files.deleteIfExists(bundle.toPath());
+            }
+        return entries.size();
+        }
+    
+    static File findPreviousManifest(Run<?, ?> run, String applicationName)  {
+        Run<?, ?> previous = run.getPreviousBuild();
+        for (int i=0; (previous != null) && (i < PREVIOUS_BUILD_LOOKUP); i++, previous = previous.getPreviousBuild())  {
+            File manifestFile = getManifestFile(previous, applicationName);
+            if (manifestFile.isFile())
+                return manifestFile;
+            }
+        return getManifestFile(run, applicationName);
+        }
+    
+    static Map<String, Entry> readManifest(File manifestFile) throws IOException  {
+        Map<String, Entry> entries = new TreeMap<>();
+        if (!manifestFile.isFile())
+            return entries;
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(manifestFile.toPath()))  {
+            properties.load(in);
+            }
+        for (String path : properties.stringPropertyNames())
+            entries.put(path, Entry.parse(properties.getProperty(path)));
+        return entries;
+        }
+    
+    static void writeManifest(File manifestFile, Map<String, Entry> entries) throws IOException  {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Entry> entry : entries.entrySet())
+            properties.setProperty(entry.getKey(), entry.getValue().toString());
+        Files.createDirectories(manifestFile.getParentFile().toPath());
+        Path temp = manifestFile.toPath().resolveSibling(manifestFile.getName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp))  {
+            properties.store(out, null);
+            }
+        Files.move(temp, manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    
+    // moves the objects of a bundle received from an agent into the store, and returns their number
+    static int importObjects(File bundle, File store) throws IOException  {
+        int count = 0;
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(bundle.toPath())))))  {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null)  {
+                if (!entry.getName().matches("[0-9a-f]{64}"))
+                    throw new IOException("Invalid Carl output object " + entry.getName());
+                count++;
+                Path object = new File(store, entry.getName() + OBJECT_SUFFIX).toPath();
+                if (Files.exists(object))
+                    continue;
+                Path temp = object.resolveSibling(object.getFileName() + ".tmp-" + UUID.randomUUID());
+                // the name of an object is only trusted once its contents match it
+                MessageDigest digest = CarlResultCache.newDigest();
+                try {
+                    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp)))  {
+                        IOUtils.copy(new DigestInputStream(tar, digest), out);
+                        }
+                    if (!Util.toHexString(digest.digest()).equals(entry.getName()))
+                        throw new IOException("Corrupted Carl output object " + entry.getName());
+                    Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                finally {
+                    Files.deleteIfExists(temp);
+                    }
+                }
+            }
+        return count;
+        }
+    
+    // removes the objects no longer referenced by the manifest of any build of the job
+    static void prune(Job<?, ?> job, File store) throws IOException  {
+        Set<String> referenced = new HashSet<>();
+        File[] builds = job.getBuildDir().listFiles();
+        for (File build : (builds == null) ? new File[0] : builds)  {
+            File[] manifests = new File(build, MANIFEST_DIRECTORY).listFiles((dir, name) -> name.endsWith(MANIFEST_SUFFIX));
+            for (File manifest : (manifests == null) ? new File[0] : manifests)  {
+                for (Entry entry : readManifest(manifest).values())
+                    referenced.add(entry.hash);
+                }
+            }
+        try (Stream<Path> objects = Files.list(store.toPath()))  {
+            for (Path object : objects.filter(path -> path.getFileName().toString().endsWith(OBJECT_SUFFIX)).collect(Collectors.toList()))  {
+                String name = object.getFileName().toString();
+                if (!referenced.contains(name.substring(0, name.length() - OBJECT_SUFFIX.length())))
+                    Files.deleteIfExists(object);
+                }
+            }
+        }
+    
+    static String checkPath(String path) throws IOException  {
+        if (path.isEmpty() || path.startsWith("/") || path.contains("\\") || path.contains(":") || Stream.of(path.split("/")).anyMatch(part -> part.isEmpty() || part.equals("..")))
+            throw new IOException("Invalid Carl output file " + path);
+        return path;
+        }
+    
+    // hashes the files of the output folder and streams the ones with unknown contents as a single compressed tar
+    static final class Pack implements FilePath.FileCallable<Map<String, String>>  {
+        private static final long serialVersionUID = 1L;
+        private final Set<String> known;
+        private final OutputStream out;
+        
+        Pack(Set<String> known, OutputStream out)  {
+            this.known  = known;
+            this.out    = out;
+            }
+        
+        @Override
+        public Map<String, String> invoke(File f, VirtualChannel channel) throws IOException  {
+            Map<String, String> manifest = new TreeMap<>();
+            Set<String> sent = new HashSet<>(known);
+            Path root = f.toPath();
+            try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(new BufferedOutputStream(out, 1 << 16)));
+                 Stream<Path> walk = Files.exists(root) ? Files.walk(root) : Stream.empty())  {
+                tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+                for (Path file : walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList()))  {
+                    String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+                    String hash = CarlArchiveInstaller.Install.digest(file);
+                    long size = Files.size(file);
+                    manifest.put(path, new Entry(hash, size).toString());
+                    if (!sent.add(hash))
+                        continue;
+                    TarArchiveEntry entry = new TarArchiveEntry(hash);
+                    entry.setSize(size);
+                    tar.putArchiveEntry(entry);
+                    Files.copy(file, tar);
+                    tar.closeArchiveEntry();
+                    }
+                }
+            return manifest;
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    }
@@ -0,0 +1,97 @@
+package jenkins.plugins.carl;
+
+import hudson.console.LineTransformationOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+// keeps the build log small: the full Carl output goes to a compressed file, the console only gets its head, problems and throttled progress
+public class CarlOutputFilter extends LineTransformationOutputStream {
+    
+    static final int HEAD_LINES         = 20;
+    static final int MAX_PROBLEM_LINES  = 200;
+    static final long PROGRESS_PERIOD   = TimeUnit.SECONDS.toMillis(10);
+    static final Pattern COUNT_PROGRESS     = Pattern.compile("(\\d+)\\s*(?:/|of)\\s*(\\d+)");
+    static final Pattern PERCENT_PROGRESS   = Pattern.compile("(\\d{1,3}(?:[.,]\\d+)?)\\s*%");
+    static final Pattern PROBLEM            = Pattern.compile("(?i)\\b(error|exception|fail(ed|ure)?|warning)\\b");
+    
+    private final PrintStream logger;
+    private final OutputStream raw;
+    private final Charset charset;
+    private final CarlProgressAction progress;
+    private long lineCount;
+    private long writtenCount;
+    private int problemCount;
+    private long lastProgressPrint;
+    
+    public CarlOutputFilter(PrintStream logger, File rawFile, Charset charset, CarlProgressAction progress) throws IOException  {
+        this.logger     = logger;
+        this.raw        = new GZIPOutputStream(new FileOutputStream(rawFile), 1 << 16);
+        this.charset    = charset;
+        this.progress   = progress;
+        }
+    
+    @Override
+    protected void eol(byte[] b, int len) throws IOException  {
+        raw.write(b, 0, len);
+        lineCount++;
+        String line = trimEOL(new String(b, 0, len, charset));
+        boolean isProgress = parseProgress(line);
+        if (lineCount <= HEAD_LINES)
+            print(line);
+        else  if (PROBLEM.matcher(line).find() && (problemCount < MAX_PROBLEM_LINES))  {
+            problemCount++;
+            print(line);
+            }
+        else  if (isProgress && (System.currentTimeMillis() - lastProgressPrint >= PROGRESS_PERIOD))  {
+            lastProgressPrint = System.currentTimeMillis();
+            logger.println("Carl progress: " + progress.getDescription());
+            }
+        }
+    
+    protected boolean parseProgress(String line)  {
+        Matcher matcher = COUNT_PROGRESS.matcher(line);
+        if (matcher.find())  {
+            try {
+                long done   = Long.parseLong(matcher.group(1));
+                long total  = Long.parseLong(matcher.group(2));
+                if ((total > 0) && (done <= total))  {
+                    progress.update(done, total);
+                    return true;
+                    }
+                }
+            catch (NumberFormatException e)  { }
+            }
+        matcher = PERCENT_PROGRESS.matcher(line);
+        if (matcher.find())  {
+            double percent = Double.parseDouble(matcher.group(1).replace(',', '.'));
+            if (percent <= 100)  {
+                progress.update(Math.round(percent * 10), 1000);
+                return true;
+                }
+            }
+        return false;
+        }
+    
+    private void print(String line)  {
+        writtenCount++;
+        logger.println(line);
+        }
+    
+    @Override
+    public void close() throws IOException  {
+        super.close();
+        raw.close();
+        progress.finish(lineCount);
+        if (lineCount > writtenCount)
+            logger.printf("(%d of %d line(s) of Carl output shown, full output available from the build page)%n", writtenCount, lineCount);
+        }
+    
+    }
@@ -0,0 +1,116 @@
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import javax.annotation.CheckForNull;
+
+// exclusive use of workspace paths by one Carl analysis at a time, so that concurrent builds or parallel
+// branches sharing result folders wait for each other instead of deleting each other's results
+public class CarlPathLock implements AutoCloseable {
+    
+    private static final Map<String, Holder> LOCKS = new HashMap<>();
+    
+    static private class Holder  {
+        final Semaphore semaphore = new Semaphore(1);
+        int users;
+        }
+    
+    private final List<String> keys;
+    
+    private CarlPathLock(List<String> keys)  {
+        this.keys = keys;
+        }
+    
+    // locks are taken in a global order, so that analyses sharing several paths cannot deadlock
+    static public CarlPathLock acquire(TaskListener listener, FilePath... paths) throws InterruptedException  {
+        TreeSet<String> keys = new TreeSet<>();
+        for (FilePath path : paths)
+            keys.add(getKey(path));
+        List<String> acquired = new ArrayList<>();
+        try {
+            for (String key : keys)  {
+                Semaphore semaphore = reference(key);
+                try {
+                    if (!semaphore.tryAcquire())  {
+                        listener.getLogger().printf("Waiting for another Carl analysis using %s...%n", key.substring(key.indexOf('@') + 1));
+                        semaphore.acquire();
+                        }
+                    }
+                catch (InterruptedException e)  {
+                    dereference(key);
+                    throw e;
+                    }
+                acquired.add(key);
+                }
+            }
+        catch (InterruptedException e)  {
+            release(acquired);
+            throw e;
+            }
+        return new CarlPathLock(acquired);
+        }
+    
+    // all the paths or none, without waiting, for callers that must not hold a thread
+    static public @CheckForNull CarlPathLock tryAcquire(FilePath... paths)  {
+        TreeSet<String> keys = new TreeSet<>();
+        for (FilePath path : paths)
+            keys.add(getKey(path));
+        List<String> acquired = new ArrayList<>();
+        for (String key : keys)  {
+            if (!reference(key).tryAcquire())  {
+                dereference(key);
+                release(acquired);
+                return null;
+                }
+            acquired.add(key);
+            }
+        return new CarlPathLock(acquired);
+        }
+    
+    static boolean isLocked(FilePath path)  {
+        synchronized (LOCKS)  {
+            return LOCKS.containsKey(getKey(path));
+            }
+        }
+    
+    @Override
+    public void close()  {
+        release(keys);
+        }
+    
+    static private String getKey(FilePath path)  {
+        return path.getChannel() + "@" + path.getRemote();
+        }
+    
+    static private Semaphore reference(String key)  {
+        synchronized (LOCKS)  {
+            Holder holder = LOCKS.computeIfAbsent(key, k -> new Holder());
+            holder.users++;
+            return holder.semaphore;
+            }
+        }
+    
+    static private void dereference(String key)  {
+        synchronized (LOCKS)  {
+            Holder holder = LOCKS.get(key);
+            if ((holder != null) && (--holder.users == 0))
+                LOCKS.remove(key);
+            }
+        }
+    
+    static private void release(List<String> keys)  {
+        for (String key : keys)  {
+            synchronized (LOCKS)  {
+                LOCKS.get(key).semaphore.release();
+                }
+            dereference(key);
+            }
+        }
+    
+    }
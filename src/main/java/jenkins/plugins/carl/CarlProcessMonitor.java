@@ -0,0 +1,257 @@
+package jenkins.plugins.carl;
+
+import hudson.AbortException;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
+import jenkins.security.MasterToSlaveCallable;
+
+public class CarlProcessMonitor {
+    
+    private static final Logger LOGGER = Logger.getLogger(CarlProcessMonitor.class.getName());
+    static final long POLL_PERIOD   = 500;
+    static final long SAMPLE_PERIOD         = TimeUnit.SECONDS.toMillis(5);
+    static final long USAGE_SAMPLE_PERIOD   = TimeUnit.MINUTES.toMillis(1);   // for the timing only, without limits to enforce
+    static final long SAMPLE_TIMEOUT        = TimeUnit.SECONDS.toMillis(30);
+    // one line per process: ProcessId|KernelModeTime|PeakWorkingSetSize|UserModeTime|CommandLine, times in 100 ns and sizes in KB
+    static final String SAMPLE_SCRIPT = "$ErrorActionPreference = 'Stop'; "
+            + "Get-CimInstance -ClassName Win32_Process -Filter \"Name = 'CarlQG.exe'\" | ForEach-Object { "
+            + "'{0}|{1}|{2}|{3}|{4}' -f $_.ProcessId, $_.KernelModeTime, $_.PeakWorkingSetSize, $_.UserModeTime, $_.CommandLine }";
+    
+    public enum Outcome  { COMPLETED, TIMEOUT, IDLE_TIMEOUT, MEMORY_LIMIT, CPU_LIMIT }
+    
+    static public class LimitExceededException extends AbortException  {
+        private static final long serialVersionUID = 1L;
+        private final Outcome outcome;
+        
+        LimitExceededException(Outcome outcome, String message)  {
+            super(message);
+            this.outcome = outcome;
+            }
+        
+        public Outcome getOutcome()  { return outcome; }
+        }
+    
+    private final VirtualChannel channel;
+    private final TaskListener listener;
+    private final String marker;
+    private final Map<String, long[]> processes = new HashMap<>();
+    private final long startTime = System.currentTimeMillis();
+    private volatile long lastActivity = startTime;
+    private boolean sampling;
+    private long lastSample = startTime;
+    private long timeout;           // all limits in ms or KB, 0 when unlimited
+    private long idleTimeout;
+    private long maxWorkingSet;
+    private long maxCpuTime;
+    
+    public CarlProcessMonitor(Launcher launcher, TaskListener listener, String marker)  {
+        this.channel    = launcher.getChannel();
+        this.listener   = listener;
+        this.marker     = marker;
+        this.sampling   = !launcher.isUnix() && (channel != null);
+        }
+    
+    public void setLimits(long timeout, long idleTimeout, long maxWorkingSet, long maxCpuTime)  {
+        this.timeout        = timeout;
+        this.idleTimeout    = idleTimeout;
+        this.maxWorkingSet  = maxWorkingSet;
+        this.maxCpuTime     = maxCpuTime;
+        if (hasResourceLimits() && !sampling)
+            listener.getLogger().println("WARNING: Carl memory and CPU time limits can only be enforced on Windows agents: ignored.");
+        }
+    
+    protected boolean hasResourceLimits()  {
+        return (maxWorkingSet > 0) || (maxCpuTime > 0);
+        }
+    
+    // each sample starts PowerShell on the agent: often only when there are limits to enforce
+    protected long getSamplePeriod()  {
+        return hasResourceLimits() ? SAMPLE_PERIOD : USAGE_SAMPLE_PERIOD;
+        }
+    
+    public int join(Launcher.Proc proc) throws IOException, InterruptedException  {
+        try {
+            while (proc.isAlive())  {
+                LimitExceededException exceeded = poll();
+                if (exceeded != null)  {
+                    proc.kill();
+                    throw exceeded;
+                    }
+                Thread.sleep(POLL_PERIOD);
+                }
+            }
+        catch (InterruptedException e)  {
+            proc.kill();
+            throw e;
+            }
+        return proc.join();
+        }
+    
+    // samples the resource usage when due, then checks the limits: for callers polling a process they did not start
+    public @CheckForNull LimitExceededException poll() throws InterruptedException  {
+        long now = System.currentTimeMillis();
+        if (sampling && (now - lastSample >= getSamplePeriod()))  {
+            sample();
+            lastSample = now;
+            }
+        return checkLimits(now);
+        }
+    
+    // activity for the idle timeout, when the output is not written through watch()
+    public void touch()  {
+        lastActivity = System.currentTimeMillis();
+        }
+    
+    protected @CheckForNull LimitExceededException checkLimits(long now)  {
+        if ((timeout > 0) && (now - startTime > timeout))
+            return new LimitExceededException(Outcome.TIMEOUT, String.format("Carl analysis killed after running for more than %d min!", TimeUnit.MILLISECONDS.toMinutes(timeout)));
+        if ((idleTimeout > 0) && (now - lastActivity > idleTimeout))
+            return new LimitExceededException(Outcome.IDLE_TIMEOUT, String.format("Carl analysis killed after writing no output for %d min!", TimeUnit.MILLISECONDS.toMinutes(idleTimeout)));
+        if ((maxWorkingSet > 0) && (getPeakWorkingSet() > maxWorkingSet))
+            return new LimitExceededException(Outcome.MEMORY_LIMIT, String.format("Carl analysis killed for using more than %d MB of memory!", maxWorkingSet / 1024));
+        if ((maxCpuTime > 0) && (getCpuTime() > maxCpuTime))
+            return new LimitExceededException(Outcome.CPU_LIMIT, String.format("Carl analysis killed for using more than %d min of CPU time!", TimeUnit.MILLISECONDS.toMinutes(maxCpuTime)));
+        return null;
+        }
+    
+    // output written to the returned stream counts as activity for the idle timeout
+    public OutputStream watch(OutputStream out)  {
+        return new OutputStream()  {
+            @Override
+            public void write(int b) throws IOException  {
+                lastActivity = System.currentTimeMillis();
+                out.write(b);
+                }
+            
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException  {
+                lastActivity = System.currentTimeMillis();
+                out.write(b, off, len);
+                }
+            
+            @Override
+            public void flush() throws IOException  {
+                out.flush();
+                }
+            };
+        }
+    
+    protected void sample() throws InterruptedException  {
+        try {
+            processes.putAll(channel.call(new Sample(marker)));
+            }
+        catch (IOException e)  {
+            LOGGER.log(Level.FINE, "Cannot sample CarlQG.exe resource usage", e);
+            sampling = false;
+            if (hasResourceLimits())
+                listener.getLogger().printf("WARNING: Cannot sample CarlQG.exe resource usage (%s): Carl memory and CPU time limits are no longer enforced.%n", e.getMessage());
+            }
+        }
+    
+    public boolean hasSamples()  { return !processes.isEmpty(); }
+    
+    public long getPeakWorkingSet()  {
+        long peak = 0;
+        for (long[] usage : processes.values())
+            peak = Math.max(peak, usage[0]);
+        return peak;
+        }
+    
+    public long getCpuTime()  {
+        long total = 0;
+        for (long[] usage : processes.values())
+            total += usage[1];
+        return total;
+        }
+    
+    static final class Sample extends MasterToSlaveCallable<HashMap<String, long[]>, IOException> {
+        private static final long serialVersionUID = 1L;
+        private final String marker;
+        
+        Sample(String marker)  {
+            this.marker = marker;
+            }
+        
+        @Override
+        public HashMap<String, long[]> call() throws IOException  {
+            String encoded = Base64.getEncoder().encodeToString(SAMPLE_SCRIPT.getBytes(StandardCharsets.UTF_16LE));
+            Process process = new ProcessBuilder("powershell.exe", "-NoProfile", "-NonInteractive", "-EncodedCommand", encoded).redirectErrorStream(true).start();
+            process.getOutputStream().close();
+            HashMap<String, long[]> usages = new HashMap<>();
+            // read aside, so that a hung PowerShell cannot block the call
+            List<String> lines = Collections.synchronizedList(new ArrayList<>());
+            Thread reader = new Thread(() -> read(process, lines), "Carl resource sampling");
+            reader.setDaemon(true);
+            reader.start();
+            try {
+                if (!process.waitFor(SAMPLE_TIMEOUT, TimeUnit.MILLISECONDS))  {
+                    process.destroyForcibly();
+                    throw new IOException(String.format("PowerShell did not answer within %d s", TimeUnit.MILLISECONDS.toSeconds(SAMPLE_TIMEOUT)));
+                    }
+                reader.join(SAMPLE_TIMEOUT);
+                }
+            catch (InterruptedException e)  {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                return usages;
+                }
+            StringBuilder errors = new StringBuilder();
+            synchronized (lines)  {
+                for (String line : lines)  {
+                    if (!parse(line, marker, usages) && !line.trim().isEmpty() && (errors.length() < 500))
+                        errors.append(line.trim()).append(' ');
+                    }
+                }
+            if (process.exitValue() != 0)
+                throw new IOException(String.format("PowerShell exited with status %d %s", process.exitValue(), errors.toString().trim()));
+            return usages;
+            }
+        
+        static private void read(Process process, List<String> lines)  {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), Charset.defaultCharset())))  {
+                String line;
+                while ((line = reader.readLine()) != null)
+                    lines.add(line);
+                }
+            catch (IOException e)  {
+                LOGGER.log(Level.FINE, "Cannot read PowerShell output", e);
+                }
+            }
+        
+        // returns false when the line is not a process line
+        static boolean parse(String line, String marker, Map<String, long[]> usages)  {
+            String[] fields = line.trim().split("\\|", 5);
+            if ((fields.length < 5) || !fields[0].matches("\\d+"))
+                return false;
+            try {
+                long kernelTime     = Long.parseLong(fields[1]);
+                long peakWorkingSet = Long.parseLong(fields[2]);
+                long userTime       = Long.parseLong(fields[3]);
+                if (fields[4].contains(marker))
+                    usages.put(fields[0], new long[] { peakWorkingSet, (kernelTime + userTime) / 10000 });
+                return true;
+                }
+            catch (NumberFormatException e)  {
+                return false;
+                }
+            }
+        }
+    
+    }
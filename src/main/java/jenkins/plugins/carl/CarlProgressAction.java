@@ -0,0 +1,116 @@
+package jenkins.plugins.carl;
+
+import hudson.model.Run;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.http.HttpServletResponse;
+import jenkins.model.RunAction2;
+import org.apache.commons.io.IOUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+public class CarlProgressAction implements RunAction2 {
+    
+    private final String applicationName;
+    private final String outputFileName;
+    private final String charset;       // of the raw output, the default one of the agent
+    private final long startTime;
+    private volatile long done;
+    private volatile long total;
+    private volatile long lineCount;
+    private volatile boolean finished;
+    private transient Run<?, ?> run;
+    
+    public CarlProgressAction(String applicationName, Charset charset)  {
+        this.applicationName    = applicationName;
+        this.outputFileName     = "carl-" + CarlBuildAction.getSafeName(applicationName) + "-output.log.gz";
+        this.charset            = charset.name();
+        this.startTime          = System.currentTimeMillis();
+        }
+    
+    @Override
+    public void onAttached(Run<?, ?> run)  {
+        this.run = run;
+        }
+
+    @Override
+    public void onLoad(Run<?, ?> run)  {
+        this.run = run;
+        }
+    
+    public void update(long done, long total)  {
+        this.total  = total;
+        this.done   = done;
+        }
+    
+    public void finish(long lineCount)  {
+        this.lineCount  = lineCount;
+        this.finished   = true;
+        }
+    
+    public String getApplicationName()  { return applicationName; }
+    public long getDone()               { return done; }
+    public long getTotal()              { return total; }
+    public long getLineCount()          { return lineCount; }
+    public boolean isFinished()         { return finished; }
+    
+    // the actions recorded by the earlier versions have no charset and assumed UTF-8
+    public String getCharset()  {
+        return (charset == null) ? "UTF-8" : charset;
+        }
+    
+    public File getOutputFile()  {
+        return new File(run.getRootDir(), outputFileName);
+        }
+    
+    public int getPercent()  {
+        long total = this.total;
+        return (total <= 0) ? 0 : (int) (100 * done / total);
+        }
+    
+    // -1 when unknown
+    public long getRemainingSeconds()  {
+        long done = this.done, total = this.total;
+        if ((done <= 0) || (total <= 0) || finished)
+            return -1;
+        long elapsed = System.currentTimeMillis() - startTime;
+        return TimeUnit.MILLISECONDS.toSeconds(elapsed * (total - done) / done);
+        }
+    
+    public String getDescription()  {
+        long remaining = getRemainingSeconds();
+        String description = String.format("%d/%d (%d%%)", done, total, getPercent());
+        return (remaining < 0) ? description : String.format("%s, about %d min %02d s left", description, remaining / 60, remaining % 60);
+        }
+    
+    public void doOutput(StaplerRequest req, StaplerResponse rsp) throws IOException  {
+        File file = getOutputFile();
+        if (!finished || !file.isFile())  {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+            }
+        rsp.setContentType("text/plain;charset=" + getCharset());
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()));
+             OutputStream out = rsp.getOutputStream())  {
+            IOUtils.copy(in, out);
+            }
+        }
+    
+    @Override
+    public String getIconFileName()  { return null; }
+
+    @Override
+    public String getDisplayName()  { return "Carl progress of " + applicationName; }
+
+    @Override
+    public String getUrlName()  {
+        return "carl-progress-" + CarlBuildAction.getSafeName(applicationName);
+        }
+    
+    }
@@ -0,0 +1,119 @@
+package jenkins.plugins.carl;
+
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.util.DataSetBuilder;
+import hudson.util.Graph;
+import hudson.util.ShiftedCategoryAxis;
+import java.awt.Color;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import jenkins.model.TransientActionFactory;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.CategoryLabelPositions;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+public class CarlProjectAction implements Action {
+    
+    private final Job<?, ?> job;
+    
+    public CarlProjectAction(Job<?, ?> job)  {
+        this.job = job;
+        }
+    
+    @Override
+    public String getIconFileName()  {
+        return "graph.png";
+        }
+
+    @Override
+    public String getDisplayName()  {
+        return "Carl trend";
+        }
+
+    @Override
+    public String getUrlName()  {
+        return "carl-trend";
+        }
+    
+    public Job<?, ?> getJob()  { return job; }
+    
+    public List<CarlTrendIndex.Record> getRecords() throws IOException  {
+        return CarlTrendIndex.read(job);
+        }
+    
+    public void doTrend(StaplerRequest req, StaplerResponse rsp) throws IOException  {
+        final List<CarlTrendIndex.Record> records = getRecords();
+        new Graph(CarlTrendIndex.lastModified(job), 500, 200)  {
+            @Override
+            protected JFreeChart createGraph()  {
+                DataSetBuilder<String, Integer> dataSet = new DataSetBuilder<>();
+                boolean severalApplications = records.stream().map(CarlTrendIndex.Record::getApplicationName).distinct().count() > 1;
+                for (CarlTrendIndex.Record record : records)  {
+                    String prefix = severalApplications ? (record.applicationName + " ") : "";
+                    dataSet.add(record.issueCount, prefix + "issues", record.buildNumber);
+                    dataSet.add(record.fileCount, prefix + "files", record.buildNumber);
+                    dataSet.add(record.checkedRuleCount, prefix + "rules", record.buildNumber);
+                    for (Map.Entry<String, Long> violation : record.violationCounts.entrySet())
+                        dataSet.add(violation.getValue(), prefix + violation.getKey(), record.buildNumber);
+                    }
+                JFreeChart chart = ChartFactory.createLineChart(null, null, "count", dataSet.build(), PlotOrientation.VERTICAL, true, true, false);
+                chart.setBackgroundPaint(Color.WHITE);
+                CategoryPlot plot = chart.getCategoryPlot();
+                plot.setBackgroundPaint(Color.WHITE);
+                plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
+                CategoryAxis domainAxis = new ShiftedCategoryAxis(null);
+                domainAxis.setCategoryLabelPositions(CategoryLabelPositions.UP_90);
+                plot.setDomainAxis(domainAxis);
+                return chart;
+                }
+            }.doPng(req, rsp);
+        }
+    
+    public void doTrendJson(StaplerRequest req, StaplerResponse rsp) throws IOException  {
+        JSONArray jsonRecords = new JSONArray();
+        for (CarlTrendIndex.Record record : getRecords())  {
+            JSONObject jsonRecord = new JSONObject();
+            jsonRecord.put("build", record.buildNumber);
+            jsonRecord.put("timestamp", record.timestamp);
+            jsonRecord.put("applicationName", record.applicationName);
+            jsonRecord.put("checkedRuleCount", record.checkedRuleCount);
+            jsonRecord.put("fileCount", record.fileCount);
+            jsonRecord.put("issueCount", record.issueCount);
+            JSONObject jsonViolations = new JSONObject();
+            jsonViolations.putAll(record.violationCounts);
+            jsonRecord.put("violations", jsonViolations);
+            jsonRecords.add(jsonRecord);
+            }
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().write(jsonRecords.toJSONString());
+        }
+    
+    @Extension
+    public static class Factory extends TransientActionFactory<Job>  {
+        @Override
+        public Class<Job> type()  {
+            return Job.class;
+            }
+
+        @Override
+        public @Nonnull Collection<? extends Action> createFor(@Nonnull Job target)  {
+            if (!CarlTrendIndex.exists(target))
+                return Collections.emptyList();
+            return Collections.singletonList(new CarlProjectAction(target));
+            }
+        }
+    
+    }
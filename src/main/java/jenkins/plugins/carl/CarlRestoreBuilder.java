@@ -0,0 +1,88 @@
+package jenkins.plugins.carl;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.BuildStepMonitor;
+import hudson.tasks.Builder;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import jenkins.tasks.SimpleBuildStep;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+// restores the output folder archived by a Carl analysis, instead of running the analysis again
+public class CarlRestoreBuilder extends Builder implements SimpleBuildStep {
+    
+    private final String applicationName;
+    private String build = DescriptorImpl.defaultBuild;
+    private String outputPath = CarlBuilder.DescriptorImpl.defaultOutputPath;
+    
+    @DataBoundConstructor
+    public CarlRestoreBuilder(@Nonnull String applicationName)  {
+        this.applicationName = applicationName.trim();
+        }
+    
+    @DataBoundSetter
+    public void setBuild(String build)  {
+        this.build = Util.fixNull(build).trim();
+        }
+
+    @DataBoundSetter
+    public void setOutputPath(@Nonnull String outputPath)  {
+        this.outputPath = outputPath.trim();
+        }
+    
+    public String getApplicationName()  { return applicationName; }
+    public String getBuild()            { return build; }
+    public String getOutputPath()       { return outputPath; }
+    
+    @Override
+    public BuildStepMonitor getRequiredMonitorService() {
+        return BuildStepMonitor.NONE;
+        }
+    
+    @Override
+    public void perform(Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener) throws InterruptedException, IOException {
+        EnvVars env;
+        if (run instanceof AbstractBuild)  {
+            env = run.getEnvironment(listener);
+            env.overrideAll(((AbstractBuild<?,?>) run).getBuildVariables());
+            }
+        else
+            env = new EnvVars();
+        String applicationName  = env.expand(this.applicationName);
+        String build            = env.expand(this.build);
+        Run<?, ?> source = build.isEmpty() ? run : CarlBaseline.find(run, build);
+        if (source == null)
+            throw new AbortException(String.format("Build %s not found, or not readable by this build, to restore Carl output from!", build));
+        FilePath outputFile = workspace.child(env.expand(outputPath));
+        int count = CarlOutputArchive.restore(source, applicationName, outputFile);
+        listener.getLogger().printf("Restored %d Carl output file(s) of %s from %s into %s.%n", count, applicationName, source.getFullDisplayName(), outputFile.getRemote());
+        }
+    
+    @Extension @Symbol("carlRestore")
+    public static class DescriptorImpl extends BuildStepDescriptor<Builder> {
+        public static final String defaultBuild = "";
+        
+        @Override
+        public String getDisplayName() {
+            return Messages.Carl_RestoreBuilder_DisplayName();
+            }
+        
+        @Override
+        public boolean isApplicable(Class<? extends AbstractProject> jobType) {
+            return true;
+            }
+        }
+    
+    }
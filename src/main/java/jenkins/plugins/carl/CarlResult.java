@@ -8,12 +8,14 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
-import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 public class CarlResult implements Serializable {
     
+    static final String FILENAME = "ApplicationSummary.json";
+    
     long checkedRuleCount;
     long fileCount;
     long issueCount;
@@ -22,22 +24,92 @@ public class CarlResult implements Serializable {
         @Override
         public CarlResult invoke(File f, VirtualChannel channel)  {
             JSONParser jsonParser = new JSONParser();
-            CarlResult result = null;
+            Handler handler = new Handler();
             try (InputStreamReader reader = new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8))  {
-                JSONObject summary = (JSONObject)jsonParser.parse(reader);
-                result = new CarlResult();
-                result.checkedRuleCount     = (long)summary.get("Count of affected Rules");
-                result.fileCount            = (long)summary.get("Total count of Files");
-                result.issueCount           = (long)summary.get("Total number of issues");
+                jsonParser.parse(reader, handler);
                 }
-            catch (IOException | ParseException e)  { }
-            return result;
+            catch (IOException | ParseException | ClassCastException e)  { }
+            return handler.isComplete() ? handler.result : null;
             }
 
         @Override
         public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
         }
     
+    static final class Handler implements ContentHandler  {
+        private final CarlResult result = new CarlResult();
+        private int depth;
+        private String key;
+        private int found;
+        
+        boolean isComplete()  { return found == 3; }
+        
+        @Override
+        public void startJSON()  { }
+        
+        @Override
+        public void endJSON()  { }
+        
+        @Override
+        public boolean startObject()  {
+            depth++;
+            return true;
+            }
+        
+        @Override
+        public boolean endObject()  {
+            depth--;
+            return true;
+            }
+        
+        @Override
+        public boolean startObjectEntry(String key)  {
+            this.key = key;
+            return true;
+            }
+        
+        @Override
+        public boolean endObjectEntry()  {
+            key = null;
+            return true;
+            }
+        
+        @Override
+        public boolean startArray()  {
+            depth++;
+            return true;
+            }
+        
+        @Override
+        public boolean endArray()  {
+            depth--;
+            return true;
+            }
+        
+        @Override
+        public boolean primitive(Object value)  {
+            if ((depth != 1) || (key == null))
+                return true;
+            switch (key)  {
+                case "Count of affected Rules":
+                    result.checkedRuleCount = ((Number)value).longValue();
+                    found++;
+                    break;
+                case "Total count of Files":
+                    result.fileCount = ((Number)value).longValue();
+                    found++;
+                    break;
+                case "Total number of issues":
+                    result.issueCount = ((Number)value).longValue();
+                    found++;
+                    break;
+                default:
+                    break;
+                }
+            return !isComplete();
+            }
+        }
+    
     protected CarlResult()  { }
 
     }
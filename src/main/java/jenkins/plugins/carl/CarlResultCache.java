@@ -0,0 +1,296 @@
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import org.apache.commons.io.FileUtils;
+
+public class CarlResultCache {
+    
+    static final String CACHE_DIRECTORY     = "carl-cache";
+    static final String OUTPUT_DIRECTORY    = "output";
+    static final String STATUS_FILENAME     = "status";
+    static final String STATS_FILENAME      = "stats.properties";
+    static final String TEMP_MARKER         = ".tmp-";
+    
+    static final int MAX_ENTRIES    = Integer.getInteger(CarlResultCache.class.getName() + ".maxEntries", 50);
+    static final long MAX_SIZE_MB   = Long.getLong(CarlResultCache.class.getName() + ".maxSizeMb", 2048);
+    static final long MAX_AGE_DAYS  = Long.getLong(CarlResultCache.class.getName() + ".maxAgeDays", 30);
+    
+    static public @CheckForNull FilePath getRoot(FilePath workspace)  {
+        Computer computer   = workspace.toComputer();
+        Node node           = (computer == null) ? null : computer.getNode();
+        FilePath rootPath   = (node == null) ? null : node.getRootPath();
+        return (rootPath == null) ? null : rootPath.child(CACHE_DIRECTORY);
+        }
+    
+    static public String computeKey(FilePath sourceFile, String applicationName, String qualityGate, String executablePath, String executableVersion) throws IOException, InterruptedException  {
+        List<String> tags = new ArrayList<>();
+        for (String tag : qualityGate.split(","))
+            tags.add(tag.trim());
+        Collections.sort(tags);
+        MessageDigest digest = newDigest();
+        update(digest, sourceFile.act(new Digest()));
+        update(digest, applicationName);
+        update(digest, String.join(",", tags));
+        update(digest, executablePath);
+        update(digest, executableVersion);
+        return Util.toHexString(digest.digest());
+        }
+    
+    // copies the cached output into outputFile and returns its status, null when the entry is gone or incomplete
+    static public @CheckForNull Integer restore(FilePath root, String key, FilePath outputFile) throws IOException, InterruptedException  {
+        return root.act(new Restore(key, outputFile.getRemote()));
+        }
+    
+    static public int store(FilePath root, String key, FilePath outputFile, int status) throws IOException, InterruptedException  {
+        FilePath temp = root.child(key + TEMP_MARKER + UUID.randomUUID());
+        outputFile.copyRecursiveTo(temp.child(OUTPUT_DIRECTORY));
+        temp.child(STATUS_FILENAME).write(Integer.toString(status), "UTF-8");
+        FilePath entry = root.child(key);
+        if (entry.exists())
+            temp.deleteRecursive();
+        else
+            temp.renameTo(entry);
+        return root.act(new Evict(MAX_ENTRIES, MAX_SIZE_MB * 1024 * 1024, TimeUnit.DAYS.toMillis(MAX_AGE_DAYS)));
+        }
+    
+    static MessageDigest newDigest()  {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+            }
+        catch (NoSuchAlgorithmException e)  {
+            throw new IllegalStateException(e);
+            }
+        }
+    
+    static private void update(MessageDigest digest, String value)  {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)0);
+        }
+    
+    // status of a complete entry, null otherwise
+    static private @CheckForNull Integer readStatus(File entry) throws IOException  {
+        File statusFile = new File(entry, STATUS_FILENAME);
+        if (!statusFile.isFile() || !new File(entry, OUTPUT_DIRECTORY).isDirectory())
+            return null;
+        try {
+            return Integer.valueOf(new String(Files.readAllBytes(statusFile.toPath()), StandardCharsets.UTF_8).trim());
+            }
+        catch (NumberFormatException | NoSuchFileException e)  {
+            return null;
+            }
+        }
+    
+    static private long lastUsed(File entry)  {
+        return new File(entry, STATUS_FILENAME).lastModified();
+        }
+    
+    static private long size(File entry) throws IOException  {
+        try (Stream<Path> stream = Files.walk(entry.toPath()))  {
+            return stream.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+            }
+        }
+    
+    static private long parseLong(String value)  {
+        try {
+            return Long.parseLong(value);
+            }
+        catch (NumberFormatException e)  {
+            return 0;
+            }
+        }
+    
+    static final class Digest implements FilePath.FileCallable<String>  {
+        @Override
+        public String invoke(File f, VirtualChannel channel) throws IOException  {
+            Path root = f.toPath();
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(root))  {
+                files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[64 * 1024];
+            for (Path file : files)  {
+                update(digest, root.relativize(file).toString().replace('\\', '/'));
+                try (InputStream in = Files.newInputStream(file))  {
+                    int read;
+                    while ((read = in.read(buffer)) > 0)
+                        digest.update(buffer, 0, read);
+                    }
+                digest.update((byte)0);
+                }
+            return Util.toHexString(digest.digest());
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    static final class Lookup implements FilePath.FileCallable<Lookup.Result>  {
+        private final String key;
+        
+        Lookup(String key)  { this.key = key; }
+        
+        static final class Result implements Serializable  {
+            private final Integer status;
+            private final long hits;
+            private final long misses;
+            Result(Integer status, long hits, long misses)  { this.status = status;  this.hits = hits;  this.misses = misses; }
+            boolean isHit()     { return status != null; }
+            int getStatus()     { return status; }
+            long getHits()      { return hits; }
+            long getMisses()    { return misses; }
+            }
+        
+        @Override
+        public Result invoke(File f, VirtualChannel channel) throws IOException  {
+            synchronized (CarlResultCache.class)  {
+                Integer status = readStatus(new File(f, key));
+                Files.createDirectories(f.toPath());
+                File statsFile = new File(f, STATS_FILENAME);
+                Properties stats = new Properties();
+                if (statsFile.isFile())  {
+                    try (InputStream in = Files.newInputStream(statsFile.toPath()))  {
+                        stats.load(in);
+                        }
+                    }
+                long hits   = parseLong(stats.getProperty("hits", "0")) + ((status == null) ? 0 : 1);
+                long misses = parseLong(stats.getProperty("misses", "0")) + ((status == null) ? 1 : 0);
+                stats.setProperty("hits", Long.toString(hits));
+                stats.setProperty("misses", Long.toString(misses));
+                try (OutputStream out = Files.newOutputStream(statsFile.toPath()))  {
+                    stats.store(out, "Carl result cache statistics");
+                    }
+                return new Result(status, hits, misses);
+                }
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    // entries being restored on this agent, never evicted: guarded by CarlResultCache.class
+    private static final Map<String, Integer> IN_USE = new HashMap<>();
+    
+    static final class Restore implements FilePath.FileCallable<Integer>  {
+        private final String key;
+        private final String outputPath;
+        
+        Restore(String key, String outputPath)  {
+            this.key        = key;
+            this.outputPath = outputPath;
+            }
+        
+        @Override
+        public Integer invoke(File f, VirtualChannel channel) throws IOException  {
+            File entry = new File(f, key);
+            Integer status;
+            synchronized (CarlResultCache.class)  {
+                status = readStatus(entry);
+                if (status == null)
+                    return null;
+                new File(entry, STATUS_FILENAME).setLastModified(System.currentTimeMillis());
+                IN_USE.merge(entry.getPath(), 1, Integer::sum);
+                }
+            // copied aside first, so that the output folder never holds a partial copy
+            File output = new File(outputPath);
+            File temp = new File(output.getParentFile(), output.getName() + TEMP_MARKER + UUID.randomUUID());
+            try {
+                FileUtils.copyDirectory(new File(entry, OUTPUT_DIRECTORY), temp);
+                Util.deleteRecursive(output);
+                Files.move(temp.toPath(), output.toPath());
+                }
+            finally {
+                synchronized (CarlResultCache.class)  {
+                    IN_USE.compute(entry.getPath(), (k, count) -> (count == 1) ? null : count - 1);
+                    }
+                Util.deleteRecursive(temp);
+                }
+            return status;
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    static final class Evict implements FilePath.FileCallable<Integer>  {
+        private final int maxEntries;
+        private final long maxSize;
+        private final long maxAge;
+        
+        Evict(int maxEntries, long maxSize, long maxAge)  {
+            this.maxEntries = maxEntries;
+            this.maxSize    = maxSize;
+            this.maxAge     = maxAge;
+            }
+        
+        @Override
+        public Integer invoke(File f, VirtualChannel channel) throws IOException  {
+            File[] children = f.listFiles();
+            if (children == null)
+                return 0;
+            long now = System.currentTimeMillis();
+            int evicted = 0;
+            List<File> entries = new ArrayList<>();
+            for (File child : children)  {
+                if (!child.isDirectory())
+                    continue;
+                if (child.getName().contains(TEMP_MARKER))  {
+                    if (now - child.lastModified() > TimeUnit.DAYS.toMillis(1))
+                        Util.deleteRecursive(child);
+                    continue;
+                    }
+                entries.add(child);
+                }
+            entries.sort(Comparator.comparingLong(CarlResultCache::lastUsed).reversed());
+            long totalSize = 0;
+            for (int i=0; i<entries.size(); i++)  {
+                File entry = entries.get(i);
+                long entrySize = size(entry);
+                totalSize += entrySize;
+                if ( (i >= maxEntries) || (totalSize > maxSize) || (now - lastUsed(entry) > maxAge) )  {
+                    synchronized (CarlResultCache.class)  {
+                        if (IN_USE.containsKey(entry.getPath()))
+                            continue;
+                        Util.deleteRecursive(entry);
+                        }
+                    totalSize -= entrySize;
+                    evicted++;
+                    }
+                }
+            return evicted;
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    private CarlResultCache()  { }
+    
+    }
@@ -9,58 +9,182 @@ import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
+import java.util.PriorityQueue;
+import javax.annotation.CheckForNull;
+import org.json.simple.parser.ContentHandler;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 public class CarlResultDetail implements Serializable {
     private  static  final  long serialVersionUID = 1350092991346723535L;
     
-    static class Detail implements Serializable  {
+    static final String FILENAME = "DetailsForCarlQG.json";
+    static final Comparator<Detail> BY_COUNT = Comparator.comparingLong((Detail detail) -> detail.count);
+    
+    static public class Detail implements Serializable  {
         String name;
         long count;
         Detail(String name, long count)  { this.name = name;  this.count = count; }
+        public String getName()         { return name; }
+        public long getCount()          { return count; }
         }
     
-    static class ViolationType implements Serializable  {
+    static public class ViolationType implements Serializable  {
         String name;
         long count;
+        int detailCount;
         List<Detail> details;
         ViolationType(String name, long count)  { this.name = name;  this.count = count;  details = new ArrayList<>(); }
+        public String getName()         { return name; }
+        public long getCount()          { return count; }
+        public int getDetailCount()     { return detailCount; }
+        public List<Detail> getDetails()  { return details; }
         }
 
     LinkedList<ViolationType> violationTypes;
     
     protected CarlResultDetail()  { violationTypes = new LinkedList<>(); }
     
+    public List<ViolationType> getViolationTypes()  { return violationTypes; }
+    
     static final class Collect implements FilePath.FileCallable<CarlResultDetail>  {
+        private final int maxDetails;
+        
+        Collect()  { this(0); }
+        Collect(int maxDetails)  { this.maxDetails = maxDetails; }
+        
         @Override
         public CarlResultDetail invoke(File f, VirtualChannel channel)  {
-            JSONParser jsonParser = new JSONParser();
-            CarlResultDetail result = null;
-            try (InputStreamReader reader = new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8))  {
-                JSONArray jsonMain = (JSONArray)jsonParser.parse(reader);
-                result = new CarlResultDetail();
-                for (Object _jsonViolation : jsonMain)  {
-                    JSONObject jsonViolation = (JSONObject)_jsonViolation;
-                    ViolationType violation = new ViolationType((String)jsonViolation.get("Tag Name"), (long)jsonViolation.get("Number of violation"));
-                    for (Object _jsonDetail : (JSONArray)jsonViolation.get("Details"))  {
-                        JSONObject jsonDetail = (JSONObject)_jsonDetail;
-                        Detail detail = new Detail((String)jsonDetail.get("Violation Name"), (long)jsonDetail.get("Number of violation"));
-                        violation.details.add(detail);
-                        }
-                    result.violationTypes.add(violation);
-                    }
-                }
-            catch (IOException | ParseException e)  { }
-            return result;
+            return parse(f, maxDetails, null);
             }
 
         @Override
         public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
         }
     
+    // keeps the top maxDetails details of each type, while streaming all of them into the store if any
+    static CarlResultDetail parse(File f, int maxDetails, @CheckForNull CarlResultStore.Writer store)  {
+        JSONParser jsonParser = new JSONParser();
+        CarlResultDetail result = new CarlResultDetail();
+        try (InputStreamReader reader = new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8))  {
+            jsonParser.parse(reader, new Handler(result, maxDetails, store));
+            }
+        catch (IOException | ParseException | ClassCastException | IllegalStateException e)  {
+            result = null;
+            }
+        return result;
+        }
+    
+    static final class Handler implements ContentHandler  {
+        private final CarlResultDetail result;
+        private final int maxDetails;
+        private final CarlResultStore.Writer store;
+        private int depth;
+        private String key;
+        private ViolationType violation;
+        private PriorityQueue<Detail> topDetails;
+        private String detailName;
+        private long detailCount;
+        
+        Handler(CarlResultDetail result, int maxDetails, @CheckForNull CarlResultStore.Writer store)  {
+            this.result     = result;
+            this.maxDetails = maxDetails;
+            this.store      = store;
+            }
+        
+        @Override
+        public void startJSON()  { }
+        
+        @Override
+        public void endJSON()  { }
+        
+        @Override
+        public boolean startObject() throws IOException  {
+            depth++;
+            if (depth == 2)  {
+                violation   = new ViolationType(null, 0);
+                topDetails  = new PriorityQueue<>(BY_COUNT);
+                if (store != null)
+                    store.startType();
+                }
+            else  if (depth == 4)  {
+                detailName  = null;
+                detailCount = 0;
+                }
+            return true;
+            }
+        
+        @Override
+        public boolean endObject() throws IOException  {
+            if (depth == 4)  {
+                violation.detailCount++;
+                if (store != null)
+                    store.addDetail(detailName, detailCount);
+                if (maxDetails <= 0)
+                    violation.details.add(new Detail(detailName, detailCount));
+                else  if (topDetails.size() < maxDetails)
+                    topDetails.add(new Detail(detailName, detailCount));
+                else  if (topDetails.peek().count < detailCount)  {
+                    topDetails.poll();
+                    topDetails.add(new Detail(detailName, detailCount));
+                    }
+                }
+            else  if (depth == 2)  {
+                if (store != null)
+                    store.endType(violation.name, violation.count);
+                violation.details.addAll(topDetails);
+                violation.details.sort(BY_COUNT.reversed());
+                result.violationTypes.add(violation);
+                violation   = null;
+                topDetails  = null;
+                }
+            depth--;
+            return true;
+            }
+        
+        @Override
+        public boolean startObjectEntry(String key)  {
+            this.key = key;
+            return true;
+            }
+        
+        @Override
+        public boolean endObjectEntry()  {
+            key = null;
+            return true;
+            }
+        
+        @Override
+        public boolean startArray()  {
+            depth++;
+            return true;
+            }
+        
+        @Override
+        public boolean endArray()  {
+            depth--;
+            return true;
+            }
+        
+        @Override
+        public boolean primitive(Object value)  {
+            if (depth == 2)  {
+                if ("Tag Name".equals(key))
+                    violation.name = (String)value;
+                else  if ("Number of violation".equals(key))
+                    violation.count = ((Number)value).longValue();
+                }
+            else  if (depth == 4)  {
+                if ("Violation Name".equals(key))
+                    detailName = (String)value;
+                else  if ("Number of violation".equals(key))
+                    detailCount = ((Number)value).longValue();
+                }
+            return true;
+            }
+        }
+    
     }
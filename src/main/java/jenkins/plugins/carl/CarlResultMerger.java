@@ -0,0 +1,114 @@
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+public class CarlResultMerger {
+    
+    static final class Merge implements FilePath.FileCallable<Void>  {
+        private final ArrayList<String> shardNames;
+        
+        Merge(List<String> shardNames)  {
+            this.shardNames = new ArrayList<>(shardNames);
+            }
+        
+        @Override
+        public Void invoke(File f, VirtualChannel channel) throws IOException  {
+            JSONObject summary = null;
+            long checkedRuleCount   = 0;
+            long fileCount          = 0;
+            long issueCount         = 0;
+            Map<String, Long> violationCounts           = new LinkedHashMap<>();
+            Map<String, Map<String, Long>> detailCounts = new LinkedHashMap<>();
+            boolean detailed = true;
+            try {
+                for (String shardName : shardNames)  {
+                    File shard = new File(f, shardName);
+                    JSONObject shardSummary = (JSONObject)parse(new File(shard, CarlResult.FILENAME));
+                    if (summary == null)
+                        summary = shardSummary;
+                    checkedRuleCount     = Math.max(checkedRuleCount, (long)shardSummary.get("Count of affected Rules"));
+                    fileCount           += (long)shardSummary.get("Total count of Files");
+                    issueCount          += (long)shardSummary.get("Total number of issues");
+                    File detailFile = new File(shard, CarlResultDetail.FILENAME);
+                    if (!detailFile.isFile())  {
+                        detailed = false;
+                        continue;
+                        }
+                    for (Object _jsonViolation : (JSONArray)parse(detailFile))  {
+                        JSONObject jsonViolation = (JSONObject)_jsonViolation;
+                        String tagName = (String)jsonViolation.get("Tag Name");
+                        violationCounts.merge(tagName, (long)jsonViolation.get("Number of violation"), Long::sum);
+                        Map<String, Long> details = detailCounts.computeIfAbsent(tagName, k -> new LinkedHashMap<>());
+                        for (Object _jsonDetail : (JSONArray)jsonViolation.get("Details"))  {
+                            JSONObject jsonDetail = (JSONObject)_jsonDetail;
+                            details.merge((String)jsonDetail.get("Violation Name"), (long)jsonDetail.get("Number of violation"), Long::sum);
+                            }
+                        }
+                    }
+                }
+            catch (ParseException | ClassCastException | NullPointerException e)  {
+                throw new IOException("Carl shard results cannot be merged!", e);
+                }
+            if (summary == null)
+                return null;
+            
+            // a rule reported by several shards is counted once, the shard counts are only a lower bound without details
+            if (detailed)  {
+                Set<String> ruleNames = new HashSet<>();
+                for (Map<String, Long> details : detailCounts.values())
+                    ruleNames.addAll(details.keySet());
+                checkedRuleCount = ruleNames.size();
+                }
+            summary.put("Count of affected Rules", checkedRuleCount);
+            summary.put("Total count of Files", fileCount);
+            summary.put("Total number of issues", issueCount);
+            JSONArray jsonMain = new JSONArray();
+            for (Map.Entry<String, Long> violation : violationCounts.entrySet())  {
+                JSONObject jsonViolation = new JSONObject();
+                jsonViolation.put("Tag Name", violation.getKey());
+                jsonViolation.put("Number of violation", violation.getValue());
+                JSONArray jsonDetails = new JSONArray();
+                for (Map.Entry<String, Long> detail : detailCounts.get(violation.getKey()).entrySet())  {
+                    JSONObject jsonDetail = new JSONObject();
+                    jsonDetail.put("Violation Name", detail.getKey());
+                    jsonDetail.put("Number of violation", detail.getValue());
+                    jsonDetails.add(jsonDetail);
+                    }
+                jsonViolation.put("Details", jsonDetails);
+                jsonMain.add(jsonViolation);
+                }
+            Files.write(new File(f, CarlResult.FILENAME).toPath(), summary.toJSONString().getBytes(StandardCharsets.UTF_8));
+            Files.write(new File(f, CarlResultDetail.FILENAME).toPath(), jsonMain.toJSONString().getBytes(StandardCharsets.UTF_8));
+            return null;
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    static private Object parse(File file) throws IOException, ParseException  {
+        try (InputStreamReader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))  {
+            return new JSONParser().parse(reader);
+            }
+        }
+    
+    private CarlResultMerger()  { }
+    
+    }
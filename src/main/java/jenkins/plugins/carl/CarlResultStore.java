@@ -0,0 +1,213 @@
+package jenkins.plugins.carl;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CarlResultStore {
+    
+    static final String FILENAME    = "carl-result.bin";
+    static final int MAGIC          = 0x4341524C;
+    static final int VERSION        = 1;
+    static final int HEADER_SIZE    = 32;
+    
+    static public void write(File file, CarlResult result, CarlResultDetail detail) throws IOException  {
+        try (Writer writer = new Writer(file))  {
+            if (detail != null)  {
+                for (CarlResultDetail.ViolationType violationType : detail.violationTypes)  {
+                    writer.startType();
+                    for (CarlResultDetail.Detail detail2 : violationType.details)
+                        writer.addDetail(detail2.name, detail2.count);
+                    writer.endType(violationType.name, violationType.count);
+                    }
+                }
+            writer.finish(result);
+            }
+        }
+    
+    // streams the violation types into a body file, the string table is only known at the end
+    static public final class Writer implements Closeable  {
+        static private final int TYPE_HEADER_SIZE = 4 + 8 + 4 + 4;
+        
+        private final File file;
+        private final File bodyFile;
+        private final FileChannel body;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private int typeCount;
+        private long typePosition = -1;
+        private int detailCount;
+        
+        public Writer(File file) throws IOException  {
+            this.file       = file;
+            this.bodyFile   = new File(file.getPath() + ".tmp");
+            this.body       = FileChannel.open(bodyFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+        
+        public void startType() throws IOException  {
+            ensure(TYPE_HEADER_SIZE);
+            // the header is filled by endType, once the details are counted
+            typePosition = body.position() + buffer.position();
+            buffer.position(buffer.position() + TYPE_HEADER_SIZE);
+            detailCount = 0;
+            }
+        
+        public void addDetail(String name, long count) throws IOException  {
+            if (typePosition < 0)
+                throw new IllegalStateException("Detail outside of a violation type!");
+            ensure(4 + 8);
+            buffer.putInt(intern(name, indexes, strings));
+            buffer.putLong(count);
+            detailCount++;
+            }
+        
+        public void endType(String name, long count) throws IOException  {
+            if (typePosition < 0)
+                throw new IllegalStateException("No violation type started!");
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(TYPE_HEADER_SIZE);
+            header.putInt(intern(name, indexes, strings));
+            header.putLong(count);
+            header.putInt(detailCount);
+            header.putInt(detailCount);
+            header.flip();
+            for (long position=typePosition; header.hasRemaining(); )
+                position += body.write(header, position);
+            typeCount++;
+            typePosition = -1;
+            }
+        
+        public void finish(CarlResult result) throws IOException  {
+            flush();
+            try (FileOutputStream fileOut = new FileOutputStream(file))  {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(result.checkedRuleCount);
+                out.writeLong(result.fileCount);
+                out.writeLong(result.issueCount);
+                out.writeInt(strings.size());
+                for (String string : strings)  {
+                    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                    }
+                out.writeInt(typeCount);
+                out.flush();
+                FileChannel target = fileOut.getChannel();
+                long size = body.size();
+                for (long position=0; position<size; )
+                    position += body.transferTo(position, size - position, target);
+                }
+            }
+        
+        @Override
+        public void close() throws IOException  {
+            body.close();
+            Files.deleteIfExists(bodyFile.toPath());
+            }
+        
+        private void ensure(int size) throws IOException  {
+            if (buffer.remaining() < size)
+                flush();
+            }
+        
+        private void flush() throws IOException  {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                body.write(buffer);
+            buffer.clear();
+            }
+        }
+    
+    static public CarlResult readResult(File file) throws IOException  {
+        ByteBuffer buffer = read(file, HEADER_SIZE);
+        if (buffer.remaining() < HEADER_SIZE)
+            throw new IOException("Corrupted Carl result file " + file);
+        checkHeader(buffer);
+        CarlResult result = new CarlResult();
+        result.checkedRuleCount = buffer.getLong();
+        result.fileCount        = buffer.getLong();
+        result.issueCount       = buffer.getLong();
+        return result;
+        }
+    
+    // read into the heap rather than mapped: a mapped file cannot be deleted or renamed under Windows
+    // until the mapping is garbage collected, which would break build rotation and job renaming
+    static ByteBuffer read(File file, long maxLength) throws IOException  {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))  {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), maxLength));
+            while (buffer.hasRemaining())  {
+                if (channel.read(buffer) < 0)
+                    break;
+                }
+            buffer.flip();
+            return buffer;
+            }
+        }
+    
+    static public CarlResultDetail readDetail(File file) throws IOException  {
+        try {
+            ByteBuffer buffer = read(file, Integer.MAX_VALUE);
+            checkHeader(buffer);
+            buffer.position(HEADER_SIZE);
+            String[] strings = new String[buffer.getInt()];
+            for (int i=0; i<strings.length; i++)  {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            CarlResultDetail detail = new CarlResultDetail();
+            int violationTypeCount = buffer.getInt();
+            for (int i=0; i<violationTypeCount; i++)  {
+                CarlResultDetail.ViolationType violationType = new CarlResultDetail.ViolationType(strings[buffer.getInt()], buffer.getLong());
+                violationType.detailCount = buffer.getInt();
+                int storedCount = buffer.getInt();
+                for (int j=0; j<storedCount; j++)
+                    violationType.details.add(new CarlResultDetail.Detail(strings[buffer.getInt()], buffer.getLong()));
+                violationType.details.sort(CarlResultDetail.BY_COUNT.reversed());
+                detail.violationTypes.add(violationType);
+                }
+            return detail;
+            }
+        catch (RuntimeException e)  {
+            throw new IOException("Corrupted Carl result file " + file, e);
+            }
+        }
+    
+    static private void checkHeader(ByteBuffer buffer) throws IOException  {
+        if ((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION))
+            throw new IOException("Unsupported Carl result file format!");
+        }
+    
+    static private String nonNull(String string)  {
+        return (string == null) ? "" : string;
+        }
+    
+    static private int intern(String string, Map<String, Integer> indexes, List<String> strings)  {
+        string = nonNull(string);
+        Integer index = indexes.get(string);
+        if (index == null)  {
+            index = strings.size();
+            indexes.put(string, index);
+            strings.add(string);
+            }
+        return index;
+        }
+    
+    private CarlResultStore()  { }
+    
+    }
@@ -0,0 +1,21 @@
+package jenkins.plugins.carl;
+
+import hudson.model.InvisibleAction;
+
+public class CarlRevisionAction extends InvisibleAction {
+    
+    private final String applicationName;
+    private final String sourcePath;
+    private final String revision;
+    
+    public CarlRevisionAction(String applicationName, String sourcePath, String revision)  {
+        this.applicationName    = applicationName;
+        this.sourcePath         = sourcePath;
+        this.revision           = revision;
+        }
+    
+    public String getApplicationName()  { return applicationName; }
+    public String getSourcePath()       { return sourcePath; }
+    public String getRevision()         { return revision; }
+    
+    }
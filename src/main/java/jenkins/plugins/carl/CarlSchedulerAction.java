@@ -0,0 +1,47 @@
+package jenkins.plugins.carl;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import java.util.Map;
+import jenkins.model.Jenkins;
+
+@Extension
+public class CarlSchedulerAction implements RootAction {
+    
+    @Override
+    public String getIconFileName()  {
+        return null;
+        }
+
+    @Override
+    public String getDisplayName()  {
+        return "Carl scheduler";
+        }
+
+    // the page shows the analyses of all jobs: administrators only
+    @Override
+    public String getUrlName()  {
+        return Jenkins.get().hasPermission(Jenkins.ADMINISTER) ? "carl-scheduler" : null;
+        }
+    
+    public Map<String, CarlAnalysisScheduler.Statistics> getStatistics()  {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return CarlAnalysisScheduler.get().getStatistics();
+        }
+    
+    public Map<String, Integer> getRunning()  {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return CarlAnalysisScheduler.get().getRunning();
+        }
+    
+    public Map<String, CarlHealth.Statistics> getHealth()  {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return CarlHealth.get().getStatistics();
+        }
+
+    public int getQueueLength()  {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return CarlAnalysisScheduler.get().getQueueLength();
+        }
+    
+    }
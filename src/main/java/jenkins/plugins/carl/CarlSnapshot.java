@@ -0,0 +1,129 @@
+package jenkins.plugins.carl;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+
+// read-only snapshot of a source folder at a given revision, taken from a bare mirror shared by all jobs of an agent
+public class CarlSnapshot {
+    
+    static final String MIRROR_DIRECTORY = "carl-mirrors";
+    static final int FETCH_DEPTH = Integer.getInteger(CarlSnapshot.class.getName() + ".fetchDepth", 20);
+    static final String REF_PREFIX = "refs/carl/";
+    
+    private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+    
+    private final Launcher launcher;
+    private final TaskListener listener;
+    private final String gitExe;
+    private final String repositoryUrl;
+    private final FilePath mirror;
+    
+    public CarlSnapshot(Launcher launcher, TaskListener listener, String gitExe, FilePath mirrorRoot, String repositoryUrl)  {
+        this.launcher       = launcher;
+        this.listener       = listener;
+        this.gitExe         = gitExe;
+        this.repositoryUrl  = repositoryUrl;
+        this.mirror         = mirrorRoot.child(Util.getDigestOf(repositoryUrl) + ".git");
+        }
+    
+    static public @CheckForNull FilePath getMirrorRoot(FilePath workspace)  {
+        Computer computer   = workspace.toComputer();
+        Node node           = (computer == null) ? null : computer.getNode();
+        FilePath rootPath   = (node == null) ? null : node.getRootPath();
+        return (rootPath == null) ? null : rootPath.child(MIRROR_DIRECTORY);
+        }
+    
+    public FilePath getMirror()  { return mirror; }
+    
+    // extracts sourcePath as of revision (a commit or a branch) into target, and returns the extracted source folder
+    public FilePath extract(String revision, String sourcePath, FilePath target) throws IOException, InterruptedException  {
+        String path = normalize(sourcePath);
+        FilePath archive = target.sibling(target.getName() + ".tar");
+        Object lock = LOCKS.computeIfAbsent(mirror.getChannel() + "@" + mirror.getRemote(), k -> new Object());
+        synchronized (lock)  {
+            String commit = fetch(revision);
+            List<String> args = new ArrayList<>(Arrays.asList("archive", "--format=tar", "--output=" + archive.getRemote(), commit));
+            if (!path.isEmpty())
+                args.addAll(Arrays.asList("--", path));
+            if (git(null, new ByteArrayOutputStream(), args.toArray(new String[0])) != 0)
+                throw new AbortException(String.format("Source folder for Carl analysis not found at %s in revision %s", sourcePath, commit));
+            listener.getLogger().printf("Analyzing snapshot of %s at revision %s.%n", path.isEmpty() ? "." : path, commit);
+            }
+        try {
+            target.deleteRecursive();
+            target.mkdirs();
+            archive.untar(target, FilePath.TarCompression.NONE);
+            }
+        finally {
+            archive.delete();
+            }
+        return path.isEmpty() ? target : target.child(path);
+        }
+    
+    // makes revision available in the mirror, fetching only what is missing, and returns its commit id
+    protected String fetch(String revision) throws IOException, InterruptedException  {
+        if (!mirror.child("HEAD").exists())  {
+            mirror.mkdirs();
+            if (git(null, null, "init", "--bare") != 0)
+                throw new AbortException(String.format("Cannot create Git mirror %s", mirror.getRemote()));
+            }
+        boolean isCommit = revision.matches("[0-9a-fA-F]{40}");
+        if (isCommit && (git(null, new ByteArrayOutputStream(), "cat-file", "-e", revision + "^{commit}") == 0))
+            return revision;
+        listener.getLogger().printf("Fetching revision %s from %s into Carl mirror...%n", revision, repositoryUrl);
+        int status = git(null, null, "fetch", "--no-tags", "--depth=" + FETCH_DEPTH, repositoryUrl, revision);
+        if ((status != 0) && isCommit)  {
+            // servers refusing to serve a commit by id: fall back to fetching all branches
+            status = git(null, null, "fetch", "--no-tags", repositoryUrl, "+refs/heads/*:refs/remotes/origin/*");
+            if ((status == 0) && (git(null, new ByteArrayOutputStream(), "cat-file", "-e", revision + "^{commit}") != 0))
+                status = 1;
+            }
+        if (status != 0)
+            throw new AbortException(String.format("Cannot fetch revision %s from %s", revision, repositoryUrl));
+        String commit = revision;
+        if (!isCommit)  {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (git(out, null, "rev-parse", "FETCH_HEAD^{commit}") != 0)
+                throw new AbortException(String.format("Cannot resolve revision %s from %s", revision, repositoryUrl));
+            commit = out.toString("UTF-8").trim();
+            }
+        // keeps the fetched commit reachable, so that it survives garbage collection of the mirror
+        git(null, null, "update-ref", REF_PREFIX + commit, commit);
+        return commit;
+        }
+    
+    protected int git(@CheckForNull OutputStream out, @CheckForNull OutputStream err, String... args) throws IOException, InterruptedException  {
+        List<String> cmds = new ArrayList<>();
+        cmds.add(gitExe);
+        cmds.add("--git-dir=" + mirror.getRemote());
+        cmds.addAll(Arrays.asList(args));
+        Launcher.ProcStarter ps = launcher.launch().quiet(true).cmds(cmds).pwd(mirror);
+        ps.stdout((out == null) ? listener.getLogger() : out);
+        ps.stderr((err == null) ? listener.getLogger() : err);
+        return ps.join();
+        }
+    
+    static String normalize(String sourcePath)  {
+        String path = sourcePath.trim().replace('\\', '/');
+        while (path.startsWith("./"))
+            path = path.substring(2);
+        while (path.endsWith("/"))
+            path = path.substring(0, path.length() - 1);
+        return path.equals(".") ? "" : path;
+        }
+    
+    }
@@ -0,0 +1,264 @@
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+public class CarlSourceStaging {
+    
+    static final class Stage implements FilePath.FileCallable<Integer>  {
+        private final String stagingPath;
+        private final ArrayList<String> relativePaths;
+        
+        Stage(String stagingPath, List<String> relativePaths)  {
+            this.stagingPath    = stagingPath;
+            this.relativePaths  = new ArrayList<>(relativePaths);
+            }
+        
+        @Override
+        public Integer invoke(File f, VirtualChannel channel) throws IOException  {
+            File staging = new File(stagingPath);
+            int count = 0;
+            for (String relativePath : relativePaths)  {
+                File source = new File(f, relativePath);
+                if (!source.isFile())
+                    continue;
+                linkOrCopy(source.toPath(), new File(staging, relativePath).toPath());
+                count++;
+                }
+            return count;
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    static final class Shard implements FilePath.FileCallable<List<String>>  {
+        private final String shardRootPath;
+        private final int shardCount;
+        
+        Shard(String shardRootPath, int shardCount)  {
+            this.shardRootPath  = shardRootPath;
+            this.shardCount     = shardCount;
+            }
+        
+        static private class Unit  {
+            final List<Path> files = new ArrayList<>();
+            long size;
+            }
+        
+        static private class Bucket  {
+            final List<Path> files = new ArrayList<>();
+            long size;
+            }
+        
+        @Override
+        public List<String> invoke(File f, VirtualChannel channel) throws IOException  {
+            Path root = f.toPath();
+            Map<Path, Unit> units = new HashMap<>();
+            try (Stream<Path> stream = Files.walk(root))  {
+                stream.filter(Files::isRegularFile).forEach(file -> {
+                    Unit unit = units.computeIfAbsent(file.getParent(), k -> new Unit());
+                    unit.files.add(file);
+                    unit.size += file.toFile().length();
+                    });
+                }
+            List<Unit> sortedUnits = new ArrayList<>(units.values());
+            sortedUnits.sort(Comparator.comparingLong((Unit unit) -> unit.size).reversed());
+            PriorityQueue<Bucket> buckets = new PriorityQueue<>(Comparator.comparingLong((Bucket bucket) -> bucket.size));
+            for (int i=0; i<shardCount; i++)
+                buckets.add(new Bucket());
+            for (Unit unit : sortedUnits)  {
+                Bucket bucket = buckets.poll();
+                bucket.files.addAll(unit.files);
+                bucket.size += unit.size;
+                buckets.add(bucket);
+                }
+            
+            Path shardRoot = new File(shardRootPath).toPath();
+            ArrayList<String> shardNames = new ArrayList<>();
+            for (Bucket bucket : buckets)  {
+                if (bucket.files.isEmpty())
+                    continue;
+                String shardName = "shard-" + shardNames.size();
+                Path shard = shardRoot.resolve(shardName);
+                for (Path file : bucket.files)
+                    linkOrCopy(file, shard.resolve(root.relativize(file)));
+                shardNames.add(shardName);
+                }
+            return shardNames;
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    static public class FilterSummary implements Serializable  {
+        private static final long serialVersionUID = 1L;
+        long includedCount;
+        long includedBytes;
+        long skippedCount;
+        long skippedBytes;
+        
+        public long getIncludedCount()  { return includedCount; }
+        public long getIncludedBytes()  { return includedBytes; }
+        public long getSkippedCount()   { return skippedCount; }
+        public long getSkippedBytes()   { return skippedBytes; }
+        }
+    
+    // stages the files matching the include patterns and none of the exclude patterns (Ant syntax, separated by commas),
+    // walking the source tree in parallel and skipping the excluded folders as a whole
+    static final class Filter implements FilePath.FileCallable<FilterSummary>  {
+        private static final long serialVersionUID = 1L;
+        private final String stagingPath;
+        private final String includePatterns;
+        private final String excludePatterns;
+        private transient List<String> includes;
+        private transient List<String> excludes;
+        
+        Filter(String stagingPath, String includePatterns, String excludePatterns)  {
+            this.stagingPath        = stagingPath;
+            this.includePatterns    = includePatterns;
+            this.excludePatterns    = excludePatterns;
+            }
+        
+        @Override
+        public FilterSummary invoke(File f, VirtualChannel channel) throws IOException  {
+            includes = parsePatterns(includePatterns);      // parsed on the agent, for its file separator
+            excludes = parsePatterns(excludePatterns);
+            Path root = f.toPath();
+            Path staging = new File(stagingPath).toPath();
+            LongAdder[] counters = { new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder() };
+            ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+            try {
+                pool.invoke(new Walk(root, staging, root, false, counters));
+                }
+            catch (UncheckedIOException e)  {
+                throw e.getCause();
+                }
+            finally {
+                pool.shutdown();
+                }
+            FilterSummary summary = new FilterSummary();
+            summary.includedCount   = counters[0].sum();
+            summary.includedBytes   = counters[1].sum();
+            summary.skippedCount    = counters[2].sum();
+            summary.skippedBytes    = counters[3].sum();
+            return summary;
+            }
+        
+        private final class Walk extends RecursiveAction  {
+            private static final long serialVersionUID = 1L;
+            private final Path root;
+            private final Path staging;
+            private final Path dir;
+            private final boolean excluded;
+            private final LongAdder[] counters;
+            
+            Walk(Path root, Path staging, Path dir, boolean excluded, LongAdder[] counters)  {
+                this.root       = root;
+                this.staging    = staging;
+                this.dir        = dir;
+                this.excluded   = excluded;
+                this.counters   = counters;
+                }
+            
+            @Override
+            protected void compute()  {
+                List<Walk> subfolders = new ArrayList<>();
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir))  {
+                    for (Path entry : entries)  {
+                        String relativePath = root.relativize(entry).toString();
+                        if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS))
+                            subfolders.add(new Walk(root, staging, entry, excluded || isFolderExcluded(relativePath), counters));
+                        else  if (Files.isRegularFile(entry))  {
+                            long size = Files.size(entry);
+                            if (!excluded && isIncluded(relativePath))  {
+                                linkOrCopy(entry, staging.resolve(relativePath));
+                                counters[0].increment();
+                                counters[1].add(size);
+                                }
+                            else  {
+                                counters[2].increment();
+                                counters[3].add(size);
+                                }
+                            }
+                        }
+                    }
+                catch (IOException e)  {
+                    throw new UncheckedIOException(e);
+                    }
+                invokeAll(subfolders);
+                }
+            }
+        
+        boolean isIncluded(String relativePath)  {
+            return (includes.isEmpty() || matches(includes, relativePath)) && !matches(excludes, relativePath);
+            }
+        
+        // a folder matching an exclude pattern ending with ** has all its content excluded
+        boolean isFolderExcluded(String relativePath)  {
+            for (String pattern : excludes)  {
+                if (pattern.endsWith("**") && SelectorUtils.matchPath(pattern, relativePath, File.separatorChar == '/'))
+                    return true;
+                }
+            return false;
+            }
+        
+        static boolean matches(List<String> patterns, String relativePath)  {
+            for (String pattern : patterns)  {
+                if (SelectorUtils.matchPath(pattern, relativePath, File.separatorChar == '/'))
+                    return true;
+                }
+            return false;
+            }
+        
+        static List<String> parsePatterns(String patterns)  {
+            List<String> parsed = new ArrayList<>();
+            for (String pattern : patterns.split(","))  {
+                pattern = pattern.trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+                if (pattern.isEmpty())
+                    continue;
+                if (pattern.endsWith(File.separator))
+                    pattern += "**";
+                parsed.add(pattern);
+                }
+            return parsed;
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    static void linkOrCopy(Path source, Path target) throws IOException  {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, source);
+            }
+        catch (IOException | UnsupportedOperationException e)  {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+    
+    private CarlSourceStaging()  { }
+    
+    }
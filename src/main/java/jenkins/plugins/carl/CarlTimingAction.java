@@ -0,0 +1,68 @@
+package jenkins.plugins.carl;
+
+import hudson.model.Action;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class CarlTimingAction implements Action {
+    
+    private String applicationName;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private long peakWorkingSet = -1;
+    private long cpuTime        = -1;
+    private transient long mark = System.nanoTime();
+    
+    public CarlTimingAction(String applicationName)  {
+        this.applicationName = applicationName;
+        }
+    
+    // the timing starts before the environment gives the expanded name
+    public void setApplicationName(String applicationName)  {
+        this.applicationName = applicationName;
+        }
+    
+    public void mark(String phase)  {
+        long now = System.nanoTime();
+        phases.merge(phase, TimeUnit.NANOSECONDS.toMillis(now - mark), Long::sum);
+        mark = now;
+        }
+    
+    public void setProcessUsage(long peakWorkingSet, long cpuTime)  {
+        this.peakWorkingSet = peakWorkingSet;
+        this.cpuTime        = cpuTime;
+        }
+    
+    public void print(PrintStream logger)  {
+        logger.printf("Carl timing breakdown:%n");
+        for (Map.Entry<String, Long> phase : phases.entrySet())
+            logger.printf("     %-18s: %d ms%n", phase.getKey(), phase.getValue());
+        logger.printf("     %-18s: %d ms%n", "total", getTotalTime());
+        if (peakWorkingSet >= 0)
+            logger.printf("CarlQG.exe peak working set: %d KB, CPU time: %d ms%n", peakWorkingSet, cpuTime);
+        logger.println();
+        }
+    
+    public String getApplicationName()      { return applicationName; }
+    public Map<String, Long> getPhases()    { return phases; }
+    public long getPeakWorkingSet()         { return peakWorkingSet; }
+    public long getCpuTime()                { return cpuTime; }
+    
+    public long getTotalTime()  {
+        long total = 0;
+        for (long duration : phases.values())
+            total += duration;
+        return total;
+        }
+    
+    @Override
+    public String getIconFileName()  { return null; }
+
+    @Override
+    public String getDisplayName()  { return "Carl timing"; }
+
+    @Override
+    public String getUrlName()  { return null; }
+    
+    }
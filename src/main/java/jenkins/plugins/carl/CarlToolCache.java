@@ -0,0 +1,176 @@
+package jenkins.plugins.carl;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+
+public class CarlToolCache {
+    
+    static final String EXECUTABLE  = "CarlQG.exe";
+    static final long PROBE_TTL     = TimeUnit.MINUTES.toMillis(Long.getLong(CarlToolCache.class.getName() + ".probeTtlMinutes", 10));
+    
+    // installation@node -> home translated for the node, before environment expansion
+    private static final Map<String, String> HOMES  = new ConcurrentHashMap<>();
+    // node@executable path -> probe of an existing executable
+    private static final Map<String, Probe> PROBES  = new ConcurrentHashMap<>();
+    
+    static public class Resolved  {
+        private final FilePath executable;
+        private final String probeKey;
+        private final Probe probe;
+        private final CarlExecutionBackend backend;
+        
+        Resolved(FilePath executable, String probeKey, Probe probe, CarlExecutionBackend backend)  {
+            this.executable = executable;
+            this.probeKey   = probeKey;
+            this.probe      = probe;
+            this.backend    = backend;
+            }
+        
+        public FilePath getExecutable()     { return executable; }
+        public CarlExecutionBackend getBackend()  { return backend; }
+        public boolean exists()             { return probe.exists; }
+        public String getVersion()          { return probe.version; }
+        }
+    
+    static public @CheckForNull Resolved resolve(CarlInstallation installation, Node node, EnvVars env, TaskListener listener) throws IOException, InterruptedException  {
+        return resolve(installation, node, env, listener, true);
+        }
+    
+    static private @CheckForNull Resolved resolve(CarlInstallation installation, Node node, EnvVars env, TaskListener listener, boolean retry) throws IOException, InterruptedException  {
+        String nodeName = (node == null) ? "" : node.getNodeName();
+        String homeKey  = installation.getName() + "@" + nodeName;
+        String home     = HOMES.get(homeKey);
+        boolean cached  = (home != null);
+        if (home == null)  {
+            home = (node == null) ? installation.getHome() : installation.forNode(node, listener).getHome();
+            if (home == null)
+                return null;
+            HOMES.put(homeKey, home);
+            }
+        if (env != null)
+            home = env.expand(home);
+        FilePath homeFilePath = (node == null) ? new FilePath(new File(home)) : node.createPath(home);
+        if (homeFilePath == null)
+            return null;
+        FilePath executable = homeFilePath.child(EXECUTABLE);
+        String probeKey = nodeName + "@" + executable.getRemote();
+        Probe probe = PROBES.get(probeKey);
+        // kept for the TTL without a remote call, a removed executable is noticed when its launch fails
+        if ((probe != null) && (System.currentTimeMillis() - probe.timestamp > PROBE_TTL))
+            probe = null;
+        if (probe == null)  {
+            probe = executable.act(new ProbeCallable());
+            probe.timestamp = System.currentTimeMillis();
+            if (probe.exists)
+                PROBES.put(probeKey, probe);
+            else
+                PROBES.remove(probeKey);
+            }
+        if (!probe.exists && cached && retry)  {
+            // the installation may have moved or must be installed again on this node
+            HOMES.remove(homeKey);
+            return resolve(installation, node, env, listener, false);
+            }
+        return new Resolved(executable, probeKey, probe, installation.getBackend());
+        }
+    
+    // exit status of a shell or cmd.exe not finding the command
+    static public boolean isNotFound(int status)  {
+        return (status == 127) || (status == 9009);
+        }
+    
+    // after a failed launch, the next resolution probes the executable again
+    static public void invalidate(Resolved tool)  {
+        PROBES.remove(tool.probeKey);
+        }
+    
+    static public void invalidate()  {
+        HOMES.clear();
+        PROBES.clear();
+        }
+    
+    static public void invalidate(String nodeName)  {
+        HOMES.keySet().removeIf(key -> key.endsWith("@" + nodeName));
+        PROBES.keySet().removeIf(key -> key.startsWith(nodeName + "@"));
+        }
+    
+    static final class Probe implements Serializable  {
+        private static final long serialVersionUID = 1L;
+        final boolean exists;
+        final String version;
+        transient long timestamp;
+        
+        Probe(boolean exists, String version)  {
+            this.exists     = exists;
+            this.version    = version;
+            }
+        }
+    
+    static final class ProbeCallable implements FilePath.FileCallable<Probe>  {
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        public Probe invoke(File f, VirtualChannel channel) throws IOException  {
+            if (!f.isFile())
+                return new Probe(false, null);
+            String version = (File.pathSeparatorChar == ';') ? readFileVersion(f) : null;
+            if ((version == null) || version.isEmpty())
+                version = f.length() + "-" + f.lastModified();
+            return new Probe(true, version);
+            }
+        
+        static private @CheckForNull String readFileVersion(File f)  {
+            String command = "(Get-Item -LiteralPath '" + f.getAbsolutePath().replace("'", "''") + "').VersionInfo.FileVersion";
+            try {
+                Process process = new ProcessBuilder("powershell.exe", "-NoProfile", "-NonInteractive", "-Command", command).redirectErrorStream(true).start();
+                process.getOutputStream().close();
+                String version;
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), Charset.defaultCharset())))  {
+                    version = reader.readLine();
+                    while (reader.readLine() != null)  { }
+                    }
+                return (process.waitFor() == 0) && (version != null) ? version.trim() : null;
+                }
+            catch (IOException e)  {
+                return null;
+                }
+            catch (InterruptedException e)  {
+                Thread.currentThread().interrupt();
+                return null;
+                }
+            }
+
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    @Extension
+    public static class Listener extends ComputerListener  {
+        @Override
+        public void onOnline(Computer c, TaskListener listener)  {
+            invalidate(c.getName());
+            }
+        
+        @Override
+        public void onConfigurationChange()  {
+            invalidate();
+            }
+        }
+    
+    }
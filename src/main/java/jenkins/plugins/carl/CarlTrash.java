@@ -0,0 +1,111 @@
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.WorkspaceList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+public class CarlTrash {
+    
+    private static final Logger LOGGER = Logger.getLogger(CarlTrash.class.getName());
+    static final String TRASH_PREFIX = ".carl-trash-";
+    static final int DELETE_BATCH   = 200;
+    static final long DELETE_PAUSE  = 20;
+    
+    // one low priority reaper per JVM (controller or agent), so deletions never compete with the analyses
+    private static final ExecutorService REAPER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Carl trash reaper");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+        });
+    
+    // moves dir into workspace@tmp, out of the way of the archivers and of the workspace browser,
+    // returns false when the directory could not be renamed and must be deleted synchronously
+    static public boolean discard(FilePath workspace, FilePath dir) throws IOException, InterruptedException  {
+        return dir.act(new Discard(WorkspaceList.tempDir(workspace).getRemote()));
+        }
+    
+    static final class Discard implements FilePath.FileCallable<Boolean>  {
+        private static final long serialVersionUID = 1L;
+        private final String trashPath;
+        
+        Discard(String trashPath)  {
+            this.trashPath = trashPath;
+            }
+        
+        @Override
+        public Boolean invoke(File f, VirtualChannel channel) throws IOException  {
+            Path dir = f.toPath();
+            if (!Files.isDirectory(dir))
+                return true;
+            Path trashRoot = new File(trashPath).toPath();
+            Path trash = trashRoot.resolve(TRASH_PREFIX + dir.getFileName() + "-" + UUID.randomUUID());
+            try {
+                Files.createDirectories(trashRoot);
+                Files.move(dir, trash, StandardCopyOption.ATOMIC_MOVE);
+                }
+            catch (AtomicMoveNotSupportedException e)  {
+                // result folder on another file system than the workspace
+                return false;
+                }
+            catch (FileSystemException e)  {
+                // typically a file still opened by another process under Windows
+                LOGGER.log(Level.FINE, "Cannot rename " + dir, e);
+                return false;
+                }
+            Files.createDirectories(dir);
+            reap(trashRoot);
+            // trash left next to the result folders by the earlier versions
+            reap(dir.getParent());
+            return true;
+            }
+        
+        @Override
+        public void checkRoles(org.jenkinsci.remoting.RoleChecker checker) throws SecurityException  { }
+        }
+    
+    // also picks up the trash left behind by a previous JVM stopped before its reaper finished
+    static Future<?> reap(Path parent)  {
+        return REAPER.submit(() -> {
+            try (Stream<Path> stream = Files.list(parent))  {
+                stream.filter(path -> path.getFileName().toString().startsWith(TRASH_PREFIX)).forEach(CarlTrash::delete);
+                }
+            catch (IOException e)  {
+                LOGGER.log(Level.FINE, "Cannot list " + parent, e);
+                }
+            });
+        }
+    
+    static void delete(Path trash)  {
+        try (Stream<Path> stream = Files.walk(trash))  {
+            int count = 0;
+            for (Path path : (Iterable<Path>) stream.sorted(Comparator.reverseOrder())::iterator)  {
+                Files.deleteIfExists(path);
+                if (++count % DELETE_BATCH == 0)
+                    Thread.sleep(DELETE_PAUSE);
+                }
+            }
+        catch (IOException e)  {
+            LOGGER.log(Level.FINE, "Cannot delete " + trash, e);
+            }
+        catch (InterruptedException e)  {
+            Thread.currentThread().interrupt();
+            }
+        }
+    
+    }
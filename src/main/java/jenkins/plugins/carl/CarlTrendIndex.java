@@ -0,0 +1,241 @@
+package jenkins.plugins.carl;
+
+import hudson.model.Job;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+
+public class CarlTrendIndex {
+    
+    static final String RECORD_FILENAME     = "carl-trend.idx";
+    static final String VIOLATION_FILENAME  = "carl-trend-violations.idx";
+    static final String NAME_FILENAME       = "carl-trend-names.txt";
+    static final int RECORD_SIZE            = 4 + 4 + 8 * 4;    // build, application, timestamp, rules, files, issues
+    static final int VIOLATION_SIZE         = 4 + 4 + 4 + 8;    // build, application, tag, count
+    
+    static private final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+    
+    static public class Record  {
+        final int buildNumber;
+        final String applicationName;
+        final long timestamp;
+        final long checkedRuleCount;
+        final long fileCount;
+        final long issueCount;
+        final Map<String, Long> violationCounts = new LinkedHashMap<>();
+        
+        Record(int buildNumber, String applicationName, long timestamp, long checkedRuleCount, long fileCount, long issueCount)  {
+            this.buildNumber        = buildNumber;
+            this.applicationName    = applicationName;
+            this.timestamp          = timestamp;
+            this.checkedRuleCount   = checkedRuleCount;
+            this.fileCount          = fileCount;
+            this.issueCount         = issueCount;
+            }
+        
+        public int getBuildNumber()                     { return buildNumber; }
+        public String getApplicationName()              { return applicationName; }
+        public long getTimestamp()                      { return timestamp; }
+        public long getCheckedRuleCount()               { return checkedRuleCount; }
+        public long getFileCount()                      { return fileCount; }
+        public long getIssueCount()                     { return issueCount; }
+        public Map<String, Long> getViolationCounts()   { return violationCounts; }
+        }
+    
+    static public boolean exists(Job<?, ?> job)  {
+        return new File(job.getRootDir(), RECORD_FILENAME).isFile();
+        }
+    
+    static public long lastModified(Job<?, ?> job)  {
+        return new File(job.getRootDir(), RECORD_FILENAME).lastModified();
+        }
+    
+    // a record is written after its violations, so that a record never misses them: a crash may leave a torn tail,
+    // cut at the next append, or violations without a record, dropped like those of a run being recorded again
+    static public void append(Job<?, ?> job, int buildNumber, long timestamp, String applicationName, CarlResult result, @CheckForNull CarlResultDetail detail) throws IOException  {
+        File dir = job.getRootDir();
+        synchronized (getLock(dir))  {
+            truncateTornTail(dir);
+            List<String> names = readNames(dir);
+            Map<String, Integer> ids = new HashMap<>();
+            for (int i=0; i<names.size(); i++)
+                ids.put(names.get(i), i);
+            List<String> addedNames = new ArrayList<>();
+            int applicationId = getId(applicationName, ids, names.size(), addedNames);
+            long key = getKey(buildNumber, applicationId);
+            if (readKeys(new File(dir, RECORD_FILENAME), RECORD_SIZE).contains(key) || readKeys(new File(dir, VIOLATION_FILENAME), VIOLATION_SIZE).contains(key))
+                rewrite(dir, Collections.singleton(key));
+            
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            record.putInt(buildNumber).putInt(applicationId).putLong(timestamp);
+            record.putLong(result.checkedRuleCount).putLong(result.fileCount).putLong(result.issueCount);
+            List<CarlResultDetail.ViolationType> violationTypes = (detail == null) ? new ArrayList<>() : detail.violationTypes;
+            ByteBuffer violations = ByteBuffer.allocate(VIOLATION_SIZE * violationTypes.size());
+            for (CarlResultDetail.ViolationType violationType : violationTypes)
+                violations.putInt(buildNumber).putInt(applicationId).putInt(getId(violationType.name, ids, names.size(), addedNames)).putLong(violationType.count);
+            
+            if (!addedNames.isEmpty())
+                Files.write(new File(dir, NAME_FILENAME).toPath(), addedNames, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            append(new File(dir, VIOLATION_FILENAME), violations);
+            append(new File(dir, RECORD_FILENAME), record);
+            }
+        }
+    
+    // the records of deleted builds are pruned on the way
+    static public List<Record> read(Job<?, ?> job) throws IOException  {
+        File dir = job.getRootDir();
+        synchronized (getLock(dir))  {
+            List<String> names = readNames(dir);
+            Map<Long, Record> records = new LinkedHashMap<>();
+            Set<Long> deleted = new HashSet<>();
+            ByteBuffer buffer = load(new File(dir, RECORD_FILENAME));
+            while (buffer.remaining() >= RECORD_SIZE)  {
+                int buildNumber     = buffer.getInt();
+                int applicationId   = buffer.getInt();
+                Record record = new Record(buildNumber, getName(names, applicationId), buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+                if (new File(job.getBuildDir(), String.valueOf(buildNumber)).isDirectory())
+                    records.put(getKey(buildNumber, applicationId), record);
+                else
+                    deleted.add(getKey(buildNumber, applicationId));
+                }
+            buffer = load(new File(dir, VIOLATION_FILENAME));
+            while (buffer.remaining() >= VIOLATION_SIZE)  {
+                Record record = records.get(getKey(buffer.getInt(), buffer.getInt()));
+                String tagName = getName(names, buffer.getInt());
+                long count = buffer.getLong();
+                if (record != null)
+                    record.violationCounts.put(tagName, count);
+                }
+            if (!deleted.isEmpty())
+                rewrite(dir, deleted);
+            List<Record> result = new ArrayList<>(records.values());
+            result.sort(Comparator.comparingInt((Record record) -> record.buildNumber));
+            return result;
+            }
+        }
+    
+    static private Object getLock(File dir)  {
+        return LOCKS.computeIfAbsent(dir.getAbsolutePath(), k -> new Object());
+        }
+    
+    // drops what a crash in the middle of a write left after the last complete record or name
+    static private void truncateTornTail(File dir) throws IOException  {
+        truncate(new File(dir, RECORD_FILENAME), RECORD_SIZE);
+        truncate(new File(dir, VIOLATION_FILENAME), VIOLATION_SIZE);
+        File names = new File(dir, NAME_FILENAME);
+        if (names.isFile())  {
+            byte[] bytes = Files.readAllBytes(names.toPath());
+            int end = bytes.length;
+            while ((end > 0) && (bytes[end - 1] != '\n'))
+                end--;
+            if (end < bytes.length)  {
+                try (FileChannel channel = FileChannel.open(names.toPath(), StandardOpenOption.WRITE))  {
+                    channel.truncate(end);
+                    }
+                }
+            }
+        }
+    
+    static private void truncate(File file, int recordSize) throws IOException  {
+        if (!file.isFile())
+            return;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE))  {
+            long size = channel.size();
+            if (size % recordSize != 0)
+                channel.truncate(size - size % recordSize);
+            }
+        }
+    
+    static private Set<Long> readKeys(File file, int recordSize) throws IOException  {
+        Set<Long> keys = new HashSet<>();
+        ByteBuffer buffer = load(file);
+        while (buffer.remaining() >= recordSize)  {
+            keys.add(getKey(buffer.getInt(), buffer.getInt()));
+            buffer.position(buffer.position() + recordSize - 8);
+            }
+        return keys;
+        }
+    
+    // the violations first, so that a record is never left without them
+    static private void rewrite(File dir, Set<Long> dropped) throws IOException  {
+        rewrite(new File(dir, VIOLATION_FILENAME), VIOLATION_SIZE, dropped);
+        rewrite(new File(dir, RECORD_FILENAME), RECORD_SIZE, dropped);
+        }
+    
+    static private void rewrite(File file, int recordSize, Set<Long> dropped) throws IOException  {
+        if (!file.isFile())
+            return;
+        ByteBuffer buffer = load(file);
+        ByteBuffer kept = ByteBuffer.allocate(buffer.remaining() - buffer.remaining() % recordSize);
+        while (buffer.remaining() >= recordSize)  {
+            int start = buffer.position();
+            long key = getKey(buffer.getInt(), buffer.getInt());
+            buffer.position(start + recordSize);
+            if (!dropped.contains(key))  {
+                ByteBuffer entry = buffer.duplicate();
+                entry.limit(start + recordSize);
+                entry.position(start);
+                kept.put(entry);
+                }
+            }
+        File temp = new File(file.getPath() + ".tmp");
+        Files.deleteIfExists(temp.toPath());
+        append(temp, kept);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    
+    static private long getKey(int buildNumber, int applicationId)  {
+        return ((long)buildNumber << 32) | (applicationId & 0xFFFFFFFFL);
+        }
+    
+    static private int getId(String name, Map<String, Integer> ids, int nameCount, List<String> addedNames)  {
+        String safeName = (name == null) ? "" : name.replaceAll("[\\r\\n]", " ");
+        Integer id = ids.get(safeName);
+        if (id == null)  {
+            id = nameCount + addedNames.size();
+            ids.put(safeName, id);
+            addedNames.add(safeName);
+            }
+        return id;
+        }
+    
+    static private String getName(List<String> names, int id)  {
+        return ((id >= 0) && (id < names.size())) ? names.get(id) : ("#" + id);
+        }
+    
+    static private List<String> readNames(File dir) throws IOException  {
+        File file = new File(dir, NAME_FILENAME);
+        return file.isFile() ? Files.readAllLines(file.toPath(), StandardCharsets.UTF_8) : new ArrayList<>();
+        }
+    
+    static private ByteBuffer load(File file) throws IOException  {
+        return file.isFile() ? CarlResultStore.read(file, Integer.MAX_VALUE) : ByteBuffer.allocate(0);
+        }
+    
+    static private void append(File file, ByteBuffer buffer) throws IOException  {
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND))  {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            }
+        }
+    
+    private CarlTrendIndex()  { }
+    
+    }
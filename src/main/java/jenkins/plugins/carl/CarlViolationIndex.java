@@ -0,0 +1,192 @@
+package jenkins.plugins.carl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+// violations of a build held in primitive arrays over the interned string table of the result store
+public class CarlViolationIndex {
+    
+    private final String[] strings;
+    private final int[] tagNames;           // per tag: string id
+    private final long[] tagCounts;
+    private final int[] tagStarts;          // per tag: first entry, entries of a tag are sorted by decreasing count
+    private final int[] entryRules;         // per entry: string id of the rule
+    private final long[] entryCounts;
+    private final long[] ruleTotals;        // per string id: count of the rule over all tags
+    private final int[] ruleTagCounts;      // per string id: number of tags reporting the rule
+    private int[] sortedRules;
+    private int[] sortedEntries;
+    
+    private CarlViolationIndex(String[] strings, int tagCount, int entryCount)  {
+        this.strings        = strings;
+        this.tagNames       = new int[tagCount];
+        this.tagCounts      = new long[tagCount];
+        this.tagStarts      = new int[tagCount + 1];
+        this.entryRules     = new int[entryCount];
+        this.entryCounts    = new long[entryCount];
+        this.ruleTotals     = new long[strings.length];
+        this.ruleTagCounts  = new int[strings.length];
+        }
+    
+    static public CarlViolationIndex read(File file) throws IOException  {
+        try {
+            ByteBuffer buffer = CarlResultStore.read(file, Integer.MAX_VALUE);
+            if ((buffer.getInt() != CarlResultStore.MAGIC) || (buffer.getInt() != CarlResultStore.VERSION))
+                throw new IOException("Unsupported Carl result file format!");
+            buffer.position(CarlResultStore.HEADER_SIZE);
+            String[] strings = new String[buffer.getInt()];
+            for (int i=0; i<strings.length; i++)  {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            // first pass to size the arrays
+            int typesPosition = buffer.position();
+            int tagCount = buffer.getInt();
+            int entryCount = 0;
+            for (int i=0; i<tagCount; i++)  {
+                buffer.position(buffer.position() + 4 + 8 + 4);
+                int storedCount = buffer.getInt();
+                entryCount += storedCount;
+                buffer.position(buffer.position() + storedCount * (4 + 8));
+                }
+            CarlViolationIndex index = new CarlViolationIndex(strings, tagCount, entryCount);
+            buffer.position(typesPosition + 4);
+            int entry = 0;
+            for (int i=0; i<tagCount; i++)  {
+                index.tagNames[i]   = buffer.getInt();
+                index.tagCounts[i]  = buffer.getLong();
+                index.tagStarts[i]  = entry;
+                buffer.getInt();
+                int storedCount = buffer.getInt();
+                for (int j=0; j<storedCount; j++, entry++)  {
+                    int rule = buffer.getInt();
+                    long count = buffer.getLong();
+                    index.entryRules[entry]     = rule;
+                    index.entryCounts[entry]    = count;
+                    index.ruleTotals[rule]     += count;
+                    index.ruleTagCounts[rule]++;
+                    }
+                sortRun(index.entryRules, index.entryCounts, index.tagStarts[i], entry);
+                }
+            index.tagStarts[tagCount] = entry;
+            return index;
+            }
+        catch (RuntimeException e)  {
+            throw new IOException("Corrupted Carl result file " + file, e);
+            }
+        }
+    
+    // the store keeps the details in analysis order, a run is sorted by decreasing count: each key packs the
+    // complement of the count (beyond 2^31 violations of one rule, counts tie) above the position in the run,
+    // so that an ascending sort of primitive keys gives decreasing counts and keeps the analysis order of ties
+    static private void sortRun(int[] rules, long[] counts, int from, int to)  {
+        long[] keys = new long[to - from];
+        for (int i=0; i<keys.length; i++)
+            keys[i] = ((Integer.MAX_VALUE - Math.min(counts[from + i], Integer.MAX_VALUE)) << 32) | i;
+        Arrays.sort(keys);
+        int[] sortedRules = new int[keys.length];
+        long[] sortedCounts = new long[keys.length];
+        for (int i=0; i<keys.length; i++)  {
+            int position = from + (int) keys[i];
+            sortedRules[i]  = rules[position];
+            sortedCounts[i] = counts[position];
+            }
+        System.arraycopy(sortedRules, 0, rules, from, keys.length);
+        System.arraycopy(sortedCounts, 0, counts, from, keys.length);
+        }
+    
+    public int getTagCount()                    { return tagNames.length; }
+    public String getTagName(int tag)           { return strings[tagNames[tag]]; }
+    public long getTagCount(int tag)            { return tagCounts[tag]; }
+    public int getTagRuleCount(int tag)         { return tagStarts[tag + 1] - tagStarts[tag]; }
+    
+    public int getEntryCount()                  { return entryRules.length; }
+    public String getEntryRule(int entry)       { return strings[entryRules[entry]]; }
+    public long getEntryCount(int entry)        { return entryCounts[entry]; }
+    
+    public String getRuleName(int rule)         { return strings[rule]; }
+    public long getRuleTotal(int rule)          { return ruleTotals[rule]; }
+    public int getRuleTagCount(int rule)        { return ruleTagCounts[rule]; }
+    
+    public String getEntryTag(int entry)  {
+        int tag = Arrays.binarySearch(tagStarts, entry);
+        if (tag < 0)
+            tag = -tag - 2;
+        else
+            while (tagStarts[tag + 1] == entry)     // skip tags without entries
+                tag++;
+        return getTagName(tag);
+        }
+    
+    public int findTag(String name)  {
+        for (int tag=0; tag<tagNames.length; tag++)  {
+            if (strings[tagNames[tag]].equals(name))
+                return tag;
+            }
+        return -1;
+        }
+    
+    // entries of a tag, by decreasing count
+    public int[] getTagEntries(int tag, int offset, int limit)  {
+        int from = Math.min(tagStarts[tag] + offset, tagStarts[tag + 1]);
+        int to   = (int) Math.min((long) from + limit, tagStarts[tag + 1]);
+        int[] entries = new int[to - from];
+        for (int i=0; i<entries.length; i++)
+            entries[i] = from + i;
+        return entries;
+        }
+    
+    // entries of all tags, by decreasing count
+    public synchronized int[] getSortedEntries()  {
+        if (sortedEntries == null)  {
+            // k-way merge of the runs of each tag, already sorted by decreasing count
+            int[] positions = Arrays.copyOf(tagStarts, tagNames.length);
+            PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(1, tagNames.length), (a, b) -> Long.compare(entryCounts[positions[b]], entryCounts[positions[a]]));
+            for (int tag=0; tag<tagNames.length; tag++)  {
+                if (positions[tag] < tagStarts[tag + 1])
+                    heads.add(tag);
+                }
+            int[] sorted = new int[entryRules.length];
+            int i = 0;
+            while (!heads.isEmpty())  {
+                int tag = heads.poll();
+                sorted[i++] = positions[tag]++;
+                if (positions[tag] < tagStarts[tag + 1])
+                    heads.add(tag);
+                }
+            sortedEntries = sorted;
+            }
+        return sortedEntries;
+        }
+    
+    // string ids of the rules, by decreasing total count
+    public synchronized int[] getSortedRules()  {
+        if (sortedRules == null)  {
+            sortedRules = Arrays.stream(rulesOf(ruleTagCounts))
+                    .boxed().sorted((a, b) -> Long.compare(ruleTotals[b], ruleTotals[a]))
+                    .mapToInt(Integer::intValue).toArray();
+            }
+        return sortedRules;
+        }
+    
+    static private int[] rulesOf(int[] ruleTagCounts)  {
+        int count = 0;
+        for (int tagCount : ruleTagCounts)  {
+            if (tagCount > 0)
+                count++;
+            }
+        int[] rules = new int[count];
+        for (int rule=0, i=0; rule<ruleTagCounts.length; rule++)  {
+            if (ruleTagCounts[rule] > 0)
+                rules[i++] = rule;
+            }
+        return rules;
+        }
+    
+    }
@@ -0,0 +1,68 @@
+package jenkins.plugins.carl;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.Util;
+import java.util.ArrayList;
+import java.util.List;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+public class CarlWineBackend extends CarlExecutionBackend {
+    
+    private String winePath = DescriptorImpl.defaultWinePath;
+    private String winePrefix = "";
+    
+    @DataBoundConstructor
+    public CarlWineBackend()  { }
+    
+    @DataBoundSetter
+    public void setWinePath(String winePath)  {
+        this.winePath = Util.fixEmptyAndTrim(winePath) == null ? DescriptorImpl.defaultWinePath : winePath.trim();
+        }
+    
+    @DataBoundSetter
+    public void setWinePrefix(String winePrefix)  {
+        this.winePrefix = Util.fixNull(winePrefix).trim();
+        }
+    
+    public String getWinePath()     { return winePath; }
+    public String getWinePrefix()   { return winePrefix; }
+    
+    @Override
+    public String checkSupported(Launcher launcher)  {
+        return launcher.isUnix() ? null : "Wine execution backend can only be used on Unix agents!";
+        }
+    
+    // absolute Unix paths given as arguments are translated to the Z: drive Wine maps to the root folder
+    @Override
+    public List<String> getCommand(List<String> carlCommand, Launcher launcher)  {
+        List<String> command = new ArrayList<>();
+        command.add(winePath);
+        for (int i=0; i<carlCommand.size(); i++)  {
+            String arg = carlCommand.get(i);
+            command.add(((i > 0) && arg.startsWith("/")) ? "Z:" + arg.replace('/', '\\') : arg);
+            }
+        return command;
+        }
+    
+    @Override
+    public void buildEnvVars(EnvVars env)  {
+        if (!winePrefix.isEmpty())
+            env.put("WINEPREFIX", winePrefix);
+        env.put("WINEDEBUG", "-all");
+        }
+    
+    @Extension @Symbol("wine")
+    public static class DescriptorImpl extends CarlExecutionBackendDescriptor  {
+        public static final String defaultWinePath = "wine";
+        
+        @Override
+        public String getDisplayName()  {
+            return Messages.Carl_WineBackend_DisplayName();
+            }
+        }
+    
+    }
@@ -0,0 +1,38 @@
+package jenkins.plugins.carl;
+
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.Util;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+public class CarlWrapperBackend extends CarlExecutionBackend {
+    
+    private final String wrapperCommand;
+    
+    @DataBoundConstructor
+    public CarlWrapperBackend(String wrapperCommand)  {
+        this.wrapperCommand = Util.fixNull(wrapperCommand).trim();
+        }
+    
+    public String getWrapperCommand()  { return wrapperCommand; }
+    
+    @Override
+    public List<String> getCommand(List<String> carlCommand, Launcher launcher)  {
+        List<String> command = new ArrayList<>(Arrays.asList(Util.tokenize(wrapperCommand)));
+        command.addAll(carlCommand);
+        return command;
+        }
+    
+    @Extension @Symbol("wrapper")
+    public static class DescriptorImpl extends CarlExecutionBackendDescriptor  {
+        @Override
+        public String getDisplayName()  {
+            return Messages.Carl_WrapperBackend_DisplayName();
+            }
+        }
+    
+    }
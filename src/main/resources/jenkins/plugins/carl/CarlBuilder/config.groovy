@@ -22,6 +22,14 @@ f.entry(title:_("ApplicationNameLabel"), field:"applicationName")  {
     f.textbox(clazz:"required")
     }
 
+f.entry(title:_("Includes"), field:"includes", description:"Ant patterns of the source files to analyze, relative to the source path and separated by comma. All files when empty.")  {
+    f.textbox(default:"${descriptor.defaultIncludes}")
+    }
+
+f.entry(title:_("Excludes"), field:"excludes", description:"Ant patterns of the source files to skip, such as <i>**/node_modules/**, **/generated/**</i>.")  {
+    f.textbox(default:"${descriptor.defaultExcludes}")
+    }
+
 f.entry(title:_("QualityGateLabel"), field:"qualityGate", description:"Use <i>critical</i>, <i>tpv</i>, or any tags defined in rulesmanager, separated by comma.")  {
     f.textbox(clazz:"required", default:"${descriptor.defaultQualityGate}")
     }
@@ -35,6 +43,10 @@ f.advanced {
         f.textbox(clazz:"required", default:"${descriptor.defaultOutputPath}")
         }
         
+    f.entry(title:_("IsolateOutput"), field:"isolateOutput", description:"Write the log and output of each analysis into a <i>&lt;build number&gt;-&lt;application name&gt;</i> sub-folder of the paths above, so that concurrent builds and parallel branches sharing a workspace do not overwrite each other's results.")  {
+        f.checkbox(default:descriptor.defaultIsolateOutput)
+        }
+
     f.entry(title:_("DisplayLog"), field:"displayLog")  {
         f.checkbox(default:descriptor.defaultDisplayLog)
         }
@@ -42,4 +54,52 @@ f.advanced {
     f.entry(title:_("ArchivePdf"), field:"archivePdf")  {
         f.checkbox(default:descriptor.defaultArchivePdf)
         }
+
+    f.entry(title:_("Incremental"), field:"incremental", description:"Only analyze the files changed since the revision analyzed by the last successful build.")  {
+        f.checkbox(default:descriptor.defaultIncremental)
+        }
+
+    f.entry(title:_("Snapshot"), field:"snapshot", description:"Analyze the built revision of the source folder fetched from a Git mirror shared by the jobs of the node, instead of the workspace checkout. Incremental analysis is ignored in this mode.")  {
+        f.checkbox(default:descriptor.defaultSnapshot)
+        }
+
+    f.entry(title:_("ArchiveOutput"), field:"archiveOutput", description:"Archive the output folder with the build, so that later stages or jobs can restore it with the <i>carlRestore</i> step. Files unchanged since the previous build are neither transferred nor stored again.")  {
+        f.checkbox(default:descriptor.defaultArchiveOutput)
+        }
+
+    f.entry(title:_("UseCache"), field:"useCache", description:"Reuse the results of a previous analysis of the same sources, quality gate and Carl version on this node.")  {
+        f.checkbox(default:descriptor.defaultUseCache)
+        }
+
+    f.entry(title:_("ShardCount"), field:"shardCount", description:"Number of concurrent Carl processes the sources are split across.")  {
+        f.number(clazz:"positive-number", min:1, default:"${descriptor.defaultShardCount}")
+        }
+
+    f.entry(title:_("Priority"), field:"priority", description:"Analyses with a higher priority get the Carl slots of a limited installation first.")  {
+        f.number(default:"${descriptor.defaultPriority}")
+        }
+
+    f.entry(title:_("FastCleanup"), field:"fastCleanup", description:"Move the previous log and output folders to the workspace temporary folder and delete them in the background instead of before the analysis.")  {
+        f.checkbox(default:descriptor.defaultFastCleanup)
+        }
+
+    f.entry(title:_("Baseline"), field:"baseline", description:"Only fail on violations new or increased relative to this build: lastSuccessful, lastStable or a build number, optionally prefixed by the full name of a job this build may read and #.")  {
+        f.textbox(default:"${descriptor.defaultBaseline}")
+        }
+
+    f.entry(title:_("TimeoutMinutes"), field:"timeoutMinutes", description:"Kill the analysis and abort the build after this many minutes. 0 means no timeout.")  {
+        f.number(clazz:"non-negative-number", min:0, default:"${descriptor.defaultTimeoutMinutes}")
+        }
+
+    f.entry(title:_("IdleTimeoutMinutes"), field:"idleTimeoutMinutes", description:"Kill the analysis and abort the build when Carl writes no output for this many minutes. 0 means no timeout.")  {
+        f.number(clazz:"non-negative-number", min:0, default:"${descriptor.defaultIdleTimeoutMinutes}")
+        }
+
+    f.entry(title:_("MaxMemoryMb"), field:"maxMemoryMb", description:"Kill the analysis and abort the build when a Carl process uses more memory. 0 means no limit. Windows agents only.")  {
+        f.number(clazz:"non-negative-number", min:0, default:"${descriptor.defaultMaxMemoryMb}")
+        }
+
+    f.entry(title:_("MaxCpuMinutes"), field:"maxCpuMinutes", description:"Kill the analysis and abort the build when Carl processes use more CPU time. 0 means no limit. Windows agents only.")  {
+        f.number(clazz:"non-negative-number", min:0, default:"${descriptor.defaultMaxCpuMinutes}")
+        }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.tools.ToolProperty;
+import hudson.util.StreamTaskListener;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import jenkins.model.Jenkins;
+import org.acegisecurity.AccessDeniedException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+
+public class CarlAnalysisSchedulerTest {
+    
+    static final String INSTALLATION_NAME = "Carl limited";
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Before
+    public void setUp()  {
+        CarlInstallation installation = new CarlInstallation(INSTALLATION_NAME, "test\\Home",
+                Collections.<ToolProperty<?>>singletonList(new CarlConcurrencyProperty(1, 0)));
+        CarlInstallation.DescriptorImpl descriptor = (CarlInstallation.DescriptorImpl) jenkinsRule.jenkins.getDescriptor(CarlInstallation.class);
+        descriptor.setInstallations(installation);
+        }
+    
+    @Test
+    public void testLimitPerNode() throws Exception  {
+        CarlAnalysisScheduler scheduler = CarlAnalysisScheduler.get();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CarlAnalysisScheduler.Permit first = scheduler.acquire(INSTALLATION_NAME, "agent", 1, 0, StreamTaskListener.fromStdout());
+            Future<CarlAnalysisScheduler.Permit> second = executor.submit(() -> scheduler.acquire(INSTALLATION_NAME, "agent", 1, 0, StreamTaskListener.fromStdout()));
+            try {
+                second.get(1, TimeUnit.SECONDS);
+                fail("Second analysis should wait for the first one");
+                }
+            catch (TimeoutException e)  { }
+            assertEquals(1, scheduler.getQueueLength());
+            
+            try (CarlAnalysisScheduler.Permit permit = scheduler.acquire(INSTALLATION_NAME, "other agent", 1, 0, StreamTaskListener.fromStdout()))  {
+                assertNotNull(permit);
+                }
+            first.close();
+            second.get(10, TimeUnit.SECONDS).close();
+            assertEquals(0, scheduler.getQueueLength());
+            assertEquals(2, scheduler.getStatistics().get(INSTALLATION_NAME + "@agent").getCount());
+            }
+        finally {
+            executor.shutdownNow();
+            }
+        }
+    
+    @Test
+    public void testSchedulerPageForAdministratorsOnly() throws Exception  {
+        jenkinsRule.jenkins.setSecurityRealm(jenkinsRule.createDummySecurityRealm());
+        jenkinsRule.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.ADMINISTER).everywhere().to("admin")
+                .grant(Jenkins.READ).everywhere().to("reader"));
+        CarlSchedulerAction action = new CarlSchedulerAction();
+        
+        try (ACLContext context = ACL.as(User.getById("reader", true)))  {
+            assertNull(action.getUrlName());
+            try {
+                action.getQueueLength();
+                fail("Non-administrators should not see the scheduler");
+                }
+            catch (AccessDeniedException e)  { }
+            }
+        try (ACLContext context = ACL.as(User.getById("admin", true)))  {
+            assertEquals("carl-scheduler", action.getUrlName());
+            assertEquals(0, action.getQueueLength());
+            }
+        JenkinsRule.WebClient webClient = jenkinsRule.createWebClient().login("reader");
+        webClient.assertFails("carl-scheduler/", 404);
+        }
+    
+    }
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.AbortException;
+import hudson.Functions;
+import hudson.model.Result;
+import hudson.tools.InstallSourceProperty;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import static org.hamcrest.Matchers.*;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class CarlAnalysisStepTest {
+    
+    static final String INSTALLATION_NAME = "Fake Carl";
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Test
+    public void testAnalysis() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        setUpInstallation("sh");
+        WorkflowJob job = createJob("isolateOutput: true, useCache: true");
+        WorkflowRun run = jenkinsRule.buildAndAssertSuccess(job);
+        jenkinsRule.assertLogContains("Fake Carl analysis done.", run);
+        jenkinsRule.assertLogContains("Carl result cache miss", run);
+        jenkinsRule.assertLogContains("issues=5", run);
+        assertThat(CarlBuildAction.find(run, "FakeApp").getIssueCount(), is(5L));
+        assertThat(run.getAction(CarlTimingAction.class).getPhases(), hasKey("analysis"));
+        // the output goes through the same filter and progress action as in the build step
+        assertThat(run.getAction(CarlProgressAction.class).isFinished(), is(true));
+        assertThat(run.getAction(CarlProgressAction.class).getOutputFile().isFile(), is(true));
+        
+        // the same sources are restored from the cache, in a folder of their own
+        WorkflowRun cached = jenkinsRule.buildAndAssertSuccess(job);
+        jenkinsRule.assertLogContains("Carl result cache hit", cached);
+        jenkinsRule.assertLogNotContains("Fake Carl analysis done.", cached);
+        jenkinsRule.assertLogContains("issues=5", cached);
+        assertThat(jenkinsRule.jenkins.getWorkspaceFor(job).child("CarlResult/output/2-FakeApp/" + CarlResult.FILENAME).exists(), is(true));
+        assertThat(jenkinsRule.jenkins.getWorkspaceFor(job).child("CarlResult/output/1-FakeApp").exists(), is(false));
+        }
+    
+    @Test
+    public void testQualityGateFailure() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        setUpInstallation("env FAKE_CARL_STATUS=2 sh");
+        WorkflowRun run = createJob("").scheduleBuild2(0).get();
+        jenkinsRule.assertBuildStatus(Result.FAILURE, run);
+        jenkinsRule.assertLogContains("Too much errors found by Carl analysis!", run);
+        }
+    
+    @Test
+    public void testMissingSourceFolder() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        setUpInstallation("sh");
+        WorkflowJob job = jenkinsRule.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition("node {\n"
+                + "  carlAnalysis installationName: '" + INSTALLATION_NAME + "', sourcePath: 'missing', applicationName: 'FakeApp'\n"
+                + "}", true));
+        WorkflowRun run = job.scheduleBuild2(0).get();
+        jenkinsRule.assertBuildStatus(Result.FAILURE, run);
+        jenkinsRule.assertLogContains("Source folder for Carl analysis not found at missing", run);
+        }
+    
+    @Test
+    public void testBatchScript() throws Exception  {
+        String script = CarlAnalysisStep.getBatchScript(Arrays.asList("C:\\Carl\\CarlQG.exe", "-a", "100% App", "-s", "C:\\ws\\%TEMP%"));
+        assertThat(script, containsString("\"C:\\Carl\\CarlQG.exe\" \"-a\" \"100%% App\" \"-s\" \"C:\\ws\\%%TEMP%%\""));
+        assertThat(script, endsWith("exit /b %ERRORLEVEL%\r\n"));
+        try {
+            CarlAnalysisStep.getBatchScript(Arrays.asList("C:\\Carl\\CarlQG.exe", "-a", "My \"App\""));
+            fail("A double quote cannot be passed to a batch script");
+            }
+        catch (AbortException e)  {
+            assertThat(e.getMessage(), containsString("My \"App\""));
+            }
+        }
+    
+    private void setUpInstallation(String wrapperCommand)  {
+        File home = new File(getClass().getResource("fake-carl/CarlQG.exe").getPath()).getParentFile();
+        CarlInstallation installation = new CarlInstallation(INSTALLATION_NAME, home.getAbsolutePath(), new ArrayList<InstallSourceProperty>());
+        installation.setBackend(new CarlWrapperBackend(wrapperCommand));
+        CarlInstallation.DescriptorImpl descriptor = (CarlInstallation.DescriptorImpl) jenkinsRule.jenkins.getDescriptor(CarlInstallation.class);
+        descriptor.setInstallations(installation);
+        }
+    
+    private WorkflowJob createJob(String options) throws Exception  {
+        WorkflowJob job = jenkinsRule.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition("node {\n"
+                + "  sh 'mkdir -p src && echo \"int main() { return 0; }\" > src/main.c'\n"
+                + "  def issues = carlAnalysis installationName: '" + INSTALLATION_NAME + "', sourcePath: 'src', applicationName: 'FakeApp', "
+                + "logPath: 'CarlResult/log', outputPath: 'CarlResult/output'" + (options.isEmpty() ? "" : ", " + options) + "\n"
+                + "  echo \"issues=${issues}\"\n"
+                + "}", true));
+        return job;
+        }
+    
+    }
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+
+public class CarlArchiveInstallerTest {
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Test
+    public void testInstallFromUserContent() throws Exception  {
+        String sha256 = createArchive("carl.zip");
+        CarlArchiveInstaller installer = new CarlArchiveInstaller(null, "carl.zip", sha256);
+        installer.setSubdir("bin");
+        FilePath home = installer.performInstallation(null, jenkinsRule.jenkins, TaskListener.NULL);
+        assertThat(home.child("CarlQG.exe").exists(), is(true));
+        assertThat(home.getParent().getName(), is(sha256));
+        
+        // a second installation of the same archive reuses the cached copy
+        new File(jenkinsRule.jenkins.getRootDir(), "userContent/carl.zip").delete();
+        assertThat(installer.performInstallation(null, jenkinsRule.jenkins, TaskListener.NULL), is(home));
+        }
+    
+    @Test(expected = AbortException.class)
+    public void testChecksumMismatch() throws Exception  {
+        createArchive("carl.zip");
+        CarlArchiveInstaller installer = new CarlArchiveInstaller(null, "carl.zip", "0000000000000000000000000000000000000000000000000000000000000000");
+        installer.performInstallation(null, jenkinsRule.jenkins, TaskListener.NULL);
+        }
+    
+    @Test(expected = AbortException.class)
+    public void testArchiveOutsideUserContent() throws Exception  {
+        CarlArchiveInstaller installer = new CarlArchiveInstaller(null, "../config.xml", createArchive("carl.zip"));
+        installer.performInstallation(null, jenkinsRule.jenkins, TaskListener.NULL);
+        }
+    
+    private String createArchive(String name) throws IOException  {
+        File archive = new File(jenkinsRule.jenkins.getRootDir(), "userContent/" + name);
+        archive.getParentFile().mkdirs();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive)))  {
+            zip.putNextEntry(new ZipEntry("bin/CarlQG.exe"));
+            zip.write("fake executable".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            }
+        return CarlArchiveInstaller.Install.digest(archive.toPath());
+        }
+    
+    }
@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import java.util.List;
+import static org.hamcrest.Matchers.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CarlBaselineTest {
+    
+    @Test
+    public void testCompare()  {
+        CarlResultDetail baseline = detail(new String[][] { {"critical", "Rule A", "3"}, {"critical", "Rule B", "4"}, {"tpv", "Rule C", "1"} });
+        CarlResultDetail current  = detail(new String[][] { {"critical", "Rule A", "3"}, {"critical", "Rule B", "6"}, {"tpv", "Rule C", "0"}, {"tpv", "Rule A", "1"} });
+        List<CarlBaseline.Delta> deltas = CarlBaseline.compare(baseline, current);
+        assertThat(deltas.size(), is(2));
+        assertThat(deltas.get(0).getName(), is("Rule B"));
+        assertThat(deltas.get(0).getIncrease(), is(2L));
+        assertThat(deltas.get(1).getViolationType(), is("tpv"));
+        assertThat(deltas.get(1).getName(), is("Rule A"));
+        assertThat(deltas.get(1).getBaselineCount(), is(0L));
+        }
+    
+    @Test
+    public void testCompareUnchanged()  {
+        CarlResultDetail baseline = detail(new String[][] { {"critical", "Rule A", "3"} });
+        assertThat(CarlBaseline.compare(baseline, baseline), is(empty()));
+        }
+    
+    private CarlResultDetail detail(String[][] rows)  {
+        CarlResultDetail detail = new CarlResultDetail();
+        for (String[] row : rows)  {
+            CarlResultDetail.ViolationType violationType = detail.violationTypes.stream().filter(type -> type.name.equals(row[0])).findFirst().orElse(null);
+            if (violationType == null)  {
+                violationType = new CarlResultDetail.ViolationType(row[0], 0);
+                detail.violationTypes.add(violationType);
+                }
+            long count = Long.parseLong(row[2]);
+            violationType.details.add(new CarlResultDetail.Detail(row[1], count));
+            violationType.count += count;
+            violationType.detailCount++;
+            }
+        return detail;
+        }
+    
+    }
@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.Functions;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.tasks.Shell;
+import hudson.tools.InstallSourceProperty;
+import java.io.File;
+import java.util.ArrayList;
+import static org.hamcrest.Matchers.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class CarlBatchBuilderTest {
+    
+    static final String INSTALLATION_NAME = "Fake Carl";
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Before
+    public void setUp()  {
+        assumeFalse(Functions.isWindows());
+        }
+    
+    @Test
+    public void testBatchAnalysis() throws Exception  {
+        setUpInstallation("sh");
+        CarlBatchBuilder builder = new CarlBatchBuilder(INSTALLATION_NAME);
+        builder.setApplications("Core=core/src");
+        builder.setSourceGlob("modules/*");
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(createProject(builder));
+        assertThat(build.getActions(CarlBuildAction.class).size(), is(3));
+        assertThat(CarlBuildAction.find(build, "Core"), is(notNullValue()));
+        assertThat(CarlBuildAction.find(build, "module-b").getIssueCount(), is(5L));
+        jenkinsRule.assertLogContains("Starting Carl analysis of 3 application(s) with 2 worker(s)", build);
+        assertThat(build.getWorkspace().child("CarlResult/module-a/output/" + CarlResult.FILENAME).exists(), is(true));
+        }
+    
+    @Test
+    public void testBatchQualityGate() throws Exception  {
+        setUpInstallation("env FAKE_CARL_STATUS=2 sh");
+        CarlBatchBuilder builder = new CarlBatchBuilder(INSTALLATION_NAME);
+        builder.setSourceGlob("modules/*");
+        FreeStyleBuild build = createProject(builder).scheduleBuild2(0).get();
+        jenkinsRule.assertBuildStatus(Result.FAILURE, build);
+        jenkinsRule.assertLogContains("Too much errors found by Carl analysis of module-a, module-b!", build);
+        }
+    
+    @Test
+    public void testDuplicateApplicationNames() throws Exception  {
+        setUpInstallation("sh");
+        CarlBatchBuilder builder = new CarlBatchBuilder(INSTALLATION_NAME);
+        builder.setApplications("module-a=modules/module-a");
+        builder.setSourceGlob("modules/*");
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(createProject(builder));
+        assertThat(build.getActions(CarlBuildAction.class).size(), is(2));
+        
+        builder = new CarlBatchBuilder(INSTALLATION_NAME);
+        builder.setSourceGlob("modules/*,other/*");
+        FreeStyleProject project = createProject(builder);
+        project.getBuildersList().add(0, new Shell("mkdir -p other/module-a && touch other/module-a/a.c"));
+        build = project.scheduleBuild2(0).get();
+        jenkinsRule.assertBuildStatus(Result.FAILURE, build);
+        jenkinsRule.assertLogContains("Carl application name \"module-a\" is used by both", build);
+        
+        builder = new CarlBatchBuilder(INSTALLATION_NAME);
+        builder.setApplications("App 1=modules/module-a\nApp_1=modules/module-b");
+        build = createProject(builder).scheduleBuild2(0).get();
+        jenkinsRule.assertBuildStatus(Result.FAILURE, build);
+        jenkinsRule.assertLogContains("Carl applications \"App 1\" and \"App_1\" would share the result folder App_1!", build);
+        }
+    
+    private void setUpInstallation(String wrapperCommand)  {
+        File home = new File(getClass().getResource("fake-carl/CarlQG.exe").getPath()).getParentFile();
+        CarlInstallation installation = new CarlInstallation(INSTALLATION_NAME, home.getAbsolutePath(), new ArrayList<InstallSourceProperty>());
+        installation.setBackend(new CarlWrapperBackend(wrapperCommand));
+        CarlInstallation.DescriptorImpl descriptor = (CarlInstallation.DescriptorImpl) jenkinsRule.jenkins.getDescriptor(CarlInstallation.class);
+        descriptor.setInstallations(installation);
+        }
+    
+    private FreeStyleProject createProject(CarlBatchBuilder builder) throws Exception  {
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject();
+        project.getBuildersList().add(new Shell("mkdir -p core/src modules/module-a modules/module-b && touch core/src/a.c modules/module-a/a.c modules/module-b/b.c"));
+        project.getBuildersList().add(builder);
+        return project;
+        }
+    
+    }
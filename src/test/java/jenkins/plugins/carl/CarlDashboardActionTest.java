@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.model.Jenkins;
+import static org.hamcrest.Matchers.*;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+
+public class CarlDashboardActionTest {
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Test
+    public void testTrendHiddenFromNonAdministrators() throws Exception  {
+        FreeStyleProject visible = jenkinsRule.createFreeStyleProject("visible");
+        FreeStyleProject hidden = jenkinsRule.createFreeStyleProject("hidden");
+        // loaded from the home of this Jenkins, without the results recorded by the other tests
+        assertThat(new CarlDashboardAction().getView().getIssueCount(), is(0L));
+        CarlDashboard.get().record(visible.getFullName(), "App", 1, 1000, result(3), null);
+        CarlDashboard.get().record(hidden.getFullName(), "App", 1, 1000, result(40), null);
+        jenkinsRule.jenkins.setSecurityRealm(jenkinsRule.createDummySecurityRealm());
+        jenkinsRule.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.ADMINISTER).everywhere().to("admin")
+                .grant(Jenkins.READ).everywhere().to("reader")
+                .grant(Item.READ).onItems(visible).to("reader"));
+        CarlDashboardAction action = new CarlDashboardAction();
+        
+        try (ACLContext context = ACL.as(User.getById("reader", true)))  {
+            assertThat(action.getView().getIssueCount(), is(3L));
+            assertThat(action.isTrendVisible(), is(false));
+            assertThat(action.getTrend().isEmpty(), is(true));
+            assertThat(action.getTrendMax(), is(0L));
+            }
+        try (ACLContext context = ACL.as(User.getById("admin", true)))  {
+            assertThat(action.getView().getIssueCount(), is(43L));
+            assertThat(action.isTrendVisible(), is(true));
+            assertThat(action.getTrend().values(), contains(43L));
+            assertThat(action.getTrendMax(), is(43L));
+            }
+        }
+    
+    private static CarlResult result(long issueCount)  {
+        CarlResult result = new CarlResult();
+        result.issueCount = issueCount;
+        return result;
+        }
+    
+    }
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import static org.hamcrest.Matchers.*;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.rules.TemporaryFolder;
+
+public class CarlDashboardTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testRecordAndReload() throws Exception  {
+        File file = new File(folder.getRoot(), CarlDashboard.LOG_FILENAME);
+        CarlDashboard dashboard = new CarlDashboard(file);
+        dashboard.record("team/core", "Core", 1, 1000, result(10), detail("critical", 10));
+        dashboard.record("team/core", "Core", 2, 2000, result(7), detail("critical", 7));
+        dashboard.record("team/core", "Core", 1, 1000, result(10), null);
+        dashboard.record("team/ui", "UI", 5, 3000, result(3), null);
+        dashboard.record("other", "Other", 1, 4000, result(4), null);
+        dashboard.rename("other", "renamed");
+        dashboard.remove("team/ui");
+        
+        CarlDashboard reloaded = new CarlDashboard(file);
+        reloaded.load();
+        for (CarlDashboard current : new CarlDashboard[] { dashboard, reloaded })  {
+            List<CarlDashboard.Entry> entries = current.getEntries();
+            entries.sort((a, b) -> a.jobName.compareTo(b.jobName));
+            assertThat(entries.size(), is(2));
+            assertThat(entries.get(0).getJobName(), is("renamed"));
+            assertThat(entries.get(1).getBuildNumber(), is(2));
+            assertThat(entries.get(1).getIssueCount(), is(7L));
+            assertThat(entries.get(1).getViolationCounts().get("critical"), is(7L));
+            assertThat(current.getTrend().get(CarlDashboard.today()), is(11L));
+            }
+        }
+    
+    @Test
+    public void testCompaction() throws Exception  {
+        File file = new File(folder.getRoot(), CarlDashboard.LOG_FILENAME);
+        CarlDashboard dashboard = new CarlDashboard(file);
+        for (int build=1; build<=CarlDashboard.COMPACTION_MIN; build++)
+            dashboard.record("job", "App", build, build, result(build), null);
+        assertThat(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size(), lessThan(10));
+        CarlDashboard reloaded = new CarlDashboard(file);
+        reloaded.load();
+        assertThat(reloaded.getEntries().get(0).getBuildNumber(), is(CarlDashboard.COMPACTION_MIN));
+        assertThat(reloaded.getTrend().get(CarlDashboard.today()), is((long)CarlDashboard.COMPACTION_MIN));
+        }
+    
+    private static CarlResult result(long issueCount)  {
+        CarlResult result = new CarlResult();
+        result.issueCount = issueCount;
+        return result;
+        }
+    
+    private static CarlResultDetail detail(String tagName, long count)  {
+        CarlResultDetail detail = new CarlResultDetail();
+        detail.violationTypes.add(new CarlResultDetail.ViolationType(tagName, count));
+        return detail;
+        }
+    
+    }
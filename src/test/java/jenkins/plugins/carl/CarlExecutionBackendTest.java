@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.slaves.WorkspaceList;
+import hudson.tasks.Shell;
+import hudson.tools.InstallSourceProperty;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.hamcrest.Matchers.*;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class CarlExecutionBackendTest {
+    
+    static final String INSTALLATION_NAME = "Fake Carl";
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Test
+    public void testWrapperBackend() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        setUpInstallation(new CarlWrapperBackend("sh"));
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(createProject());
+        jenkinsRule.assertLogContains("Fake Carl analysis done.", build);
+        CarlBuildAction action = build.getAction(CarlBuildAction.class);
+        assertThat(action.getIssueCount(), is(5L));
+        assertThat(action.getDetail().getViolationTypes().get(0).getDetails().get(0).getName(), is("Rule B"));
+        }
+    
+    @Test
+    public void testWrapperBackendQualityGateFailure() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        setUpInstallation(new CarlWrapperBackend("env FAKE_CARL_STATUS=2 sh"));
+        FreeStyleBuild build = createProject().scheduleBuild2(0).get();
+        jenkinsRule.assertBuildStatus(Result.FAILURE, build);
+        jenkinsRule.assertLogContains("Too much errors found by Carl analysis!", build);
+        }
+    
+    @Test
+    public void testCarlOutputHiddenWithoutDisplayLog() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        setUpInstallation(new CarlWrapperBackend("sh"));
+        FreeStyleProject project = createProject();
+        CarlBuilder builder = project.getBuildersList().get(CarlBuilder.class);
+        builder.setDisplayLog(false);
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(project);
+        jenkinsRule.assertLogNotContains("Fake Carl analysis done.", build);
+        builder.setDisplayLog(true);
+        builder.setShardCount(2);
+        build = jenkinsRule.buildAndAssertSuccess(project);
+        jenkinsRule.assertLogNotContains("Fake Carl analysis done.", build);
+        }
+    
+    @Test
+    public void testTempDirsRemovedWithIsolatedOutput() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        setUpInstallation(new CarlWrapperBackend("sh"));
+        FreeStyleProject project = createProject();
+        CarlBuilder builder = project.getBuildersList().get(CarlBuilder.class);
+        builder.setIsolateOutput(true);
+        builder.setIncludes("**/*.c");
+        builder.setShardCount(2);
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(project);
+        FilePath tempDir = WorkspaceList.tempDir(build.getWorkspace());
+        assertThat(tempDir.exists() ? tempDir.listDirectories() : new ArrayList<FilePath>(), is(empty()));
+        jenkinsRule.buildAndAssertSuccess(project);
+        assertFalse(build.getWorkspace().child("CarlResult/output/1-FakeApp").exists());
+        assertTrue(build.getWorkspace().child("CarlResult/output/2-FakeApp").exists());
+        assertThat(tempDir.exists() ? tempDir.listDirectories() : new ArrayList<FilePath>(), is(empty()));
+        }
+    
+    @Test
+    public void testNativeBackendOnUnix() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        setUpInstallation(null);
+        FreeStyleBuild build = createProject().scheduleBuild2(0).get();
+        jenkinsRule.assertBuildStatus(Result.FAILURE, build);
+        jenkinsRule.assertLogContains("Carl plugin can only work under Windows!", build);
+        }
+    
+    @Test
+    public void testWineCommand()  {
+        CarlWineBackend backend = new CarlWineBackend();
+        List<String> command = backend.getCommand(Arrays.asList("/opt/carl/CarlQG.exe", "-a", "App", "-s", "/home/jenkins/ws/src"), null);
+        assertThat(command, contains("wine", "/opt/carl/CarlQG.exe", "-a", "App", "-s", "Z:\\home\\jenkins\\ws\\src"));
+        }
+    
+    private void setUpInstallation(CarlExecutionBackend backend)  {
+        File home = new File(getClass().getResource("fake-carl/CarlQG.exe").getPath()).getParentFile();
+        CarlInstallation installation = new CarlInstallation(INSTALLATION_NAME, home.getAbsolutePath(), new ArrayList<InstallSourceProperty>());
+        installation.setBackend(backend);
+        CarlInstallation.DescriptorImpl descriptor = (CarlInstallation.DescriptorImpl) jenkinsRule.jenkins.getDescriptor(CarlInstallation.class);
+        descriptor.setInstallations(installation);
+        }
+    
+    private FreeStyleProject createProject() throws Exception  {
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject();
+        project.getBuildersList().add(new Shell("mkdir -p src && echo 'int main() { return 0; }' > src/main.c"));
+        CarlBuilder builder = new CarlBuilder(INSTALLATION_NAME, "src", "FakeApp");
+        builder.setLogPath("CarlResult/log");
+        builder.setOutputPath("CarlResult/output");
+        project.getBuildersList().add(builder);
+        return project;
+        }
+    
+    }
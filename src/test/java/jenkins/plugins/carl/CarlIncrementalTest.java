@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.git.GitSCM;
+import hudson.slaves.WorkspaceList;
+import hudson.tasks.Shell;
+import hudson.tools.InstallSourceProperty;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import org.apache.commons.io.IOUtils;
+import static org.hamcrest.Matchers.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class CarlIncrementalTest {
+    
+    static final String INSTALLATION_NAME = "Fake Carl";
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private File work;
+    
+    @Before
+    public void setUp() throws Exception  {
+        work = folder.newFolder("work");
+        git(work, "init");
+        }
+    
+    @Test
+    public void testIncrementalAnalysis() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        setUpInstallation();
+        commit("src/a.c", "src/b.c", "other/x.c");
+        FreeStyleProject project = createProject();
+        
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(project);
+        jenkinsRule.assertLogContains("No previous analyzed revision available: running full Carl analysis.", build);
+        jenkinsRule.assertLogContains("Fake Carl analyzed 2 source file(s).", build);
+        assertThat(build.getAction(CarlRevisionAction.class).getRevision(), is(head()));
+        
+        String analyzed = head();
+        build = jenkinsRule.buildAndAssertSuccess(project);
+        jenkinsRule.assertLogContains(String.format("No source file changed since revision %s: Carl analysis skipped.", analyzed), build);
+        jenkinsRule.assertLogNotContains("Fake Carl analysis done.", build);
+        assertThat(build.getAction(CarlRevisionAction.class).getRevision(), is(analyzed));
+        
+        commit("other/y.c");
+        build = jenkinsRule.buildAndAssertSuccess(project);
+        jenkinsRule.assertLogContains("Carl analysis skipped.", build);
+        
+        analyzed = head();
+        git(work, "rm", "-q", "src/a.c");
+        commit("src/b.c", "src/c.c");
+        build = jenkinsRule.buildAndAssertSuccess(project);
+        jenkinsRule.assertLogContains(String.format("Incremental analysis of 2 file(s) changed since revision %s.", analyzed), build);
+        jenkinsRule.assertLogContains("Fake Carl analyzed 2 source file(s).", build);
+        assertThat(build.getAction(CarlRevisionAction.class).getRevision(), is(head()));
+        
+        // the result of the changed files only is neither a trend point nor a baseline
+        assertThat(build.getAction(CarlBuildAction.class).isPartial(), is(true));
+        assertThat(project.getBuildByNumber(1).getAction(CarlBuildAction.class).isPartial(), is(false));
+        assertThat(CarlTrendIndex.read(project).size(), is(1));
+        assertThat(CarlBaseline.find(build, "lastSuccessful", "FakeApp"), is((Object) project.getBuildByNumber(1)));
+        FreeStyleBuild next = jenkinsRule.buildAndAssertSuccess(project);
+        assertThat(CarlBaseline.find(next, "lastSuccessful", "FakeApp"), is((Object) project.getBuildByNumber(1)));
+        
+        // the staged copy of the changed files does not outlive the build
+        FilePath tempDir = WorkspaceList.tempDir(build.getWorkspace());
+        assertThat(tempDir.exists() ? tempDir.listDirectories() : new ArrayList<FilePath>(), is(empty()));
+        }
+    
+    @Test
+    public void testNonAsciiPath() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        assumeThat(System.getProperty("sun.jnu.encoding"), is("UTF-8"));
+        setUpInstallation();
+        commit("src/a.c");
+        FreeStyleProject project = createProject();
+        jenkinsRule.buildAndAssertSuccess(project);
+        
+        // git quotes and escapes such a path unless it is listed with -z
+        String analyzed = head();
+        commit("src/p\u00e9riph\u00e9rique.c");
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(project);
+        jenkinsRule.assertLogContains(String.format("Incremental analysis of 1 file(s) changed since revision %s.", analyzed), build);
+        jenkinsRule.assertLogContains("Fake Carl analyzed 1 source file(s).", build);
+        }
+    
+    @Test
+    public void testFullAnalysisWithoutGit() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        setUpInstallation();
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject();
+        project.getBuildersList().add(new Shell("mkdir -p src && echo 'int main() { return 0; }' > src/main.c"));
+        project.getBuildersList().add(createBuilder());
+        for (int i = 0; i < 2; i++)  {
+            FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(project);
+            jenkinsRule.assertLogContains("No previous analyzed revision available: running full Carl analysis.", build);
+            jenkinsRule.assertLogContains("Fake Carl analyzed 1 source file(s).", build);
+            }
+        }
+    
+    private void setUpInstallation()  {
+        File home = new File(getClass().getResource("fake-carl/CarlQG.exe").getPath()).getParentFile();
+        CarlInstallation installation = new CarlInstallation(INSTALLATION_NAME, home.getAbsolutePath(), new ArrayList<InstallSourceProperty>());
+        installation.setBackend(new CarlWrapperBackend("sh"));
+        CarlInstallation.DescriptorImpl descriptor = (CarlInstallation.DescriptorImpl) jenkinsRule.jenkins.getDescriptor(CarlInstallation.class);
+        descriptor.setInstallations(installation);
+        }
+    
+    private FreeStyleProject createProject() throws Exception  {
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject();
+        project.setScm(new GitSCM("file://" + work.getAbsolutePath()));
+        project.getBuildersList().add(createBuilder());
+        return project;
+        }
+    
+    private CarlBuilder createBuilder()  {
+        CarlBuilder builder = new CarlBuilder(INSTALLATION_NAME, "src", "FakeApp");
+        builder.setLogPath("CarlResult/log");
+        builder.setOutputPath("CarlResult/output");
+        builder.setIncremental(true);
+        return builder;
+        }
+    
+    private String head() throws Exception  {
+        return git(work, "rev-parse", "HEAD").trim();
+        }
+    
+    private void commit(String... files) throws Exception  {
+        for (String file : files)  {
+            File f = new File(work, file);
+            Files.createDirectories(f.getParentFile().toPath());
+            Files.write(f.toPath(), (file + " " + System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+            }
+        git(work, "add", "-A");
+        git(work, "-c", "user.name=Carl", "-c", "user.email=carl@example.com", "commit", "-q", "-m", "Update " + String.join(", ", files));
+        }
+    
+    private static String git(File dir, String... args) throws IOException, InterruptedException  {
+        String[] cmds = new String[args.length + 1];
+        cmds[0] = "git";
+        System.arraycopy(args, 0, cmds, 1, args.length);
+        Process process = new ProcessBuilder(cmds).directory(dir).redirectErrorStream(true).start();
+        String output = IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8);
+        assertThat(output, process.waitFor(), is(0));
+        return output;
+        }
+    
+    }
@@ -30,12 +30,15 @@ import hudson.model.TaskListener;
 import hudson.slaves.DumbSlave;
 import hudson.tools.InstallSourceProperty;
 import hudson.util.StreamTaskListener;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import static org.hamcrest.Matchers.*;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.xml.sax.SAXException;
 
@@ -48,6 +51,9 @@ public class CarlInstallationTest {
     @Rule
     public JenkinsRule jenkinsRule = new JenkinsRule();
     
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
     private final CarlInstallation installation;
     
     public CarlInstallationTest()  {
@@ -70,6 +76,16 @@ public class CarlInstallationTest {
         assertThat(CarlInstallation.fromName(CONFIG_NAME), is(notNullValue()));
         }
     
+    @Test
+    public void testFromNameAfterReconfiguration()  {
+        initToolInstallation();
+        assertThat(CarlInstallation.fromName("other name"), is(nullValue()));
+        CarlInstallation other = new CarlInstallation("other name", CONFIG_HOME, new ArrayList<InstallSourceProperty>());
+        CarlInstallation.DescriptorImpl descriptor = (CarlInstallation.DescriptorImpl) jenkinsRule.jenkins.getDescriptor(CarlInstallation.class);
+        descriptor.setInstallations(installation, other);
+        assertThat(CarlInstallation.fromName("other name"), is(sameInstance(other)));
+        }
+    
     @Test
     public void testForNode() throws Exception {
         DumbSlave agent = jenkinsRule.createSlave();
@@ -89,6 +105,33 @@ public class CarlInstallationTest {
         assertEquals(install.getHome(), "path 1\\path 2");
         }
     
+    @Test
+    public void testResolveAfterExecutableRemoved() throws Exception  {
+        CarlToolCache.invalidate();
+        TaskListener log = StreamTaskListener.fromStdout();
+        File home = folder.newFolder("carl");
+        File executable = new File(home, CarlToolCache.EXECUTABLE);
+        Files.write(executable.toPath(), new byte[] { 1 });
+        CarlInstallation installed = new CarlInstallation(CONFIG_NAME, home.getPath(), new ArrayList<InstallSourceProperty>());
+        assertTrue(CarlToolCache.resolve(installed, null, null, log).exists());
+        
+        // noticed when the launch fails, not by a check on every resolution
+        assertTrue(executable.delete());
+        CarlToolCache.Resolved cached = CarlToolCache.resolve(installed, null, null, log);
+        assertTrue(cached.exists());
+        CarlToolCache.invalidate(cached);
+        assertFalse(CarlToolCache.resolve(installed, null, null, log).exists());
+        
+        // installed again elsewhere, without a configuration change
+        File otherHome = folder.newFolder("carl2");
+        Files.write(new File(otherHome, CarlToolCache.EXECUTABLE).toPath(), new byte[] { 1 });
+        CarlInstallation moved = new CarlInstallation(CONFIG_NAME, otherHome.getPath(), new ArrayList<InstallSourceProperty>());
+        CarlToolCache.resolve(installed, null, null, log);
+        CarlToolCache.Resolved resolved = CarlToolCache.resolve(moved, null, null, log);
+        assertTrue(resolved.exists());
+        assertThat(resolved.getExecutable().getRemote(), is(new File(otherHome, CarlToolCache.EXECUTABLE).getPath()));
+        }
+    
     @Test
     public void testPresenceInJenkinsConfig() throws IOException, SAXException  {
         HtmlPage page = jenkinsRule.createWebClient().goTo("configureTools");
@@ -0,0 +1,56 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import com.codahale.metrics.MetricRegistry;
+import jenkins.metrics.api.Metrics;
+import static org.hamcrest.Matchers.*;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class CarlMetricsTest {
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Test
+    public void testExport() throws Exception  {
+        CarlTimingAction timing = new CarlTimingAction("App");
+        timing.mark("result collection");
+        CarlMetrics.export(timing);
+        MetricRegistry registry = Metrics.metricRegistry();
+        assertThat(registry.getTimers().get("jenkins.plugins.carl.phase.result-collection").getCount(), is(1L));
+        assertThat(registry.getTimers().get("jenkins.plugins.carl.total").getCount(), is(1L));
+        assertThat(registry.getHistograms().containsKey("jenkins.plugins.carl.process.peak-working-set"), is(false));
+        
+        timing.setProcessUsage(2048, 1500);
+        CarlMetrics.export(timing);
+        assertThat(registry.getTimers().get("jenkins.plugins.carl.total").getCount(), is(2L));
+        assertThat(registry.getHistograms().get("jenkins.plugins.carl.process.peak-working-set").getSnapshot().getMax(), is(2048L));
+        assertThat(registry.getHistograms().get("jenkins.plugins.carl.process.cpu-time").getSnapshot().getMax(), is(1500L));
+        }
+    
+    }
@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.Util;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.tasks.Shell;
+import hudson.tools.InstallSourceProperty;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import jenkins.model.Jenkins;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import static org.hamcrest.Matchers.*;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+
+public class CarlOutputArchiveTest {
+    
+    static final String INSTALLATION_NAME = "Fake Carl";
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Test
+    public void testArchiveAndRestore() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        File home = new File(getClass().getResource("fake-carl/CarlQG.exe").getPath()).getParentFile();
+        CarlInstallation installation = new CarlInstallation(INSTALLATION_NAME, home.getAbsolutePath(), new ArrayList<InstallSourceProperty>());
+        installation.setBackend(new CarlWrapperBackend("sh"));
+        ((CarlInstallation.DescriptorImpl) jenkinsRule.jenkins.getDescriptor(CarlInstallation.class)).setInstallations(installation);
+        
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject();
+        project.getBuildersList().add(new Shell("mkdir -p src && touch src/main.c"));
+        CarlBuilder builder = new CarlBuilder(INSTALLATION_NAME, "src", "FakeApp");
+        builder.setLogPath("CarlResult/log");
+        builder.setOutputPath("CarlResult/output");
+        builder.setArchiveOutput(true);
+        project.getBuildersList().add(builder);
+        project.getBuildersList().add(new Shell("rm -rf CarlResult"));
+        CarlRestoreBuilder restore = new CarlRestoreBuilder("FakeApp");
+        restore.setOutputPath("restored");
+        project.getBuildersList().add(restore);
+        
+        FreeStyleBuild first = jenkinsRule.buildAndAssertSuccess(project);
+        jenkinsRule.assertLogContains("Archived 2 Carl output file(s): 2 transferred", first);
+        assertThat(first.getWorkspace().child("restored/" + CarlResult.FILENAME).readToString(), containsString("\"Total number of issues\":5"));
+        assertThat(first.getWorkspace().child("restored/" + CarlResultDetail.FILENAME).exists(), is(true));
+        
+        FreeStyleBuild second = jenkinsRule.buildAndAssertSuccess(project);
+        jenkinsRule.assertLogContains("Archived 2 Carl output file(s): 0 transferred", second);
+        assertThat(CarlOutputArchive.getStore(project).list().length, is(2));
+        
+        first.delete();
+        jenkinsRule.buildAndAssertSuccess(project);
+        assertThat(CarlOutputArchive.getStore(project).list().length, is(2));
+        }
+    
+    @Test
+    public void testRestoreFromUnreadableJob() throws Exception  {
+        FreeStyleProject source = jenkinsRule.createFreeStyleProject("source");
+        FreeStyleProject target = jenkinsRule.createFreeStyleProject("target");
+        FreeStyleBuild sourceBuild = jenkinsRule.buildAndAssertSuccess(source);
+        FreeStyleBuild targetBuild = jenkinsRule.buildAndAssertSuccess(target);
+        jenkinsRule.jenkins.setSecurityRealm(jenkinsRule.createDummySecurityRealm());
+        MockAuthorizationStrategy authorization = new MockAuthorizationStrategy().grant(Jenkins.READ).everywhere().toEveryone();
+        jenkinsRule.jenkins.setAuthorizationStrategy(authorization);
+        assertThat(CarlBaseline.find(targetBuild, "source#1"), nullValue());
+        assertThat(CarlBaseline.find(jenkinsRule.buildAndAssertSuccess(target), "target#1"), is((Object) targetBuild));
+        
+        authorization.grant(Item.READ).onItems(source).toEveryone();
+        assertThat(CarlBaseline.find(targetBuild, "source#1"), is((Object) sourceBuild));
+        }
+    
+    @Test
+    public void testPack() throws Exception  {
+        FilePath output = new FilePath(jenkinsRule.jenkins.getRootDir()).child("output");
+        output.child("a.json").write("same", "UTF-8");
+        output.child("sub/b.json").write("same", "UTF-8");
+        output.child("c.json").write("other", "UTF-8");
+        File bundle = new File(jenkinsRule.jenkins.getRootDir(), "bundle.tar.gz");
+        Map<String, String> manifest;
+        try (OutputStream out = new FileOutputStream(bundle))  {
+            manifest = output.act(new CarlOutputArchive.Pack(new HashSet<>(), out));
+            }
+        assertThat(manifest.keySet(), contains("a.json", "c.json", "sub/b.json"));
+        assertThat(manifest.get("a.json"), is(manifest.get("sub/b.json")));
+        File store = new File(jenkinsRule.jenkins.getRootDir(), "store");
+        store.mkdirs();
+        assertThat(CarlOutputArchive.importObjects(bundle, store), is(2));
+        assertThat(store.list().length, is(2));
+        }
+    
+    @Test
+    public void testCorruptedObject() throws Exception  {
+        File bundle = new File(jenkinsRule.jenkins.getRootDir(), "bundle.tar.gz");
+        String hash = Util.toHexString(CarlResultCache.newDigest().digest("expected".getBytes(StandardCharsets.UTF_8)));
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GZIPOutputStream(new FileOutputStream(bundle))))  {
+            byte[] contents = "tampered".getBytes(StandardCharsets.UTF_8);
+            TarArchiveEntry entry = new TarArchiveEntry(hash);
+            entry.setSize(contents.length);
+            tar.putArchiveEntry(entry);
+            tar.write(contents);
+            tar.closeArchiveEntry();
+            }
+        File store = new File(jenkinsRule.jenkins.getRootDir(), "store");
+        store.mkdirs();
+        try {
+            CarlOutputArchive.importObjects(bundle, store);
+            fail("An object not matching its hash must be rejected");
+            }
+        catch (IOException e)  {
+            assertThat(e.getMessage(), containsString("Corrupted Carl output object"));
+            }
+        assertThat(store.list().length, is(0));
+        }
+    
+    @Test(expected = IOException.class)
+    public void testInvalidPath() throws Exception  {
+        CarlOutputArchive.checkPath("../secrets");
+        }
+    
+    }
@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+import static org.hamcrest.Matchers.*;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.rules.TemporaryFolder;
+
+public class CarlOutputFilterTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testFilter() throws Exception  {
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        File rawFile = folder.newFile("output.log.gz");
+        CarlProgressAction progress = new CarlProgressAction("App", StandardCharsets.UTF_8);
+        StringBuilder expected = new StringBuilder();
+        try (CarlOutputFilter filter = new CarlOutputFilter(new PrintStream(console, true, "UTF-8"), rawFile, StandardCharsets.UTF_8, progress))  {
+            for (int i=1; i<=100; i++)  {
+                String line = (i == 50) ? "Error: cannot parse file.c\n" : String.format("Analyzing file %d of 100%n", i);
+                expected.append(line);
+                filter.write(line.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        String log = new String(console.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(log, containsString("Analyzing file 20 of 100"));
+        assertThat(log, not(containsString("Analyzing file 21 of 100")));
+        assertThat(log, containsString("Error: cannot parse file.c"));
+        assertThat(log, containsString("(21 of 100 line(s) of Carl output shown"));
+        assertThat(progress.getDone(), is(100L));
+        assertThat(progress.getTotal(), is(100L));
+        assertThat(progress.isFinished(), is(true));
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(rawFile.toPath())))  {
+            assertThat(IOUtils.toString(in, StandardCharsets.UTF_8), is(expected.toString()));
+            }
+        }
+    
+    @Test
+    public void testAgentCharset() throws Exception  {
+        Charset charset = Charset.forName("windows-1252");
+        File rawFile = folder.newFile("output.log.gz");
+        CarlProgressAction progress = new CarlProgressAction("App", charset);
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        try (CarlOutputFilter filter = new CarlOutputFilter(new PrintStream(console, true, "UTF-8"), rawFile, charset, progress))  {
+            filter.write("Analyse du fichier p\u00e9riph\u00e9rique.c\n".getBytes(charset));
+            }
+        assertThat(progress.getCharset(), is("windows-1252"));
+        assertThat(new String(console.toByteArray(), StandardCharsets.UTF_8), containsString("Analyse du fichier p\u00e9riph\u00e9rique.c"));
+        // the raw output is served as written, with the charset it was written in
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(rawFile.toPath())))  {
+            assertThat(IOUtils.toString(in, progress.getCharset()), is("Analyse du fichier p\u00e9riph\u00e9rique.c\n"));
+            }
+        }
+    
+    @Test
+    public void testPercentProgress() throws Exception  {
+        CarlProgressAction progress = new CarlProgressAction("App", StandardCharsets.UTF_8);
+        try (CarlOutputFilter filter = new CarlOutputFilter(new PrintStream(new ByteArrayOutputStream()), folder.newFile("raw.gz"), StandardCharsets.UTF_8, progress))  {
+            assertThat(filter.parseProgress("Rules checked: 42.5 %"), is(true));
+            assertThat(progress.getPercent(), is(42));
+            assertThat(filter.parseProgress("Loading rules"), is(false));
+            }
+        }
+    
+    }
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.TaskListener;
+import hudson.tasks.Shell;
+import hudson.tools.InstallSourceProperty;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.hamcrest.Matchers.*;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class CarlPathLockTest {
+    
+    static final String INSTALLATION_NAME = "Fake Carl";
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Test
+    public void testLock() throws Exception  {
+        FilePath log = new FilePath(new File("CarlResult/log"));
+        FilePath output = new FilePath(new File("CarlResult/output"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> waiting;
+            CountDownLatch started = new CountDownLatch(1);
+            try (CarlPathLock lock = CarlPathLock.acquire(TaskListener.NULL, log, output))  {
+                assertThat(CarlPathLock.isLocked(output), is(true));
+                waiting = executor.submit(() -> {
+                    started.countDown();
+                    try (CarlPathLock lock2 = CarlPathLock.acquire(TaskListener.NULL, output, log))  {
+                        return null;
+                        }
+                    });
+                started.await();
+                Thread.sleep(200);
+                assertThat(waiting.isDone(), is(false));
+                }
+            waiting.get(10, TimeUnit.SECONDS);
+            assertThat(CarlPathLock.isLocked(log), is(false));
+            assertThat(CarlPathLock.isLocked(output), is(false));
+            }
+        finally {
+            executor.shutdownNow();
+            }
+        }
+    
+    @Test
+    public void testIsolatedOutput() throws Exception  {
+        assumeFalse(Functions.isWindows());
+        File home = new File(getClass().getResource("fake-carl/CarlQG.exe").getPath()).getParentFile();
+        CarlInstallation installation = new CarlInstallation(INSTALLATION_NAME, home.getAbsolutePath(), new ArrayList<InstallSourceProperty>());
+        installation.setBackend(new CarlWrapperBackend("sh"));
+        ((CarlInstallation.DescriptorImpl) jenkinsRule.jenkins.getDescriptor(CarlInstallation.class)).setInstallations(installation);
+        
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject();
+        project.getBuildersList().add(new Shell("mkdir -p src && touch src/main.c"));
+        CarlBuilder builder = new CarlBuilder(INSTALLATION_NAME, "src", "Fake App");
+        builder.setLogPath("CarlResult/log");
+        builder.setOutputPath("CarlResult/output");
+        builder.setIsolateOutput(true);
+        project.getBuildersList().add(builder);
+        
+        FreeStyleBuild first = jenkinsRule.buildAndAssertSuccess(project);
+        FilePath output = first.getWorkspace().child("CarlResult/output");
+        assertThat(output.child("1-" + CarlBuildAction.getSafeName("Fake App") + "/" + CarlResult.FILENAME).exists(), is(true));
+        jenkinsRule.buildAndAssertSuccess(project);
+        assertThat(output.child("2-" + CarlBuildAction.getSafeName("Fake App") + "/" + CarlResult.FILENAME).exists(), is(true));
+        assertThat(output.child("1-" + CarlBuildAction.getSafeName("Fake App")).exists(), is(false));
+        }
+    
+    @Test
+    public void testSafeName()  {
+        assertThat(CarlBuildAction.getSafeName("Fake_App"), is("Fake_App"));
+        assertThat(CarlBuildAction.getSafeName("Fake App"), startsWith("Fake_App-"));
+        assertThat(CarlBuildAction.getSafeName("Fake App"), not(CarlBuildAction.getSafeName("Fake/App")));
+        assertThat(CarlBuildAction.getSafeName("Fake App"), is(CarlBuildAction.getSafeName("Fake App")));
+        }
+    
+    }
@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import static org.hamcrest.Matchers.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+public class CarlProcessMonitorTest {
+    
+    @Test
+    public void testLimits() throws Exception  {
+        CarlProcessMonitor monitor = new CarlProcessMonitor(new Launcher.LocalLauncher(TaskListener.NULL), TaskListener.NULL, "output.json");
+        long now = System.currentTimeMillis();
+        assertThat(monitor.checkLimits(now + 60000), nullValue());
+        monitor.setLimits(120000, 30000, 0, 0);
+        assertThat(monitor.checkLimits(now + 20000), nullValue());
+        assertThat(monitor.checkLimits(now + 40000).getOutcome(), is(CarlProcessMonitor.Outcome.IDLE_TIMEOUT));
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        OutputStream out = monitor.watch(console);
+        Thread.sleep(50);
+        out.write("Analyzing\n".getBytes("UTF-8"));
+        assertThat(console.toString("UTF-8"), is("Analyzing\n"));
+        assertThat(monitor.checkLimits(now + 20050), nullValue());
+        assertThat(monitor.checkLimits(now + 200000).getOutcome(), is(CarlProcessMonitor.Outcome.TIMEOUT));
+        }
+    
+    @Test
+    public void testParseSample()  {
+        HashMap<String, long[]> usages = new HashMap<>();
+        assertThat(CarlProcessMonitor.Sample.parse("1204|156250000|524288|468750000|C:\\Carl\\CarlQG.exe -o C:\\ws\\output|1 -s src", "C:\\ws\\output|1", usages), is(true));
+        assertThat(CarlProcessMonitor.Sample.parse("1208|10000|1024|10000|C:\\Carl\\CarlQG.exe -o C:\\other", "C:\\ws\\output|1", usages), is(true));
+        assertThat(CarlProcessMonitor.Sample.parse("Get-CimInstance : Access denied", "C:\\ws\\output|1", usages), is(false));
+        assertThat(CarlProcessMonitor.Sample.parse("", "C:\\ws\\output|1", usages), is(false));
+        assertThat(usages.keySet(), contains("1204"));
+        assertThat(usages.get("1204")[0], is(524288L));
+        assertThat(usages.get("1204")[1], is(62500L));
+        }
+    
+    @Test
+    public void testSamplePeriod()  {
+        CarlProcessMonitor monitor = new CarlProcessMonitor(new Launcher.LocalLauncher(TaskListener.NULL), TaskListener.NULL, "output.json");
+        monitor.setLimits(60000, 0, 0, 0);
+        assertThat(monitor.getSamplePeriod(), is(CarlProcessMonitor.USAGE_SAMPLE_PERIOD));
+        monitor.setLimits(60000, 0, 0, 30000);
+        assertThat(monitor.getSamplePeriod(), is(CarlProcessMonitor.SAMPLE_PERIOD));
+        }
+    
+    @Test
+    public void testUnenforcedLimitsWarning() throws Exception  {
+        assumeTrue(new Launcher.LocalLauncher(TaskListener.NULL).isUnix());
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        TaskListener listener = new StreamTaskListener(log);
+        CarlProcessMonitor monitor = new CarlProcessMonitor(new Launcher.LocalLauncher(listener), listener, "output.json");
+        monitor.setLimits(60000, 0, 0, 0);
+        assertThat(log.toString("UTF-8"), isEmptyString());
+        monitor.setLimits(60000, 0, 1024 * 1024, 0);
+        assertThat(log.toString("UTF-8"), containsString("Carl memory and CPU time limits can only be enforced on Windows agents"));
+        }
+    
+    @Test
+    public void testHealth() throws Exception  {
+        CarlHealth health = new CarlHealth();
+        health.record("Carl", CarlProcessMonitor.Outcome.COMPLETED);
+        health.record("Carl", CarlProcessMonitor.Outcome.COMPLETED);
+        health.record("Carl", CarlProcessMonitor.Outcome.COMPLETED);
+        health.record("Carl", CarlProcessMonitor.Outcome.TIMEOUT);
+        CarlHealth.Statistics stats = health.getStatistics().get("Carl");
+        assertThat(stats.getTotal(), is(4L));
+        assertThat(stats.getCount("TIMEOUT"), is(1L));
+        assertThat(stats.getCount("CPU_LIMIT"), is(0L));
+        assertThat(stats.getScore(), is(75));
+        assertThat(stats.getLastKill(), greaterThan(0L));
+        }
+    
+    }
@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// in-memory parts of the result handling: summary parsing, detail sorting and truncation, remoting serialization
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CarlResultBenchmark {
+    
+    @Param({"100", "10000", "100000"})
+    public int detailsPerTag;
+    
+    private File summaryFile;
+    private List<CarlResultDetail.Detail> details;
+    private CarlResultDetail topResult;
+    private CarlResultDetail fullResult;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException  {
+        summaryFile = CarlResultGenerator.summaryFile();
+        details     = CarlResultGenerator.randomDetails(new Random(42), 0, detailsPerTag);
+        topResult   = CarlResultGenerator.details(CarlResultGenerator.TAG_COUNT, detailsPerTag, CarlBuilder.MAX_DISPLAYED_DETAILS);
+        fullResult  = CarlResultGenerator.details(CarlResultGenerator.TAG_COUNT, detailsPerTag, 0);
+        }
+    
+    @Benchmark
+    public CarlResult summary()  {
+        return new CarlResult.Collect().invoke(summaryFile, null);
+        }
+    
+    @Benchmark
+    public List<CarlResultDetail.Detail> sortAndTruncate()  {
+        List<CarlResultDetail.Detail> sorted = new ArrayList<>(details);
+        sorted.sort(CarlResultDetail.BY_COUNT.reversed());
+        return sorted.subList(0, Math.min(CarlBuilder.MAX_DISPLAYED_DETAILS, sorted.size()));
+        }
+    
+    // bounded heap, as done by the streaming parser
+    @Benchmark
+    public List<CarlResultDetail.Detail> topHeap()  {
+        PriorityQueue<CarlResultDetail.Detail> top = new PriorityQueue<>(CarlResultDetail.BY_COUNT);
+        for (CarlResultDetail.Detail detail : details)  {
+            if (top.size() < CarlBuilder.MAX_DISPLAYED_DETAILS)
+                top.add(detail);
+            else  if (top.peek().count < detail.count)  {
+                top.poll();
+                top.add(detail);
+                }
+            }
+        List<CarlResultDetail.Detail> sorted = new ArrayList<>(top);
+        sorted.sort(CarlResultDetail.BY_COUNT.reversed());
+        return sorted;
+        }
+    
+    // Java serialization round trip, as done by remoting when collecting results from an agent
+    @Benchmark
+    public Object serializeTopDetails() throws IOException, ClassNotFoundException  {
+        return roundTrip(topResult);
+        }
+    
+    @Benchmark
+    public Object serializeAllDetails() throws IOException, ClassNotFoundException  {
+        return roundTrip(fullResult);
+        }
+    
+    static Object roundTrip(Object object) throws IOException, ClassNotFoundException  {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes))  {
+            out.writeObject(object);
+            }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())))  {
+            return in.readObject();
+            }
+        }
+    
+    }
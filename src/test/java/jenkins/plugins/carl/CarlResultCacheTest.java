@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import static org.hamcrest.Matchers.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.rules.TemporaryFolder;
+
+public class CarlResultCacheTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private FilePath root;
+    private FilePath source;
+    private FilePath output;
+    
+    @Before
+    public void setUp() throws Exception  {
+        root    = new FilePath(folder.newFolder("cache"));
+        source  = new FilePath(folder.newFolder("src"));
+        output  = new FilePath(folder.newFolder("output"));
+        source.child("main.c").write("int main() { return 0; }", "UTF-8");
+        source.child("lib/util.c").write("void util() { }", "UTF-8");
+        output.child(CarlResult.FILENAME).write("{}", "UTF-8");
+        }
+    
+    @Test
+    public void testKeyStability() throws Exception  {
+        String key = CarlResultCache.computeKey(source, "App", "critical, tpv", "C:\\Carl\\CarlQG.exe", "1.0");
+        assertThat(CarlResultCache.computeKey(source, "App", "tpv,critical", "C:\\Carl\\CarlQG.exe", "1.0"), is(key));
+        assertThat(CarlResultCache.computeKey(source, "App", "critical", "C:\\Carl\\CarlQG.exe", "1.0"), is(not(key)));
+        assertThat(CarlResultCache.computeKey(source, "App", "critical, tpv", "C:\\Carl\\CarlQG.exe", "1.1"), is(not(key)));
+        assertThat(CarlResultCache.computeKey(source, "Other", "critical, tpv", "C:\\Carl\\CarlQG.exe", "1.0"), is(not(key)));
+        source.child("lib/util.c").write("void util() { return; }", "UTF-8");
+        assertThat(CarlResultCache.computeKey(source, "App", "critical, tpv", "C:\\Carl\\CarlQG.exe", "1.0"), is(not(key)));
+        }
+    
+    @Test
+    public void testLookup() throws Exception  {
+        CarlResultCache.Lookup.Result miss = root.act(new CarlResultCache.Lookup("key"));
+        assertFalse(miss.isHit());
+        assertThat(miss.getMisses(), is(1L));
+        CarlResultCache.store(root, "key", output, 2);
+        CarlResultCache.Lookup.Result hit = root.act(new CarlResultCache.Lookup("key"));
+        assertTrue(hit.isHit());
+        assertThat(hit.getStatus(), is(2));
+        assertThat(hit.getHits(), is(1L));
+        assertThat(hit.getMisses(), is(1L));
+        }
+    
+    @Test
+    public void testRestore() throws Exception  {
+        CarlResultCache.store(root, "key", output, 0);
+        FilePath target = new FilePath(new File(folder.getRoot(), "restored"));
+        assertThat(CarlResultCache.restore(root, "key", target), is(0));
+        assertThat(target.child(CarlResult.FILENAME).readToString(), is("{}"));
+        assertThat(target.getParent().list(), everyItem(not(hasToString(containsString(CarlResultCache.TEMP_MARKER)))));
+        }
+    
+    @Test
+    public void testRestoreIncompleteEntry() throws Exception  {
+        CarlResultCache.store(root, "key", output, 0);
+        root.child("key").child(CarlResultCache.STATUS_FILENAME).delete();
+        FilePath target = new FilePath(new File(folder.getRoot(), "restored"));
+        assertThat(CarlResultCache.restore(root, "key", target), is(nullValue()));
+        assertFalse(root.child("key").child(CarlResultCache.STATUS_FILENAME).exists());
+        assertFalse(target.exists());
+        
+        root.child("key").deleteRecursive();
+        assertThat(CarlResultCache.restore(root, "key", target), is(nullValue()));
+        assertFalse(root.child("key").exists());
+        }
+    
+    @Test
+    public void testEvictMaxEntries() throws Exception  {
+        storeEntries(3);
+        assertThat(root.act(new CarlResultCache.Evict(2, Long.MAX_VALUE, Long.MAX_VALUE)), is(1));
+        assertFalse(root.child("key0").exists());
+        assertTrue(root.child("key1").exists());
+        assertTrue(root.child("key2").exists());
+        }
+    
+    @Test
+    public void testEvictMaxSize() throws Exception  {
+        storeEntries(3);
+        // each entry holds the 2 bytes of its output and its 1 byte status
+        assertThat(root.act(new CarlResultCache.Evict(Integer.MAX_VALUE, 6, Long.MAX_VALUE)), is(1));
+        assertFalse(root.child("key0").exists());
+        assertTrue(root.child("key2").exists());
+        }
+    
+    @Test
+    public void testEvictMaxAge() throws Exception  {
+        storeEntries(3);
+        assertThat(root.act(new CarlResultCache.Evict(Integer.MAX_VALUE, Long.MAX_VALUE, TimeUnit.HOURS.toMillis(1))), is(1));
+        assertFalse(root.child("key0").exists());
+        assertTrue(root.child("key1").exists());
+        }
+    
+    // entries from the least to the most recently used, the oldest one used two hours ago
+    private void storeEntries(int count) throws Exception  {
+        long now = System.currentTimeMillis();
+        for (int i=0; i<count; i++)  {
+            CarlResultCache.store(root, "key" + i, output, 0);
+            assertTrue(new File(root.child("key" + i).child(CarlResultCache.STATUS_FILENAME).getRemote()).setLastModified((i == 0) ? now - TimeUnit.HOURS.toMillis(2) : now - (count - i) * 1000L));
+            }
+        }
+    
+    }
@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CarlResultGenerator {
+    
+    static final int TAG_COUNT = 20;
+    static final File OUTPUT_FOLDER = new File("target/carl-benchmark");
+    
+    static File detailFile(int sizeMb) throws IOException  {
+        File file = new File(OUTPUT_FOLDER, "details-" + sizeMb + "mb.json");
+        if (!file.isFile())
+            writeDetails(file, (long)sizeMb * 1024 * 1024);
+        return file;
+        }
+    
+    static File summaryFile() throws IOException  {
+        File file = new File(OUTPUT_FOLDER, "summary.json");
+        if (!file.isFile())  {
+            Files.createDirectories(OUTPUT_FOLDER.toPath());
+            Files.write(file.toPath(), ("{\"Application Name\":\"Benchmark\",\"Count of affected Rules\":1234,"
+                    + "\"Total count of Files\":56789,\"Total number of issues\":987654}").getBytes(StandardCharsets.UTF_8));
+            }
+        return file;
+        }
+    
+    // in-memory equivalent of a details file, for benchmarks that skip parsing
+    static CarlResultDetail details(int tagCount, int detailsPerTag, int maxDetails)  {
+        Random random = new Random(42);
+        CarlResultDetail result = new CarlResultDetail();
+        for (int tag=0; tag<tagCount; tag++)  {
+            CarlResultDetail.ViolationType violation = new CarlResultDetail.ViolationType("tag" + tag, 0);
+            violation.details = randomDetails(random, tag, detailsPerTag);
+            violation.detailCount = detailsPerTag;
+            for (CarlResultDetail.Detail detail : violation.details)
+                violation.count += detail.count;
+            violation.details.sort(CarlResultDetail.BY_COUNT.reversed());
+            if ((maxDetails > 0) && (violation.details.size() > maxDetails))
+                violation.details = new ArrayList<>(violation.details.subList(0, maxDetails));
+            result.violationTypes.add(violation);
+            }
+        return result;
+        }
+    
+    static List<CarlResultDetail.Detail> randomDetails(Random random, int tag, int count)  {
+        List<CarlResultDetail.Detail> details = new ArrayList<>(count);
+        for (int detail=0; detail<count; detail++)
+            details.add(new CarlResultDetail.Detail("Rule " + detail + " of tag " + tag, random.nextInt(100)));
+        return details;
+        }
+    
+    static void writeDetails(File file, long targetSize) throws IOException  {
+        Files.createDirectories(file.getParentFile().toPath());
+        Random random = new Random(42);
+        long detailsPerTag = Math.max(1, targetSize / TAG_COUNT / 70);
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8), 1 << 16))  {
+            writer.write("[");
+            for (int tag=0; tag<TAG_COUNT; tag++)  {
+                if (tag > 0)
+                    writer.write(",");
+                writer.write("{\"Tag Name\":\"tag" + tag + "\",\"Number of violation\":" + (detailsPerTag * 50) + ",\"Details\":[");
+                for (long detail=0; detail<detailsPerTag; detail++)  {
+                    if (detail > 0)
+                        writer.write(",");
+                    writer.write("{\"Violation Name\":\"Rule " + detail + " of tag " + tag + "\",\"Number of violation\":" + random.nextInt(100) + "}");
+                    }
+                writer.write("]}");
+                }
+            writer.write("]");
+            }
+        }
+    
+    }
@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import static org.hamcrest.Matchers.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.rules.TemporaryFolder;
+
+public class CarlResultMergerTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private File outputFolder;
+    
+    @Before
+    public void setUp() throws Exception  {
+        outputFolder = folder.newFolder("output");
+        writeShard("shard-0", "{\"Count of affected Rules\":2,\"Total count of Files\":3,\"Total number of issues\":5}",
+                "[{\"Tag Name\":\"critical\",\"Number of violation\":5,\"Details\":["
+                + "{\"Violation Name\":\"Rule A\",\"Number of violation\":1},"
+                + "{\"Violation Name\":\"Rule B\",\"Number of violation\":4}]}]");
+        writeShard("shard-1", "{\"Count of affected Rules\":2,\"Total count of Files\":4,\"Total number of issues\":6}",
+                "[{\"Tag Name\":\"critical\",\"Number of violation\":2,\"Details\":["
+                + "{\"Violation Name\":\"Rule B\",\"Number of violation\":2}]},"
+                + "{\"Tag Name\":\"tpv\",\"Number of violation\":4,\"Details\":["
+                + "{\"Violation Name\":\"Rule C\",\"Number of violation\":4}]}]");
+        }
+    
+    @Test
+    public void testMerge() throws Exception  {
+        new CarlResultMerger.Merge(Arrays.asList("shard-0", "shard-1")).invoke(outputFolder, null);
+        CarlResult result = new CarlResult.Collect().invoke(new File(outputFolder, CarlResult.FILENAME), null);
+        assertThat(result.checkedRuleCount, is(3L));
+        assertThat(result.fileCount, is(7L));
+        assertThat(result.issueCount, is(11L));
+        
+        CarlResultDetail detail = new CarlResultDetail.Collect().invoke(new File(outputFolder, CarlResultDetail.FILENAME), null);
+        assertThat(detail.violationTypes.size(), is(2));
+        CarlResultDetail.ViolationType critical = detail.violationTypes.get(0);
+        assertThat(critical.name, is("critical"));
+        assertThat(critical.count, is(7L));
+        assertThat(critical.detailCount, is(2));
+        assertThat(critical.details.get(0).name, is("Rule B"));
+        assertThat(critical.details.get(0).count, is(6L));
+        assertThat(detail.violationTypes.get(1).details.get(0).count, is(4L));
+        }
+    
+    @Test
+    public void testMergeWithoutDetails() throws Exception  {
+        Files.delete(new File(outputFolder, "shard-1/" + CarlResultDetail.FILENAME).toPath());
+        new CarlResultMerger.Merge(Arrays.asList("shard-0", "shard-1")).invoke(outputFolder, null);
+        CarlResult result = new CarlResult.Collect().invoke(new File(outputFolder, CarlResult.FILENAME), null);
+        assertThat(result.checkedRuleCount, is(2L));
+        assertThat(result.issueCount, is(11L));
+        }
+    
+    @Test(expected = IOException.class)
+    public void testMissingShard() throws Exception  {
+        new CarlResultMerger.Merge(Arrays.asList("shard-0", "shard-2")).invoke(outputFolder, null);
+        }
+    
+    private void writeShard(String shardName, String summary, String details) throws IOException  {
+        File shard = new File(outputFolder, shardName);
+        assertTrue(shard.mkdirs());
+        Files.write(new File(shard, CarlResult.FILENAME).toPath(), summary.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(shard, CarlResultDetail.FILENAME).toPath(), details.getBytes(StandardCharsets.UTF_8));
+        }
+    
+    }
@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import static org.hamcrest.Matchers.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.rules.TemporaryFolder;
+
+public class CarlResultStoreTest {
+    
+    static final String SUMMARY = "{\"Count of affected Rules\":3,\"Total count of Files\":12,\"Total number of issues\":7}";
+    static final String DETAILS = "[{\"Tag Name\":\"critical\",\"Number of violation\":5,\"Details\":["
+            + "{\"Violation Name\":\"Rule A\",\"Number of violation\":1},"
+            + "{\"Violation Name\":\"Rule B\",\"Number of violation\":4}]},"
+            + "{\"Tag Name\":\"tpv\",\"Number of violation\":2,\"Details\":["
+            + "{\"Violation Name\":\"Rule B\",\"Number of violation\":2}]}]";
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private File outputFolder;
+    
+    @Before
+    public void setUp() throws Exception  {
+        outputFolder = folder.newFolder("output");
+        Files.write(new File(outputFolder, CarlResult.FILENAME).toPath(), SUMMARY.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(outputFolder, CarlResultDetail.FILENAME).toPath(), DETAILS.getBytes(StandardCharsets.UTF_8));
+        }
+    
+    @Test
+    public void testReadResult() throws Exception  {
+        new CarlAnalysisSummary.Collect(CarlBuilder.MAX_DISPLAYED_DETAILS).invoke(outputFolder, null);
+        CarlResult result = CarlResultStore.readResult(new File(outputFolder, CarlResultStore.FILENAME));
+        assertThat(result.checkedRuleCount, is(3L));
+        assertThat(result.fileCount, is(12L));
+        assertThat(result.issueCount, is(7L));
+        }
+    
+    @Test
+    public void testReadDetail() throws Exception  {
+        new CarlAnalysisSummary.Collect(CarlBuilder.MAX_DISPLAYED_DETAILS).invoke(outputFolder, null);
+        CarlResultDetail detail = CarlResultStore.readDetail(new File(outputFolder, CarlResultStore.FILENAME));
+        assertThat(detail.violationTypes.size(), is(2));
+        CarlResultDetail.ViolationType critical = detail.violationTypes.get(0);
+        assertThat(critical.name, is("critical"));
+        assertThat(critical.count, is(5L));
+        assertThat(critical.detailCount, is(2));
+        assertThat(critical.details.get(0).name, is("Rule B"));
+        assertThat(critical.details.get(0).count, is(4L));
+        assertThat(critical.details.get(1).name, is("Rule A"));
+        assertSame(critical.details.get(0).name, detail.violationTypes.get(1).details.get(0).name);
+        }
+    
+    @Test
+    public void testSummary() throws Exception  {
+        CarlAnalysisSummary summary = new CarlAnalysisSummary.Collect(1).invoke(outputFolder, null);
+        assertFalse(summary.isMissing());
+        assertThat(summary.getResult().issueCount, is(7L));
+        assertThat(summary.getDetail().violationTypes.get(0).details.size(), is(1));
+        assertThat(summary.getDetail().violationTypes.get(0).detailCount, is(2));
+        assertThat(summary.getPayloadSize(), greaterThan(0L));
+        assertThat(summary.getStoreSize(), is(new File(outputFolder, CarlResultStore.FILENAME).length()));
+        CarlResultDetail stored = CarlResultStore.readDetail(new File(outputFolder, CarlResultStore.FILENAME));
+        assertThat(stored.violationTypes.get(0).details.size(), is(2));
+        }
+    
+    @Test
+    public void testStreamedStore() throws Exception  {
+        // type fields after the details, many more details than kept in memory
+        StringBuilder details = new StringBuilder("[{\"Details\":[");
+        for (int i=0; i<100; i++)
+            details.append((i > 0) ? "," : "").append("{\"Violation Name\":\"Rule ").append(i).append("\",\"Number of violation\":").append(i).append("}");
+        details.append("],\"Tag Name\":\"critical\",\"Number of violation\":4950}]");
+        Files.write(new File(outputFolder, CarlResultDetail.FILENAME).toPath(), details.toString().getBytes(StandardCharsets.UTF_8));
+        CarlAnalysisSummary summary = new CarlAnalysisSummary.Collect(3).invoke(outputFolder, null);
+        CarlResultDetail.ViolationType kept = summary.getDetail().violationTypes.get(0);
+        assertThat(kept.details.size(), is(3));
+        assertThat(kept.details.get(0).name, is("Rule 99"));
+        assertThat(kept.detailCount, is(100));
+        CarlResultDetail stored = CarlResultStore.readDetail(new File(outputFolder, CarlResultStore.FILENAME));
+        CarlResultDetail.ViolationType critical = stored.violationTypes.get(0);
+        assertThat(critical.name, is("critical"));
+        assertThat(critical.count, is(4950L));
+        assertThat(critical.details.size(), is(100));
+        assertThat(critical.details.get(0).name, is("Rule 99"));
+        assertThat(critical.details.get(99).name, is("Rule 0"));
+        assertFalse(new File(outputFolder, CarlResultStore.FILENAME + ".tmp").exists());
+        }
+    
+    @Test
+    public void testUnreadableDetails() throws Exception  {
+        Files.write(new File(outputFolder, CarlResultDetail.FILENAME).toPath(), "[{\"Tag Name\":".getBytes(StandardCharsets.UTF_8));
+        CarlAnalysisSummary summary = new CarlAnalysisSummary.Collect(3).invoke(outputFolder, null);
+        assertNull(summary.getDetail());
+        assertThat(CarlResultStore.readResult(new File(outputFolder, CarlResultStore.FILENAME)).issueCount, is(7L));
+        assertThat(CarlResultStore.readDetail(new File(outputFolder, CarlResultStore.FILENAME)).violationTypes.size(), is(0));
+        }
+    
+    @Test
+    public void testMissingSummary() throws Exception  {
+        CarlAnalysisSummary summary = new CarlAnalysisSummary.Collect(1).invoke(folder.newFolder("empty"), null);
+        assertTrue(summary.isMissing());
+        }
+    
+    @Test
+    public void testTopDetails()  {
+        CarlResultDetail detail = new CarlResultDetail.Collect(1).invoke(new File(outputFolder, CarlResultDetail.FILENAME), null);
+        CarlResultDetail.ViolationType critical = detail.violationTypes.get(0);
+        assertThat(critical.detailCount, is(2));
+        assertThat(critical.details.size(), is(1));
+        assertThat(critical.details.get(0).name, is("Rule B"));
+        }
+    
+    }
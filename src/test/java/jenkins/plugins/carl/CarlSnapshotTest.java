@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.apache.commons.io.IOUtils;
+import static org.hamcrest.Matchers.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.rules.TemporaryFolder;
+
+public class CarlSnapshotTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private File work;
+    private File bare;
+    private FilePath mirrorRoot;
+    private TaskListener listener;
+    
+    @Before
+    public void setUp() throws Exception  {
+        work = folder.newFolder("work");
+        git(work, "init");
+        bare = new File(folder.getRoot(), "repo.git");
+        mirrorRoot = new FilePath(folder.newFolder("mirrors"));
+        listener = new StreamTaskListener(new ByteArrayOutputStream());
+        }
+    
+    @Test
+    public void testExtract() throws Exception  {
+        String first = commit("src/a.c", "other/b.c");
+        String second = commit("src/c.c");
+        git(folder.getRoot(), "clone", "--bare", work.getAbsolutePath(), bare.getAbsolutePath());
+        
+        FilePath target = new FilePath(folder.getRoot()).child("snapshot");
+        FilePath source = newSnapshot().extract(first, "src\\", target);
+        assertThat(source.getRemote(), is(target.child("src").getRemote()));
+        assertThat(source.child("a.c").exists(), is(true));
+        assertThat(source.child("c.c").exists(), is(false));
+        assertThat(target.child("other").exists(), is(false));
+        
+        source = newSnapshot().extract(second, "src", target);
+        assertThat(source.child("c.c").exists(), is(true));
+        assertThat(mirrorRoot.list().size(), is(1));
+        
+        String third = commit("src/d.c");
+        git(work, "push", bare.getAbsolutePath(), "HEAD:refs/heads/snapshot");
+        source = newSnapshot().extract("snapshot", "src", target);
+        assertThat(source.child("d.c").exists(), is(true));
+        assertThat(newSnapshot().fetch(third), is(third));
+        }
+    
+    @Test(expected = AbortException.class)
+    public void testMissingSourcePath() throws Exception  {
+        String first = commit("src/a.c");
+        git(folder.getRoot(), "clone", "--bare", work.getAbsolutePath(), bare.getAbsolutePath());
+        newSnapshot().extract(first, "missing", new FilePath(folder.getRoot()).child("snapshot"));
+        }
+    
+    @Test
+    public void testNormalize()  {
+        assertThat(CarlSnapshot.normalize(".\\sources\\app\\"), is("sources/app"));
+        assertThat(CarlSnapshot.normalize("."), is(""));
+        }
+    
+    private CarlSnapshot newSnapshot()  {
+        return new CarlSnapshot(new Launcher.LocalLauncher(listener), listener, "git", mirrorRoot, bare.getAbsolutePath());
+        }
+    
+    private String commit(String... files) throws Exception  {
+        for (String file : files)  {
+            File f = new File(work, file);
+            Files.createDirectories(f.getParentFile().toPath());
+            Files.write(f.toPath(), file.getBytes(StandardCharsets.UTF_8));
+            }
+        git(work, "add", ".");
+        git(work, "-c", "user.name=Carl", "-c", "user.email=carl@example.com", "commit", "-m", "Add " + String.join(", ", files));
+        return git(work, "rev-parse", "HEAD").trim();
+        }
+    
+    private static String git(File dir, String... args) throws IOException, InterruptedException  {
+        String[] cmds = new String[args.length + 1];
+        cmds[0] = "git";
+        System.arraycopy(args, 0, cmds, 1, args.length);
+        Process process = new ProcessBuilder(cmds).directory(dir).redirectErrorStream(true).start();
+        String output = IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8);
+        assertThat(output, process.waitFor(), is(0));
+        return output;
+        }
+    
+    }
@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import static org.hamcrest.Matchers.*;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.rules.TemporaryFolder;
+
+public class CarlSourceStagingTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testFilter() throws Exception  {
+        FilePath source = new FilePath(folder.newFolder("src"));
+        source.child("main.c").write("int main() { return 0; }", "UTF-8");
+        source.child("lib/util.c").write("void util() { }", "UTF-8");
+        source.child("lib/README.md").write("Utilities", "UTF-8");
+        source.child("node_modules/dep/index.js").write("module.exports = {};", "UTF-8");
+        source.child("generated/parser.c").write("void parse() { }", "UTF-8");
+        FilePath staging = new FilePath(new File(folder.getRoot(), "staging"));
+        
+        CarlSourceStaging.FilterSummary summary = source.act(new CarlSourceStaging.Filter(staging.getRemote(), "**/*.c, **/*.js", "**/node_modules/**, generated/"));
+        assertThat(summary.getIncludedCount(), is(2L));
+        assertThat(summary.getIncludedBytes(), is((long)("int main() { return 0; }".length() + "void util() { }".length())));
+        assertThat(summary.getSkippedCount(), is(3L));
+        assertThat(staging.child("main.c").exists(), is(true));
+        assertThat(staging.child("lib/util.c").exists(), is(true));
+        assertThat(staging.child("lib/README.md").exists(), is(false));
+        assertThat(staging.child("node_modules").exists(), is(false));
+        assertThat(staging.child("generated").exists(), is(false));
+        }
+    
+    @Test
+    public void testExcludesOnly() throws Exception  {
+        FilePath source = new FilePath(folder.newFolder("src"));
+        source.child("a.c").write("a", "UTF-8");
+        source.child("build/a.o").write("o", "UTF-8");
+        FilePath staging = new FilePath(new File(folder.getRoot(), "staging"));
+        CarlSourceStaging.FilterSummary summary = source.act(new CarlSourceStaging.Filter(staging.getRemote(), "", "build\\"));
+        assertThat(summary.getIncludedCount(), is(1L));
+        assertThat(summary.getSkippedCount(), is(1L));
+        assertThat(summary.getSkippedBytes(), is(1L));
+        }
+    
+    @Test
+    public void testStage() throws Exception  {
+        FilePath source = new FilePath(folder.newFolder("src"));
+        source.child("a.c").write("a", "UTF-8");
+        source.child("lib/b.c").write("b", "UTF-8");
+        source.child("lib/c.c").write("c", "UTF-8");
+        FilePath staging = new FilePath(new File(folder.getRoot(), "staging"));
+        int count = source.act(new CarlSourceStaging.Stage(staging.getRemote(), Arrays.asList("lib/b.c", "removed.c", "lib")));
+        assertThat(count, is(1));
+        assertThat(staging.child("lib/b.c").readToString(), is("b"));
+        assertThat(staging.child("a.c").exists(), is(false));
+        assertThat(staging.child("lib/c.c").exists(), is(false));
+        }
+    
+    @Test
+    public void testShard() throws Exception  {
+        FilePath source = new FilePath(folder.newFolder("src"));
+        source.child("big/a.c").write(repeat('a', 1000), "UTF-8");
+        source.child("big/b.c").write(repeat('b', 100), "UTF-8");
+        source.child("small1/a.c").write(repeat('c', 300), "UTF-8");
+        source.child("small2/a.c").write(repeat('d', 300), "UTF-8");
+        source.child("small3/a.c").write(repeat('e', 300), "UTF-8");
+        FilePath shardRoot = new FilePath(new File(folder.getRoot(), "shards"));
+        
+        List<String> shardNames = source.act(new CarlSourceStaging.Shard(shardRoot.getRemote(), 2));
+        assertThat(shardNames, containsInAnyOrder("shard-0", "shard-1"));
+        // the files of a folder stay together, the largest folder alone balances the three others
+        FilePath bigShard = shardRoot.child(shardNames.get(0)).child("big").exists() ? shardRoot.child(shardNames.get(0)) : shardRoot.child(shardNames.get(1));
+        FilePath smallShard = bigShard.getName().equals(shardNames.get(0)) ? shardRoot.child(shardNames.get(1)) : shardRoot.child(shardNames.get(0));
+        assertThat(bigShard.child("big/a.c").exists(), is(true));
+        assertThat(bigShard.child("big/b.c").exists(), is(true));
+        assertThat(bigShard.child("small1").exists(), is(false));
+        assertThat(smallShard.child("big").exists(), is(false));
+        assertThat(smallShard.child("small1/a.c").exists(), is(true));
+        assertThat(smallShard.child("small2/a.c").exists(), is(true));
+        assertThat(smallShard.child("small3/a.c").readToString(), is(repeat('e', 300)));
+        }
+    
+    @Test
+    public void testShardWithFewFolders() throws Exception  {
+        FilePath source = new FilePath(folder.newFolder("src"));
+        source.child("main.c").write("int main() { return 0; }", "UTF-8");
+        source.child("lib/util.c").write("void util() { }", "UTF-8");
+        FilePath shardRoot = new FilePath(new File(folder.getRoot(), "shards"));
+        List<String> shardNames = source.act(new CarlSourceStaging.Shard(shardRoot.getRemote(), 4));
+        assertThat(shardNames, containsInAnyOrder("shard-0", "shard-1"));
+        }
+    
+    static private String repeat(char c, int count)  {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+        }
+    
+    }
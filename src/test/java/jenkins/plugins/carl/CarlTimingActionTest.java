@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import static org.hamcrest.Matchers.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CarlTimingActionTest {
+    
+    @Test
+    public void testPhases() throws Exception  {
+        CarlTimingAction timing = new CarlTimingAction("App");
+        timing.mark("cleanup");
+        Thread.sleep(20);
+        timing.mark("analysis");
+        timing.mark("result collection");
+        Thread.sleep(10);
+        timing.mark("cleanup");
+        assertThat(timing.getPhases().keySet(), contains("cleanup", "analysis", "result collection"));
+        assertThat(timing.getPhases().get("analysis"), greaterThanOrEqualTo(20L));
+        assertThat(timing.getPhases().get("cleanup"), greaterThanOrEqualTo(10L));
+        long total = 0;
+        for (long duration : timing.getPhases().values())
+            total += duration;
+        assertThat(timing.getTotalTime(), is(total));
+        assertThat(timing.getPeakWorkingSet(), is(-1L));
+        }
+    
+    @Test
+    public void testPrint() throws Exception  {
+        CarlTimingAction timing = new CarlTimingAction("App");
+        timing.mark("analysis");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        timing.print(new PrintStream(out, true, "UTF-8"));
+        String log = out.toString("UTF-8");
+        assertThat(log, startsWith("Carl timing breakdown:"));
+        assertThat(log, containsString("analysis"));
+        assertThat(log, containsString("total"));
+        assertThat(log, not(containsString("CarlQG.exe peak working set")));
+        
+        timing.setProcessUsage(2048, 1500);
+        out.reset();
+        timing.print(new PrintStream(out, true, "UTF-8"));
+        assertThat(out.toString("UTF-8"), containsString("CarlQG.exe peak working set: 2048 KB, CPU time: 1500 ms"));
+        }
+    
+    }
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.FilePath;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import static org.hamcrest.Matchers.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.rules.TemporaryFolder;
+
+public class CarlTrashTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private FilePath workspace;
+    private FilePath trashRoot;
+    
+    @Before
+    public void setUp() throws Exception  {
+        workspace = new FilePath(folder.newFolder("ws"));
+        trashRoot = new FilePath(new File(folder.getRoot(), "ws@tmp"));
+        }
+    
+    @Test
+    public void testDiscard() throws Exception  {
+        FilePath output = workspace.child("CarlResult/output");
+        for (int i = 0; i < CarlTrash.DELETE_BATCH + 10; i++)
+            output.child("dir" + (i % 7) + "/file" + i + ".json").write("{}", "UTF-8");
+        
+        assertThat(CarlTrash.discard(workspace, output), is(true));
+        assertThat(output.isDirectory(), is(true));
+        assertThat(output.list(), is(empty()));
+        assertThat(workspace.child("CarlResult").list(), contains(output));
+        waitForReaper();
+        assertThat(trashRoot.isDirectory(), is(true));
+        assertThat(trashRoot.list(), is(empty()));
+        }
+    
+    @Test
+    public void testDiscardMissingFolder() throws Exception  {
+        FilePath output = workspace.child("CarlResult/output");
+        assertThat(CarlTrash.discard(workspace, output), is(true));
+        assertThat(output.exists(), is(false));
+        }
+    
+    @Test
+    public void testReapLeftovers() throws Exception  {
+        trashRoot.child(CarlTrash.TRASH_PREFIX + "output-1/a/b.json").write("{}", "UTF-8");
+        trashRoot.child("carl-staging-12345678/a.c").write("a", "UTF-8");
+        FilePath results = workspace.child("CarlResult");
+        results.child(CarlTrash.TRASH_PREFIX + "log-2/CarlQG.log").write("log", "UTF-8");
+        results.child("log/CarlQG.log").write("log", "UTF-8");
+        
+        // a leftover of a stopped JVM is swept by the next discard, next to the result folders too
+        assertThat(CarlTrash.discard(workspace, results.child("log")), is(true));
+        waitForReaper();
+        assertThat(trashRoot.list(), contains(trashRoot.child("carl-staging-12345678")));
+        assertThat(results.list(), contains(results.child("log")));
+        }
+    
+    // the reaper runs its tasks in order
+    private void waitForReaper() throws Exception  {
+        CarlTrash.reap(new File(folder.getRoot(), "none").toPath()).get(30, TimeUnit.SECONDS);
+        }
+    
+    }
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import hudson.model.FreeStyleProject;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import static org.hamcrest.Matchers.*;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class CarlTrendIndexTest {
+    
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+    
+    @Test
+    public void testAppendAndRead() throws Exception  {
+        FreeStyleProject project = createProjectWithBuilds(2);
+        assertFalse(CarlTrendIndex.exists(project));
+        
+        CarlTrendIndex.append(project, 2, 2000L, "Pegasus", newResult(10, 20, 30), newDetail("critical", 5));
+        CarlTrendIndex.append(project, 1, 1000L, "Pegasus", newResult(1, 2, 3), newDetail("tpv", 4));
+        CarlTrendIndex.append(project, 2, 2000L, "Other", newResult(7, 8, 9), null);
+        assertTrue(CarlTrendIndex.exists(project));
+        
+        List<CarlTrendIndex.Record> records = CarlTrendIndex.read(project);
+        assertThat(records.size(), is(3));
+        assertThat(records.get(0).getBuildNumber(), is(1));
+        assertThat(records.get(0).getIssueCount(), is(3L));
+        assertThat(records.get(0).getViolationCounts().get("tpv"), is(4L));
+        assertThat(records.get(1).getApplicationName(), is("Pegasus"));
+        assertThat(records.get(1).getViolationCounts().get("critical"), is(5L));
+        assertThat(records.get(2).getApplicationName(), is("Other"));
+        assertTrue(records.get(2).getViolationCounts().isEmpty());
+        }
+    
+    @Test
+    public void testRecordedAgain() throws Exception  {
+        FreeStyleProject project = createProjectWithBuilds(1);
+        CarlTrendIndex.append(project, 1, 1000L, "Pegasus", newResult(1, 2, 3), newDetail("tpv", 4));
+        CarlTrendIndex.append(project, 1, 1000L, "Pegasus", newResult(1, 2, 5), newDetail("critical", 5));
+        List<CarlTrendIndex.Record> records = CarlTrendIndex.read(project);
+        assertThat(records.size(), is(1));
+        assertThat(records.get(0).getIssueCount(), is(5L));
+        assertThat(records.get(0).getViolationCounts().keySet(), contains("critical"));
+        assertThat(new File(project.getRootDir(), CarlTrendIndex.RECORD_FILENAME).length(), is((long) CarlTrendIndex.RECORD_SIZE));
+        }
+    
+    @Test
+    public void testTornTail() throws Exception  {
+        FreeStyleProject project = createProjectWithBuilds(2);
+        CarlTrendIndex.append(project, 1, 1000L, "Pegasus", newResult(1, 2, 3), newDetail("tpv", 4));
+        // a crash in the middle of the next append
+        Files.write(new File(project.getRootDir(), CarlTrendIndex.VIOLATION_FILENAME).toPath(), new byte[] { 0, 0, 0, 2, 0 }, StandardOpenOption.APPEND);
+        Files.write(new File(project.getRootDir(), CarlTrendIndex.NAME_FILENAME).toPath(), "crit".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        
+        CarlTrendIndex.append(project, 2, 2000L, "Pegasus", newResult(10, 20, 30), newDetail("critical", 5));
+        List<CarlTrendIndex.Record> records = CarlTrendIndex.read(project);
+        assertThat(records.size(), is(2));
+        assertThat(records.get(0).getViolationCounts().get("tpv"), is(4L));
+        assertThat(records.get(1).getIssueCount(), is(30L));
+        assertThat(records.get(1).getViolationCounts().get("critical"), is(5L));
+        }
+    
+    @Test
+    public void testDeletedBuildsPruned() throws Exception  {
+        FreeStyleProject project = createProjectWithBuilds(2);
+        CarlTrendIndex.append(project, 1, 1000L, "Pegasus", newResult(1, 2, 3), newDetail("tpv", 4));
+        CarlTrendIndex.append(project, 2, 2000L, "Pegasus", newResult(10, 20, 30), newDetail("critical", 5));
+        project.getBuildByNumber(1).delete();
+        List<CarlTrendIndex.Record> records = CarlTrendIndex.read(project);
+        assertThat(records.size(), is(1));
+        assertThat(records.get(0).getBuildNumber(), is(2));
+        assertThat(new File(project.getRootDir(), CarlTrendIndex.RECORD_FILENAME).length(), is((long) CarlTrendIndex.RECORD_SIZE));
+        assertThat(new File(project.getRootDir(), CarlTrendIndex.VIOLATION_FILENAME).length(), is((long) CarlTrendIndex.VIOLATION_SIZE));
+        }
+    
+    private FreeStyleProject createProjectWithBuilds(int buildCount) throws Exception  {
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject();
+        for (int i = 0; i < buildCount; i++)
+            jenkinsRule.buildAndAssertSuccess(project);
+        return project;
+        }
+    
+    private CarlResult newResult(long checkedRuleCount, long fileCount, long issueCount)  {
+        CarlResult result = new CarlResult();
+        result.checkedRuleCount = checkedRuleCount;
+        result.fileCount        = fileCount;
+        result.issueCount       = issueCount;
+        return result;
+        }
+    
+    private CarlResultDetail newDetail(String tagName, long count)  {
+        CarlResultDetail detail = new CarlResultDetail();
+        detail.violationTypes.add(new CarlResultDetail.ViolationType(tagName, count));
+        return detail;
+        }
+    
+    }
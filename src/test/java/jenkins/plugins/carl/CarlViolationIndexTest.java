@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2020 TPO.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.plugins.carl;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import static org.hamcrest.Matchers.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.rules.TemporaryFolder;
+
+public class CarlViolationIndexTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private CarlViolationIndex index;
+    
+    @Before
+    public void setUp() throws Exception  {
+        File outputFolder = folder.newFolder("output");
+        Files.write(new File(outputFolder, CarlResult.FILENAME).toPath(), CarlResultStoreTest.SUMMARY.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(outputFolder, CarlResultDetail.FILENAME).toPath(), CarlResultStoreTest.DETAILS.getBytes(StandardCharsets.UTF_8));
+        new CarlAnalysisSummary.Collect(CarlBuilder.MAX_DISPLAYED_DETAILS).invoke(outputFolder, null);
+        index = CarlViolationIndex.read(new File(outputFolder, CarlResultStore.FILENAME));
+        }
+    
+    @Test
+    public void testTags()  {
+        assertThat(index.getTagCount(), is(2));
+        assertThat(index.getTagName(0), is("critical"));
+        assertThat(index.getTagCount(0), is(5L));
+        assertThat(index.getTagRuleCount(0), is(2));
+        assertThat(index.findTag("tpv"), is(1));
+        assertThat(index.findTag("unknown"), is(-1));
+        }
+    
+    @Test
+    public void testSortedRules()  {
+        int[] rules = index.getSortedRules();
+        assertThat(rules.length, is(2));
+        assertThat(index.getRuleName(rules[0]), is("Rule B"));
+        assertThat(index.getRuleTotal(rules[0]), is(6L));
+        assertThat(index.getRuleTagCount(rules[0]), is(2));
+        assertThat(index.getRuleTotal(rules[1]), is(1L));
+        }
+    
+    @Test
+    public void testSortedEntries()  {
+        int[] entries = index.getSortedEntries();
+        assertThat(entries.length, is(3));
+        assertThat(index.getEntryCount(entries[0]), is(4L));
+        assertThat(index.getEntryCount(entries[1]), is(2L));
+        assertThat(index.getEntryTag(entries[1]), is("tpv"));
+        assertThat(index.getEntryCount(entries[2]), is(1L));
+        assertThat(index.getEntryTag(entries[2]), is("critical"));
+        }
+    
+    @Test
+    public void testTagEntriesPage()  {
+        int[] entries = index.getTagEntries(0, 1, 50);
+        assertThat(entries.length, is(1));
+        assertThat(index.getEntryRule(entries[0]), is("Rule A"));
+        assertThat(index.getTagEntries(0, 5, 50).length, is(0));
+        }
+    
+    }